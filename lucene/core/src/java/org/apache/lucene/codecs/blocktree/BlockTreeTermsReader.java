@@ -92,8 +92,11 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   /** Metadata is written to its own file. */
   public static final int VERSION_META_FILE = 6;
 
+  /** Fields may have an index of their reversed terms. */
+  public static final int VERSION_REVERSED_TERMS_INDEX = 7;
+
   /** Current terms format. */
-  public static final int VERSION_CURRENT = VERSION_META_FILE;
+  public static final int VERSION_CURRENT = VERSION_REVERSED_TERMS_INDEX;
 
   /** Extension of terms index file */
   static final String TERMS_INDEX_EXTENSION = "tip";
@@ -19,6 +19,7 @@ package org.apache.lucene.codecs.blocktree;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.codecs.BlockTermState;
@@ -40,7 +41,10 @@ import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefArray;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.IntsRefBuilder;
@@ -51,6 +55,7 @@ import org.apache.lucene.util.fst.ByteSequenceOutputs;
 import org.apache.lucene.util.fst.BytesRefFSTEnum;
 import org.apache.lucene.util.fst.FST;
 import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.NoOutputs;
 import org.apache.lucene.util.fst.Util;
 
 /*
@@ -169,13 +174,15 @@ import org.apache.lucene.util.fst.Util;
  * saving a disk seek.
  *
  * <ul>
- *   <li>TermsIndex (.tip) --&gt; Header, FSTIndex<sup>NumFields</sup>
- *       &lt;IndexStartFP&gt;<sup>NumFields</sup>, DirOffset, Footer
+ *   <li>TermsIndex (.tip) --&gt; Header, &lt;FSTIndex,
+ *       ReversedTermsIndex?&gt;<sup>NumFields</sup> &lt;IndexStartFP&gt;<sup>NumFields</sup>,
+ *       DirOffset, Footer
  *   <li>Header --&gt; {@link CodecUtil#writeHeader CodecHeader}
  *   <li>DirOffset --&gt; {@link DataOutput#writeLong Uint64}
  *   <li>IndexStartFP --&gt; {@link DataOutput#writeVLong VLong}
  *       <!-- TODO: better describe FST output here -->
  *   <li>FSTIndex --&gt; {@link FST FST&lt;byte[]&gt;}
+ *   <li>ReversedTermsIndex --&gt; {@link FST FST&lt;NoOutput&gt;}
  *   <li>Footer --&gt; {@link CodecUtil#writeFooter CodecFooter}
  * </ul>
  *
@@ -190,6 +197,10 @@ import org.apache.lucene.util.fst.Util;
  *       maximum (default: 48)). When this happens, the block is sub-divided into new blocks (called
  *       "floor blocks"), and then the output in the FST for the block's prefix encodes the leading
  *       byte of each sub-block, and its file pointer.
+ *   <li>If the writer was created with <code>indexReversedTerms</code>, each field also has a
+ *       ReversedTermsIndex: an FST that accepts the bytes of every term of the field in reverse
+ *       order. It is used to intersect the terms dictionary with automata that have a long common
+ *       suffix but no common prefix, such as leading wildcard queries, without scanning all blocks.
  * </ul>
  *
  * @see BlockTreeTermsReader
@@ -220,6 +231,7 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
   final int maxDoc;
   final int minItemsInBlock;
   final int maxItemsInBlock;
+  final boolean indexReversedTerms;
 
   final PostingsWriterBase postingsWriter;
   final FieldInfos fieldInfos;
@@ -237,10 +249,29 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
       int minItemsInBlock,
       int maxItemsInBlock)
       throws IOException {
+    this(state, postingsWriter, minItemsInBlock, maxItemsInBlock, false);
+  }
+
+  /**
+   * Create a new writer. The number of items (terms or sub-blocks) per block will aim to be between
+   * minItemsPerBlock and maxItemsPerBlock, though in some cases the blocks may be smaller than the
+   * min. If <code>indexReversedTerms</code> is true, an additional index of the reversed terms of
+   * every field is written to the terms index, which speeds up automaton queries that have a
+   * common suffix but no common prefix, like leading wildcards, at the cost of a larger terms index
+   * and of buffering the reversed terms of a field in memory while it is written.
+   */
+  public BlockTreeTermsWriter(
+      SegmentWriteState state,
+      PostingsWriterBase postingsWriter,
+      int minItemsInBlock,
+      int maxItemsInBlock,
+      boolean indexReversedTerms)
+      throws IOException {
     validateSettings(minItemsInBlock, maxItemsInBlock);
 
     this.minItemsInBlock = minItemsInBlock;
     this.maxItemsInBlock = maxItemsInBlock;
+    this.indexReversedTerms = indexReversedTerms;
 
     this.maxDoc = state.segmentInfo.maxDoc();
     this.fieldInfos = state.fieldInfos;
@@ -591,6 +622,10 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
     private PendingTerm firstPendingTerm;
     private PendingTerm lastPendingTerm;
 
+    // Reversed bytes of all terms of this field, or null if reversed terms are not indexed
+    private final BytesRefArray reversedTerms;
+    private final BytesRefBuilder reversedTerm;
+
     /** Writes the top count entries in pending, using prevTerm to compute the prefix. */
     void writeBlocks(int prefixLength, int count) throws IOException {
 
@@ -989,6 +1024,13 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
       assert fieldInfo.getIndexOptions() != IndexOptions.NONE;
       docsSeen = new FixedBitSet(maxDoc);
       postingsWriter.setField(fieldInfo);
+      if (indexReversedTerms) {
+        reversedTerms = new BytesRefArray(Counter.newCounter());
+        reversedTerm = new BytesRefBuilder();
+      } else {
+        reversedTerms = null;
+        reversedTerm = null;
+      }
     }
 
     /** Writes one term's worth of postings. */
@@ -1022,9 +1064,29 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
           firstPendingTerm = term;
         }
         lastPendingTerm = term;
+
+        if (reversedTerms != null) {
+          reversedTerm.grow(text.length);
+          reversedTerm.setLength(text.length);
+          for (int i = 0; i < text.length; ++i) {
+            reversedTerm.setByteAt(i, text.bytes[text.offset + text.length - 1 - i]);
+          }
+          reversedTerms.append(reversedTerm.get());
+        }
       }
     }
 
+    /** Builds an FST that accepts the reversed bytes of all terms of this field. */
+    private FST<Object> buildReversedTermsIndex() throws IOException {
+      final NoOutputs outputs = NoOutputs.getSingleton();
+      final FSTCompiler<Object> fstCompiler = new FSTCompiler<>(FST.INPUT_TYPE.BYTE1, outputs);
+      final BytesRefIterator it = reversedTerms.iterator(Comparator.naturalOrder());
+      for (BytesRef term = it.next(); term != null; term = it.next()) {
+        fstCompiler.add(Util.toIntsRef(term, scratchIntsRef), outputs.getNoOutput());
+      }
+      return fstCompiler.compile();
+    }
+
     /** Pushes the new term to the top of the stack, and writes new blocks. */
     private void pushTerm(BytesRef text) throws IOException {
       // Find common prefix between last term and current term:
@@ -1110,6 +1172,14 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
         metaOut.writeVLong(indexOut.getFilePointer());
         // Write FST to index
         root.index.save(metaOut, indexOut);
+        if (reversedTerms != null) {
+          metaOut.writeByte((byte) 1);
+          metaOut.writeVLong(indexOut.getFilePointer());
+          buildReversedTermsIndex().save(metaOut, indexOut);
+          reversedTerms.clear();
+        } else {
+          metaOut.writeByte((byte) 0);
+        }
         // System.out.println("  write FST " + indexStartFP + " field=" + fieldInfo.name);
 
         /*
@@ -17,8 +17,11 @@
 package org.apache.lucene.codecs.blocktree;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.Terms;
@@ -30,8 +33,10 @@ import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.apache.lucene.util.automaton.Operations;
 import org.apache.lucene.util.fst.ByteSequenceOutputs;
 import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.NoOutputs;
 import org.apache.lucene.util.fst.OffHeapFSTStore;
 
 /**
@@ -58,7 +63,13 @@ public final class FieldReader extends Terms implements Accountable {
   final BytesRef maxTerm;
   final BlockTreeTermsReader parent;
 
+  // Visiting a term through the reversed terms index is about two orders of magnitude more costly
+  // than scanning it in a block, so only do it if few terms end with the common suffix
+  private static final int MAX_REVERSED_CANDIDATES_RATIO = 256;
+
   final FST<BytesRef> index;
+  // Accepts the reversed bytes of all terms, or null if the field has no reversed terms index
+  final FST<Object> reversedIndex;
   // private boolean DEBUG;
 
   FieldReader(
@@ -101,6 +112,22 @@ public final class FieldReader extends Terms implements Accountable {
     } else {
       index = new FST<>(metaIn, clone, ByteSequenceOutputs.getSingleton(), new OffHeapFSTStore());
     }
+    if (parent.version >= BlockTreeTermsReader.VERSION_REVERSED_TERMS_INDEX) {
+      final byte hasReversedIndex = metaIn.readByte();
+      if (hasReversedIndex == 1) {
+        final IndexInput reversedClone = indexIn.clone();
+        reversedClone.seek(metaIn.readVLong());
+        reversedIndex =
+            new FST<>(metaIn, reversedClone, NoOutputs.getSingleton(), new OffHeapFSTStore());
+      } else if (hasReversedIndex == 0) {
+        reversedIndex = null;
+      } else {
+        throw new CorruptIndexException(
+            "invalid reversed terms index flag: " + hasReversedIndex, metaIn);
+      }
+    } else {
+      reversedIndex = null;
+    }
     /*
      if (false) {
      final String dotFileName = segment + "_" + fieldInfo.name + ".dot";
@@ -196,22 +223,44 @@ public final class FieldReader extends Terms implements Accountable {
     if (compiled.type != CompiledAutomaton.AUTOMATON_TYPE.NORMAL) {
       throw new IllegalArgumentException("please use CompiledAutomaton.getTermsEnum instead");
     }
+    if (reversedIndex != null
+        && compiled.commonSuffixRef != null
+        && Operations.getCommonPrefixBytesRef(compiled.automaton).length == 0) {
+      // The automaton doesn't restrict the leading bytes, so IntersectTermsEnum would likely
+      // scan all blocks. Enumerate terms by their suffix instead, unless the suffix is too common
+      // for this to be cheaper than a scan.
+      TermsEnum termsEnum =
+          ReversedIntersectTermsEnum.create(
+              this,
+              compiled.runAutomaton,
+              compiled.commonSuffixRef,
+              startTerm,
+              numTerms / MAX_REVERSED_CANDIDATES_RATIO);
+      if (termsEnum != null) {
+        return termsEnum;
+      }
+    }
     return new IntersectTermsEnum(
         this, compiled.automaton, compiled.runAutomaton, compiled.commonSuffixRef, startTerm);
   }
 
   @Override
   public long ramBytesUsed() {
-    return BASE_RAM_BYTES_USED + ((index != null) ? index.ramBytesUsed() : 0);
+    return BASE_RAM_BYTES_USED
+        + ((index != null) ? index.ramBytesUsed() : 0)
+        + ((reversedIndex != null) ? reversedIndex.ramBytesUsed() : 0);
   }
 
   @Override
   public Collection<Accountable> getChildResources() {
-    if (index == null) {
-      return Collections.emptyList();
-    } else {
-      return Collections.singleton(Accountables.namedAccountable("term index", index));
+    List<Accountable> resources = new ArrayList<>(2);
+    if (index != null) {
+      resources.add(Accountables.namedAccountable("term index", index));
+    }
+    if (reversedIndex != null) {
+      resources.add(Accountables.namedAccountable("reversed term index", reversedIndex));
     }
+    return Collections.unmodifiableList(resources);
   }
 
   @Override
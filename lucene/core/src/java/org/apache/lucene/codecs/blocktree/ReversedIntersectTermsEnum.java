@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.blocktree;
+
+import java.io.IOException;
+import java.util.Comparator;
+import org.apache.lucene.index.BaseTermsEnum;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.TermState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefArray;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.fst.BytesRefFSTEnum;
+
+/**
+ * Implements {@link Terms#intersect} for automata that have a common suffix using the reversed
+ * terms index of a field: all terms that end with the common suffix are enumerated from the
+ * reversed terms index, filtered with the automaton, sorted, and then looked up in the terms
+ * dictionary one by one. This only visits the blocks that hold matching terms, while {@link
+ * IntersectTermsEnum} needs to scan every block when the automaton does not restrict the leading
+ * bytes of terms, e.g. for leading wildcards. Like {@link IntersectTermsEnum}, it cannot seek.
+ */
+final class ReversedIntersectTermsEnum extends BaseTermsEnum {
+
+  private final SegmentTermsEnum termsEnum;
+  private final BytesRefIterator candidates;
+  private BytesRef term;
+
+  private ReversedIntersectTermsEnum(FieldReader fr, BytesRefIterator candidates)
+      throws IOException {
+    this.termsEnum = new SegmentTermsEnum(fr);
+    this.candidates = candidates;
+  }
+
+  /**
+   * Collects the terms of the field that are accepted by the automaton and end with the given
+   * common suffix, or returns null if more than <code>maxCandidates</code> terms end with the
+   * common suffix, in which case the caller should rather use {@link IntersectTermsEnum}.
+   */
+  static ReversedIntersectTermsEnum create(
+      FieldReader fr,
+      ByteRunAutomaton runAutomaton,
+      BytesRef commonSuffix,
+      BytesRef startTerm,
+      long maxCandidates)
+      throws IOException {
+    assert fr.reversedIndex != null;
+    assert commonSuffix.length > 0;
+
+    final BytesRef reversedSuffix = reverse(commonSuffix, new BytesRefBuilder());
+    final BytesRefFSTEnum<Object> fstEnum = new BytesRefFSTEnum<>(fr.reversedIndex);
+    final BytesRefArray matches = new BytesRefArray(Counter.newCounter());
+    final BytesRefBuilder scratch = new BytesRefBuilder();
+    long numCandidates = 0;
+    for (BytesRefFSTEnum.InputOutput<Object> io = fstEnum.seekCeil(reversedSuffix);
+        io != null && StringHelper.startsWith(io.input, reversedSuffix);
+        io = fstEnum.next()) {
+      if (++numCandidates > maxCandidates) {
+        return null;
+      }
+      final BytesRef candidate = reverse(io.input, scratch);
+      if (runAutomaton.run(candidate.bytes, candidate.offset, candidate.length)
+          && (startTerm == null || candidate.compareTo(startTerm) > 0)) {
+        matches.append(candidate);
+      }
+    }
+    return new ReversedIntersectTermsEnum(fr, matches.iterator(Comparator.naturalOrder()));
+  }
+
+  private static BytesRef reverse(BytesRef bytes, BytesRefBuilder builder) {
+    builder.grow(bytes.length);
+    builder.setLength(bytes.length);
+    for (int i = 0; i < bytes.length; ++i) {
+      builder.setByteAt(i, bytes.bytes[bytes.offset + bytes.length - 1 - i]);
+    }
+    return builder.get();
+  }
+
+  @Override
+  public BytesRef next() throws IOException {
+    term = candidates.next();
+    if (term != null) {
+      final boolean found = termsEnum.seekExact(term);
+      assert found : "term " + term + " is in the reversed terms index but not in the terms dict";
+    }
+    return term;
+  }
+
+  @Override
+  public BytesRef term() {
+    return term;
+  }
+
+  @Override
+  public TermState termState() throws IOException {
+    return termsEnum.termState();
+  }
+
+  @Override
+  public int docFreq() throws IOException {
+    return termsEnum.docFreq();
+  }
+
+  @Override
+  public long totalTermFreq() throws IOException {
+    return termsEnum.totalTermFreq();
+  }
+
+  @Override
+  public PostingsEnum postings(PostingsEnum reuse, int flags) throws IOException {
+    return termsEnum.postings(reuse, flags);
+  }
+
+  @Override
+  public ImpactsEnum impacts(int flags) throws IOException {
+    return termsEnum.impacts(flags);
+  }
+
+  @Override
+  public boolean seekExact(BytesRef text) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void seekExact(long ord) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public long ord() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public SeekStatus seekCeil(BytesRef text) {
+    throw new UnsupportedOperationException();
+  }
+}
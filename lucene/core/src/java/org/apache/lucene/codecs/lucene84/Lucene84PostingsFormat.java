@@ -370,6 +370,7 @@ public final class Lucene84PostingsFormat extends PostingsFormat {
 
   private final int minTermBlockSize;
   private final int maxTermBlockSize;
+  private final boolean indexReversedTerms;
 
   /** Creates {@code Lucene84PostingsFormat} with default settings. */
   public Lucene84PostingsFormat() {
@@ -383,10 +384,25 @@ public final class Lucene84PostingsFormat extends PostingsFormat {
    * @see BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int)
    */
   public Lucene84PostingsFormat(int minTermBlockSize, int maxTermBlockSize) {
+    this(minTermBlockSize, maxTermBlockSize, false);
+  }
+
+  /**
+   * Creates {@code Lucene84PostingsFormat} with custom values for {@code minBlockSize} and {@code
+   * maxBlockSize} passed to block terms dictionary, and optionally indexes the reversed terms of
+   * every field. Use a {@link org.apache.lucene.codecs.perfield.PerFieldPostingsFormat} to only
+   * index reversed terms of the fields that are queried with leading wildcards.
+   *
+   * @see
+   *     BlockTreeTermsWriter#BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int,boolean)
+   */
+  public Lucene84PostingsFormat(
+      int minTermBlockSize, int maxTermBlockSize, boolean indexReversedTerms) {
     super("Lucene84");
     BlockTreeTermsWriter.validateSettings(minTermBlockSize, maxTermBlockSize);
     this.minTermBlockSize = minTermBlockSize;
     this.maxTermBlockSize = maxTermBlockSize;
+    this.indexReversedTerms = indexReversedTerms;
   }
 
   @Override
@@ -400,7 +416,8 @@ public final class Lucene84PostingsFormat extends PostingsFormat {
     boolean success = false;
     try {
       FieldsConsumer ret =
-          new BlockTreeTermsWriter(state, postingsWriter, minTermBlockSize, maxTermBlockSize);
+          new BlockTreeTermsWriter(
+              state, postingsWriter, minTermBlockSize, maxTermBlockSize, indexReversedTerms);
       success = true;
       return ret;
     } finally {
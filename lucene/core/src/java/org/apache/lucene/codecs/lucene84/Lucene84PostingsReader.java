@@ -45,6 +45,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BitUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
 
@@ -573,6 +574,69 @@ public final class Lucene84PostingsReader extends PostingsReaderBase {
       return this.doc = (int) doc;
     }
 
+    @Override
+    public void intoBitSet(int upTo, FixedBitSet bitSet, int offset) throws IOException {
+      if (doc >= upTo) {
+        return;
+      }
+      bitSet.set(doc - offset);
+      while (true) {
+        if (docBufferUpto == BLOCK_SIZE) {
+          refillDocs();
+        }
+        // docBuffer always ends with NO_MORE_DOCS, so this loop terminates
+        int end = docBufferUpto;
+        while (docBuffer[end] < upTo) {
+          ++end;
+        }
+        final int numDocs = end - docBufferUpto;
+        if (numDocs > 0) {
+          final int first = (int) docBuffer[docBufferUpto];
+          final int last = (int) docBuffer[end - 1];
+          if (last - first == numDocs - 1) {
+            // dense run of doc IDs, set them at once
+            bitSet.set(first - offset, last - offset + 1);
+          } else {
+            for (int i = docBufferUpto; i < end; ++i) {
+              bitSet.set((int) docBuffer[i] - offset);
+            }
+          }
+        }
+        docBufferUpto = end;
+        if (end < BLOCK_SIZE) {
+          // either a doc ID >= upTo or the end of the postings
+          doc = (int) docBuffer[end];
+          docBufferUpto++;
+          return;
+        }
+      }
+    }
+
+    @Override
+    public int nextPostings(int upTo, int[] docs, int[] freqs) throws IOException {
+      int size = 0;
+      while (doc < upTo && size < docs.length) {
+        if (isFreqsRead == false) {
+          pforUtil.decode(docIn, freqBuffer); // read freqBuffer for this block
+          isFreqsRead = true;
+        }
+        // the current doc is at docBufferUpto - 1, and docBuffer always ends with NO_MORE_DOCS
+        final int start = docBufferUpto - 1;
+        final int limit = Math.min(BLOCK_SIZE, start + docs.length - size);
+        int end = start + 1;
+        while (end < limit && docBuffer[end] < upTo) {
+          ++end;
+        }
+        for (int i = start; i < end; ++i, ++size) {
+          docs[size] = (int) docBuffer[i];
+          freqs[size] = (int) freqBuffer[i];
+        }
+        docBufferUpto = end;
+        nextDoc();
+      }
+      return size;
+    }
+
     @Override
     public long cost() {
       return docFreq;
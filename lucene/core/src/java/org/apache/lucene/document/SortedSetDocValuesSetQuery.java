@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.document;
+
+import java.io.IOException;
+import java.util.Objects;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.PrefixCodedTerms.TermIterator;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongBitSet;
+
+abstract class SortedSetDocValuesSetQuery extends Query {
+
+  private final String field;
+  private final PrefixCodedTerms termData;
+  private final int termDataHashCode; // cached hashcode of termData
+
+  SortedSetDocValuesSetQuery(String field, BytesRef... values) {
+    this.field = Objects.requireNonNull(field);
+    BytesRef[] sortedValues = values.clone();
+    ArrayUtil.timSort(sortedValues);
+    PrefixCodedTerms.Builder builder = new PrefixCodedTerms.Builder();
+    BytesRef previous = null;
+    for (BytesRef value : sortedValues) {
+      if (value.equals(previous)) {
+        continue; // deduplicate
+      }
+      builder.add(field, value);
+      previous = value;
+    }
+    termData = builder.finish();
+    termDataHashCode = termData.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (sameClassAs(obj) == false) {
+      return false;
+    }
+    SortedSetDocValuesSetQuery that = (SortedSetDocValuesSetQuery) obj;
+    // no need to check 'field' explicitly since it is encoded in 'termData'
+    return termDataHashCode == that.termDataHashCode && termData.equals(that.termData);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * classHash() + termDataHashCode;
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    if (visitor.acceptField(field)) {
+      visitor.visitLeaf(this);
+    }
+  }
+
+  @Override
+  public String toString(String defaultField) {
+    StringBuilder b = new StringBuilder();
+    if (this.field.equals(defaultField) == false) {
+      b.append(this.field).append(":");
+    }
+    b.append("{");
+    TermIterator iterator = termData.iterator();
+    boolean first = true;
+    for (BytesRef term = iterator.next(); term != null; term = iterator.next()) {
+      if (first == false) {
+        b.append(' ');
+      }
+      first = false;
+      b.append(term);
+    }
+    return b.append("}").toString();
+  }
+
+  abstract SortedSetDocValues getValues(LeafReader reader, String field) throws IOException;
+
+  @Override
+  public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
+      throws IOException {
+    return new ConstantScoreWeight(this, boost) {
+      @Override
+      public Scorer scorer(LeafReaderContext context) throws IOException {
+        final SortedSetDocValues values = getValues(context.reader(), field);
+        if (values == null) {
+          return null;
+        }
+
+        final LongBitSet matchingOrds = new LongBitSet(values.getValueCount());
+        boolean anyMatch = false;
+        final TermsEnum termsEnum = values.termsEnum();
+        final TermIterator terms = termData.iterator();
+        for (BytesRef term = terms.next(); term != null; term = terms.next()) {
+          if (termsEnum.seekExact(term)) {
+            matchingOrds.set(termsEnum.ord());
+            anyMatch = true;
+          }
+        }
+        if (anyMatch == false) {
+          return null;
+        }
+
+        final SortedDocValues singleton = DocValues.unwrapSingleton(values);
+        final TwoPhaseIterator iterator;
+        if (singleton != null) {
+          iterator =
+              new TwoPhaseIterator(singleton) {
+                @Override
+                public boolean matches() throws IOException {
+                  return matchingOrds.get(singleton.ordValue());
+                }
+
+                @Override
+                public float matchCost() {
+                  return 3; // lookup in a bitset
+                }
+              };
+        } else {
+          iterator =
+              new TwoPhaseIterator(values) {
+                @Override
+                public boolean matches() throws IOException {
+                  for (long ord = values.nextOrd();
+                      ord != SortedSetDocValues.NO_MORE_ORDS;
+                      ord = values.nextOrd()) {
+                    if (matchingOrds.get(ord)) {
+                      return true;
+                    }
+                  }
+                  return false;
+                }
+
+                @Override
+                public float matchCost() {
+                  return 3; // lookup in a bitset
+                }
+              };
+        }
+        return new ConstantScoreScorer(this, score(), scoreMode, iterator);
+      }
+
+      @Override
+      public boolean isCacheable(LeafReaderContext ctx) {
+        return DocValues.isCacheable(ctx, field);
+      }
+    };
+  }
+}
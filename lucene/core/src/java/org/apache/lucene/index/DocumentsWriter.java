@@ -103,6 +103,8 @@ final class DocumentsWriter implements Closeable, Accountable {
 
   final DocumentsWriterPerThreadPool perThreadPool;
   final DocumentsWriterFlushControl flushControl;
+  // null if recycling of indexing buffer blocks is disabled
+  private final IndexingBufferRecycler bufferRecycler;
 
   DocumentsWriter(
       FlushNotifications flushNotifications,
@@ -117,6 +119,9 @@ final class DocumentsWriter implements Closeable, Accountable {
     this.config = config;
     this.infoStream = config.getInfoStream();
     this.deleteQueue = new DocumentsWriterDeleteQueue(infoStream);
+    final double maxRecycledMB = config.getMaxRecycledIndexingBufferMB();
+    this.bufferRecycler =
+        maxRecycledMB > 0 ? new IndexingBufferRecycler((long) (maxRecycledMB * 1024 * 1024)) : null;
     this.perThreadPool =
         new DocumentsWriterPerThreadPool(
             () -> {
@@ -130,6 +135,7 @@ final class DocumentsWriter implements Closeable, Accountable {
                   deleteQueue,
                   infos,
                   pendingNumDocs,
+                  bufferRecycler,
                   enableTestPoints);
             });
     this.pendingNumDocs = pendingNumDocs;
@@ -725,7 +731,8 @@ final class DocumentsWriter implements Closeable, Accountable {
 
   @Override
   public long ramBytesUsed() {
-    return flushControl.ramBytesUsed();
+    return flushControl.ramBytesUsed()
+        + (bufferRecycler == null ? 0 : bufferRecycler.ramBytesUsed());
   }
 
   /**
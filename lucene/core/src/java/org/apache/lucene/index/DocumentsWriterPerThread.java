@@ -143,6 +143,7 @@ final class DocumentsWriterPerThread implements Accountable {
       DocumentsWriterDeleteQueue deleteQueue,
       FieldInfos.Builder fieldInfos,
       AtomicLong pendingNumDocs,
+      IndexingBufferRecycler bufferRecycler,
       boolean enableTestPoints) {
     this.directory = new TrackingDirectoryWrapper(directory);
     this.fieldInfos = fieldInfos;
@@ -186,6 +187,7 @@ final class DocumentsWriterPerThread implements Accountable {
             this.directory,
             fieldInfos,
             indexWriterConfig,
+            bufferRecycler,
             this::onAbortingException);
   }
 
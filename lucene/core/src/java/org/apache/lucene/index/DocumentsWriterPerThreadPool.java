@@ -17,10 +17,8 @@
 package org.apache.lucene.index;
 
 import java.io.Closeable;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -46,13 +44,21 @@ final class DocumentsWriterPerThreadPool implements Iterable<DocumentsWriterPerT
 
   private final Set<DocumentsWriterPerThread> dwpts =
       Collections.newSetFromMap(new IdentityHashMap<>());
-  private final Deque<DocumentsWriterPerThread> freeList = new ArrayDeque<>();
+  // free DWPTs are tracked outside of the pool's monitor so that checking out and returning DWPTs
+  // for indexing doesn't serialize concurrent indexing threads
+  private final StripedFreeList<DocumentsWriterPerThread> freeList;
   private final Supplier<DocumentsWriterPerThread> dwptFactory;
   private int takenWriterPermits = 0;
-  private boolean closed;
+  private volatile boolean closed;
 
   DocumentsWriterPerThreadPool(Supplier<DocumentsWriterPerThread> dwptFactory) {
+    this(dwptFactory, Math.min(64, Runtime.getRuntime().availableProcessors()));
+  }
+
+  DocumentsWriterPerThreadPool(
+      Supplier<DocumentsWriterPerThread> dwptFactory, int freeListConcurrency) {
     this.dwptFactory = dwptFactory;
+    this.freeList = new StripedFreeList<>(freeListConcurrency);
   }
 
   /** Returns the active number of {@link DocumentsWriterPerThread} instances. */
@@ -114,24 +120,17 @@ final class DocumentsWriterPerThreadPool implements Iterable<DocumentsWriterPerT
    * operation (add/updateDocument).
    */
   DocumentsWriterPerThread getAndLock() {
-    synchronized (this) {
-      ensureOpen();
-      // Important that we are LIFO here! This way if number of concurrent indexing threads was once
-      // high,
-      // but has now reduced, we only use a limited number of DWPTs. This also guarantees that if we
-      // have suddenly
-      // a single thread indexing
-      final Iterator<DocumentsWriterPerThread> descendingIterator = freeList.descendingIterator();
-      while (descendingIterator.hasNext()) {
-        DocumentsWriterPerThread perThread = descendingIterator.next();
-        if (perThread.tryLock()) {
-          descendingIterator.remove();
-          return perThread;
-        }
-      }
-      // DWPT is already locked before return by this method:
-      return newWriter();
+    ensureOpen();
+    // Important that we are LIFO here! This way if number of concurrent indexing threads was once
+    // high, but has now reduced, we only use a limited number of DWPTs. The free list is only LIFO
+    // per stripe, but since threads prefer their own stripe, a single thread indexing keeps on
+    // reusing the same DWPT.
+    DocumentsWriterPerThread perThread = freeList.poll(DocumentsWriterPerThread::tryLock);
+    if (perThread != null) {
+      return perThread;
     }
+    // DWPT is already locked before return by this method:
+    return newWriter();
   }
 
   private void ensureOpen() {
@@ -141,11 +140,10 @@ final class DocumentsWriterPerThreadPool implements Iterable<DocumentsWriterPerT
   }
 
   void marksAsFreeAndUnlock(DocumentsWriterPerThread state) {
-    synchronized (this) {
-      assert dwpts.contains(state)
-          : "we tried to add a DWPT back to the pool but the pool doesn't know aobut this DWPT";
-      freeList.add(state);
-    }
+    assert isRegistered(state)
+        : "we tried to add a DWPT back to the pool but the pool doesn't know aobut this DWPT";
+    // the DWPT is still locked, so it can't be checked out concurrently
+    freeList.add(state);
     state.unlock();
   }
 
@@ -91,6 +91,12 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
   /** Default value is 1945. Change using {@link #setRAMPerThreadHardLimitMB(int)} */
   public static final int DEFAULT_RAM_PER_THREAD_HARD_LIMIT_MB = 1945;
 
+  /**
+   * Default value is 0, which disables recycling of indexing buffer blocks. Change using {@link
+   * #setMaxRecycledIndexingBufferMB(double)}
+   */
+  public static final double DEFAULT_MAX_RECYCLED_INDEXING_BUFFER_MB = 0;
+
   /**
    * Default value for compound file system for newly written segments (set to <code>true</code>).
    * For batch indexing with very large ram buffers use <code>false</code>
@@ -362,6 +368,26 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return perThreadHardLimitMB;
   }
 
+  /**
+   * Expert: Sets the maximum amount of memory that {@link IndexWriter} keeps for reusing the byte
+   * and int blocks of the indexing buffer once a segment has been flushed. By default, these blocks
+   * are left to the garbage collector after every flush. With large RAM buffers they have usually
+   * been promoted to the old generation by then, so recycling them into the buffers of new
+   * segments can significantly reduce old generation garbage and GC pauses. Recycled blocks are
+   * accounted in {@link IndexWriter#ramBytesUsed()} but not against {@link #getRAMBufferSizeMB()}.
+   * A value of 0 disables recycling.
+   *
+   * @see #DEFAULT_MAX_RECYCLED_INDEXING_BUFFER_MB
+   */
+  public IndexWriterConfig setMaxRecycledIndexingBufferMB(double maxRecycledIndexingBufferMB) {
+    if (maxRecycledIndexingBufferMB < 0 || Double.isNaN(maxRecycledIndexingBufferMB)) {
+      throw new IllegalArgumentException(
+          "maxRecycledIndexingBufferMB must be >= 0, got " + maxRecycledIndexingBufferMB);
+    }
+    this.maxRecycledIndexingBufferMB = maxRecycledIndexingBufferMB;
+    return this;
+  }
+
   @Override
   FlushPolicy getFlushPolicy() {
     return flushPolicy;
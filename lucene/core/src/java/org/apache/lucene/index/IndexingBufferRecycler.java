@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+
+/**
+ * Holds on to byte and int blocks that {@link DocumentsWriterPerThread}s released after flushing or
+ * aborting, so that they can be reused by other {@link DocumentsWriterPerThread}s instead of being
+ * allocated again. With large RAM buffers, blocks of the indexing buffer typically live long enough
+ * to be promoted to the old generation before the segment is flushed; recycling them keeps the old
+ * generation from filling up with dead blocks after every flush.
+ *
+ * <p>Recycled blocks are zero-filled since slices written into the pools rely on unused bytes being
+ * 0. The number of bytes held on to is bounded by {@link
+ * LiveIndexWriterConfig#getMaxRecycledIndexingBufferMB()}. Blocks handed out by the allocators are
+ * accounted against the {@link Counter} of the owning {@link DocumentsWriterPerThread} exactly
+ * like freshly allocated blocks. Free blocks are kept in {@link StripedFreeList}s, so that threads
+ * that recycle and reuse blocks concurrently rarely contend with each other.
+ */
+final class IndexingBufferRecycler implements Accountable {
+
+  private static final long BYTE_BLOCK_BYTES = ByteBlockPool.BYTE_BLOCK_SIZE;
+  private static final long INT_BLOCK_BYTES = (long) IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+
+  private static final Predicate<byte[]> ANY_BYTE_BLOCK = block -> true;
+  private static final Predicate<int[]> ANY_INT_BLOCK = block -> true;
+
+  private final long maxRecycledBytes;
+  private final StripedFreeList<byte[]> freeByteBlocks;
+  private final StripedFreeList<int[]> freeIntBlocks;
+  private final AtomicLong recycledBytes = new AtomicLong();
+
+  IndexingBufferRecycler(long maxRecycledBytes) {
+    this(maxRecycledBytes, Math.min(64, Runtime.getRuntime().availableProcessors()));
+  }
+
+  IndexingBufferRecycler(long maxRecycledBytes, int concurrency) {
+    if (maxRecycledBytes < 0) {
+      throw new IllegalArgumentException(
+          "maxRecycledBytes must be >= 0, got " + maxRecycledBytes);
+    }
+    this.maxRecycledBytes = maxRecycledBytes;
+    this.freeByteBlocks = new StripedFreeList<>(concurrency);
+    this.freeIntBlocks = new StripedFreeList<>(concurrency);
+  }
+
+  /** Returns a new allocator for byte blocks that tracks allocated bytes in the given counter. */
+  ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+    return new ByteBlockPool.Allocator(ByteBlockPool.BYTE_BLOCK_SIZE) {
+      @Override
+      public byte[] getByteBlock() {
+        byte[] block = pollByteBlock();
+        if (block == null) {
+          block = new byte[ByteBlockPool.BYTE_BLOCK_SIZE];
+        }
+        bytesUsed.addAndGet(BYTE_BLOCK_BYTES);
+        return block;
+      }
+
+      @Override
+      public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+        bytesUsed.addAndGet(-((end - start) * BYTE_BLOCK_BYTES));
+        for (int i = start; i < end; ++i) {
+          final byte[] block = blocks[i];
+          blocks[i] = null;
+          if (block != null && block.length == ByteBlockPool.BYTE_BLOCK_SIZE) {
+            offerByteBlock(block);
+          }
+        }
+      }
+    };
+  }
+
+  /** Returns a new allocator for int blocks that tracks allocated bytes in the given counter. */
+  IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+    return new IntBlockPool.Allocator(IntBlockPool.INT_BLOCK_SIZE) {
+      @Override
+      public int[] getIntBlock() {
+        int[] block = pollIntBlock();
+        if (block == null) {
+          block = new int[IntBlockPool.INT_BLOCK_SIZE];
+        }
+        bytesUsed.addAndGet(INT_BLOCK_BYTES);
+        return block;
+      }
+
+      @Override
+      public void recycleIntBlocks(int[][] blocks, int start, int end) {
+        bytesUsed.addAndGet(-((end - start) * INT_BLOCK_BYTES));
+        for (int i = start; i < end; ++i) {
+          final int[] block = blocks[i];
+          blocks[i] = null;
+          if (block != null && block.length == IntBlockPool.INT_BLOCK_SIZE) {
+            offerIntBlock(block);
+          }
+        }
+      }
+    };
+  }
+
+  private byte[] pollByteBlock() {
+    final byte[] block = freeByteBlocks.poll(ANY_BYTE_BLOCK);
+    if (block != null) {
+      recycledBytes.addAndGet(-BYTE_BLOCK_BYTES);
+    }
+    return block;
+  }
+
+  private int[] pollIntBlock() {
+    final int[] block = freeIntBlocks.poll(ANY_INT_BLOCK);
+    if (block != null) {
+      recycledBytes.addAndGet(-INT_BLOCK_BYTES);
+    }
+    return block;
+  }
+
+  private void offerByteBlock(byte[] block) {
+    if (reserve(BYTE_BLOCK_BYTES)) {
+      // the block is not visible to other threads until it is added to the free list
+      Arrays.fill(block, (byte) 0);
+      freeByteBlocks.add(block);
+    }
+  }
+
+  private void offerIntBlock(int[] block) {
+    if (reserve(INT_BLOCK_BYTES)) {
+      Arrays.fill(block, 0);
+      freeIntBlocks.add(block);
+    }
+  }
+
+  private boolean reserve(long bytes) {
+    long current;
+    do {
+      current = recycledBytes.get();
+      if (current + bytes > maxRecycledBytes) {
+        return false;
+      }
+    } while (recycledBytes.compareAndSet(current, current + bytes) == false);
+    return true;
+  }
+
+  /** Returns the number of bytes held by recycled blocks. */
+  @Override
+  public long ramBytesUsed() {
+    return recycledBytes.get();
+  }
+}
@@ -81,6 +81,8 @@ final class IndexingChain implements Accountable {
   private PerField[] fields = new PerField[1];
   private final InfoStream infoStream;
   private final ByteBlockPool.Allocator byteBlockAllocator;
+  // whether the blocks of the term pools go back to an IndexingBufferRecycler after flushing
+  private final boolean recycleTermsHashBlocks;
   private final LiveIndexWriterConfig indexWriterConfig;
   private final int indexCreatedVersionMajor;
   private final Consumer<Throwable> abortingExceptionConsumer;
@@ -92,10 +94,23 @@ final class IndexingChain implements Accountable {
       Directory directory,
       FieldInfos.Builder fieldInfos,
       LiveIndexWriterConfig indexWriterConfig,
+      IndexingBufferRecycler bufferRecycler,
       Consumer<Throwable> abortingExceptionConsumer) {
     this.indexCreatedVersionMajor = indexCreatedVersionMajor;
-    byteBlockAllocator = new ByteBlockPool.DirectTrackingAllocator(bytesUsed);
-    IntBlockPool.Allocator intBlockAllocator = new IntBlockAllocator(bytesUsed);
+    // term vectors reset their pools after every document, so only the blocks of the term pools,
+    // which live until the segment is flushed, are worth recycling
+    final ByteBlockPool.Allocator termVectorsByteBlockAllocator =
+        new ByteBlockPool.DirectTrackingAllocator(bytesUsed);
+    final IntBlockPool.Allocator termVectorsIntBlockAllocator = new IntBlockAllocator(bytesUsed);
+    final IntBlockPool.Allocator intBlockAllocator;
+    if (bufferRecycler == null) {
+      byteBlockAllocator = termVectorsByteBlockAllocator;
+      intBlockAllocator = termVectorsIntBlockAllocator;
+    } else {
+      byteBlockAllocator = bufferRecycler.newByteBlockAllocator(bytesUsed);
+      intBlockAllocator = bufferRecycler.newIntBlockAllocator(bytesUsed);
+    }
+    this.recycleTermsHashBlocks = bufferRecycler != null;
     this.indexWriterConfig = indexWriterConfig;
     assert segmentInfo.getIndexSort() == indexWriterConfig.getIndexSort();
     this.fieldInfos = fieldInfos;
@@ -107,8 +122,8 @@ final class IndexingChain implements Accountable {
           new StoredFieldsConsumer(indexWriterConfig.getCodec(), directory, segmentInfo);
       termVectorsWriter =
           new TermVectorsConsumer(
-              intBlockAllocator,
-              byteBlockAllocator,
+              termVectorsIntBlockAllocator,
+              termVectorsByteBlockAllocator,
               directory,
               segmentInfo,
               indexWriterConfig.getCodec());
@@ -117,8 +132,8 @@ final class IndexingChain implements Accountable {
           new SortingStoredFieldsConsumer(indexWriterConfig.getCodec(), directory, segmentInfo);
       termVectorsWriter =
           new SortingTermVectorsConsumer(
-              intBlockAllocator,
-              byteBlockAllocator,
+              termVectorsIntBlockAllocator,
+              termVectorsByteBlockAllocator,
               directory,
               segmentInfo,
               indexWriterConfig.getCodec());
@@ -295,6 +310,10 @@ final class IndexingChain implements Accountable {
       }
       termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
     }
+    if (recycleTermsHashBlocks) {
+      // postings are written, release the blocks of the term pools so that they can be recycled
+      termsHash.reset();
+    }
     if (infoStream.isEnabled("IW")) {
       infoStream.message(
           "IW",
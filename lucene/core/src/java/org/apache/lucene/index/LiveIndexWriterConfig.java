@@ -106,6 +106,10 @@ public class LiveIndexWriterConfig {
   /** Amount of time to wait for merges returned by MergePolicy.findFullFlushMerges(...) */
   protected volatile long maxFullFlushMergeWaitMillis;
 
+  /** Max amount of memory held by indexing buffer blocks that are kept for reuse after flushes */
+  protected double maxRecycledIndexingBufferMB =
+      IndexWriterConfig.DEFAULT_MAX_RECYCLED_INDEXING_BUFFER_MB;
+
   // used by IndexWriterConfig
   LiveIndexWriterConfig(Analyzer analyzer) {
     this.analyzer = analyzer;
@@ -335,6 +339,16 @@ public class LiveIndexWriterConfig {
     return perThreadHardLimitMB;
   }
 
+  /**
+   * Returns the max amount of memory that may be held by indexing buffer blocks which are kept for
+   * reuse after segments have been flushed.
+   *
+   * @see IndexWriterConfig#setMaxRecycledIndexingBufferMB(double)
+   */
+  public double getMaxRecycledIndexingBufferMB() {
+    return maxRecycledIndexingBufferMB;
+  }
+
   /** @see IndexWriterConfig#setFlushPolicy(FlushPolicy) */
   FlushPolicy getFlushPolicy() {
     return flushPolicy;
@@ -458,6 +472,9 @@ public class LiveIndexWriterConfig {
     sb.append("checkPendingFlushOnUpdate=").append(isCheckPendingFlushOnUpdate()).append("\n");
     sb.append("softDeletesField=").append(getSoftDeletesField()).append("\n");
     sb.append("maxFullFlushMergeWaitMillis=").append(getMaxFullFlushMergeWaitMillis()).append("\n");
+    sb.append("maxRecycledIndexingBufferMB=")
+        .append(getMaxRecycledIndexingBufferMB())
+        .append("\n");
     return sb.toString();
   }
 }
@@ -97,4 +97,29 @@ public abstract class PostingsEnum extends DocIdSetIterator {
    * anything (neither members of the returned BytesRef nor bytes in the byte[]).
    */
   public abstract BytesRef getPayload() throws IOException;
+
+  /**
+   * Loads the current document and the following documents that are less than {@code upTo} into
+   * {@code docs}, and their term frequencies into {@code freqs}, until {@code docs} is full.
+   * Returns the number of loaded documents. After this method returns, this iterator is positioned
+   * on the first document that was not loaded, which is either a document that is greater than or
+   * equal to {@code upTo} or the document that follows the last loaded document. {@code freqs} must
+   * be at least as large as {@code docs}.
+   *
+   * <p>This method must not be called before {@link #nextDoc} is first called. The default
+   * implementation iterates over documents with {@link #nextDoc}. Implementations that decode
+   * postings by blocks may override it to copy entire blocks at once.
+   *
+   * @lucene.experimental
+   */
+  public int nextPostings(int upTo, int[] docs, int[] freqs) throws IOException {
+    assert docID() != -1;
+    int size = 0;
+    for (int doc = docID(); doc < upTo && size < docs.length; doc = nextDoc()) {
+      docs[size] = doc;
+      freqs[size] = freq();
+      ++size;
+    }
+    return size;
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A concurrent LIFO free list that is split into several stripes, each guarded by its own lock.
+ * Threads prefer the stripe that is derived from their thread id, so that threads that return and
+ * take entries concurrently rarely contend on the same lock, and a thread that returns an entry is
+ * likely to get the same entry back on its next call to {@link #poll(Predicate)}. The order of
+ * entries is only LIFO within a stripe.
+ */
+final class StripedFreeList<T> {
+
+  private final Deque<T>[] stripes;
+  private final Lock[] locks;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  StripedFreeList(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1, got " + concurrency);
+    }
+    stripes = new Deque[concurrency];
+    locks = new Lock[concurrency];
+    for (int i = 0; i < concurrency; ++i) {
+      stripes[i] = new ArrayDeque<>();
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  private int preferredStripe() {
+    return (int) (Thread.currentThread().getId() % stripes.length);
+  }
+
+  /** Adds the given entry to the free list. */
+  void add(T entry) {
+    final int start = preferredStripe();
+    // Try to add to a stripe whose lock is not contended, starting with our preferred stripe
+    for (int i = 0; i < stripes.length; ++i) {
+      final int index = (start + i) % stripes.length;
+      final Lock lock = locks[index];
+      if (lock.tryLock()) {
+        try {
+          stripes[index].addLast(entry);
+          return;
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+    // All stripes are contended, block on our preferred stripe
+    final Lock lock = locks[start];
+    lock.lock();
+    try {
+      stripes[start].addLast(entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes and returns the most recently added entry of the first stripe that has an entry the
+   * given predicate accepts, starting with this thread's preferred stripe. Returns {@code null} if
+   * no entry is accepted. The predicate is called while the lock of the stripe is held.
+   */
+  T poll(Predicate<T> predicate) {
+    final int start = preferredStripe();
+    // First pass: skip stripes that are locked by other threads
+    for (int i = 0; i < stripes.length; ++i) {
+      final int index = (start + i) % stripes.length;
+      final Lock lock = locks[index];
+      if (lock.tryLock()) {
+        try {
+          T entry = poll(stripes[index], predicate);
+          if (entry != null) {
+            return entry;
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+    // Second pass: make sure that we don't miss entries from stripes that were locked before
+    for (int i = 0; i < stripes.length; ++i) {
+      final int index = (start + i) % stripes.length;
+      final Lock lock = locks[index];
+      lock.lock();
+      try {
+        T entry = poll(stripes[index], predicate);
+        if (entry != null) {
+          return entry;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return null;
+  }
+
+  private static <T> T poll(Deque<T> stripe, Predicate<T> predicate) {
+    final Iterator<T> descendingIterator = stripe.descendingIterator();
+    while (descendingIterator.hasNext()) {
+      T entry = descendingIterator.next();
+      if (predicate.test(entry)) {
+        descendingIterator.remove();
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the given entry from the free list.
+   *
+   * @return <code>true</code> iff the entry was part of the free list
+   */
+  boolean remove(T entry) {
+    for (int i = 0; i < stripes.length; ++i) {
+      final Lock lock = locks[i];
+      lock.lock();
+      try {
+        if (stripes[i].remove(entry)) {
+          return true;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return false;
+  }
+
+  /** Returns <code>true</code> if the given entry is part of the free list. */
+  boolean contains(T entry) {
+    for (int i = 0; i < stripes.length; ++i) {
+      final Lock lock = locks[i];
+      lock.lock();
+      try {
+        if (stripes[i].contains(entry)) {
+          return true;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return false;
+  }
+}
@@ -17,6 +17,7 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
@@ -24,6 +25,7 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 
@@ -107,6 +109,52 @@ public class AutomatonQuery extends MultiTermQuery implements Accountable {
         BASE_RAM_BYTES + term.ramBytesUsed() + automaton.ramBytesUsed() + compiled.ramBytesUsed();
   }
 
+  /**
+   * Create a new AutomatonQuery whose automaton is built by the given supplier. The automaton and
+   * its compiled form are looked up in the default {@link AutomatonCache} first, so that queries
+   * built from the same pattern don't need to determinize it again.
+   *
+   * @param cacheKey key that identifies the automaton, it must capture everything that the
+   *     automaton and its compilation depend on, including <code>maxDeterminizedStates</code>. If
+   *     null, the automaton is not cached.
+   */
+  AutomatonQuery(
+      final Term term,
+      Object cacheKey,
+      Supplier<Automaton> automaton,
+      int maxDeterminizedStates) {
+    super(term.field());
+    this.term = term;
+    this.automatonIsBinary = false;
+    final Supplier<CachedAutomaton> compile =
+        () -> new CachedAutomaton(automaton.get(), maxDeterminizedStates);
+    final AutomatonCache cache = AutomatonCache.getDefaultCache();
+    final CachedAutomaton cached =
+        cache == null || cacheKey == null
+            ? compile.get()
+            : cache.computeIfAbsent(cacheKey, compile);
+    this.automaton = cached.automaton;
+    this.compiled = cached.compiled;
+
+    this.ramBytesUsed = BASE_RAM_BYTES + term.ramBytesUsed() + cached.ramBytesUsed();
+  }
+
+  /** An automaton and its compiled form, as stored in the {@link AutomatonCache}. */
+  private static final class CachedAutomaton implements Accountable {
+    final Automaton automaton;
+    final CompiledAutomaton compiled;
+
+    CachedAutomaton(Automaton automaton, int maxDeterminizedStates) {
+      this.automaton = automaton;
+      this.compiled = new CompiledAutomaton(automaton, null, true, maxDeterminizedStates, false);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return automaton.ramBytesUsed() + compiled.ramBytesUsed();
+    }
+  }
+
   @Override
   protected TermsEnum getTermsEnum(Terms terms, AttributeSource atts) throws IOException {
     return compiled.getTermsEnum(terms);
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+import static org.apache.lucene.search.ScorerUtil.costWithMinShouldMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Scorer for pure disjunctions that implements the MaxScore algorithm for dynamic pruning described
+ * in "Query Evaluation: Strategies and Optimizations" by Turtle and Flood, on top of the block-max
+ * metadata exposed through {@link Scorer#advanceShallow(int)} and {@link Scorer#getMaxScore(int)}.
+ *
+ * <p>Doc IDs are processed in windows whose boundaries are the impact blocks of the clause that
+ * has the highest cost. At the beginning of every window, clauses are sorted by increasing maximum
+ * score within the window and split into two groups: non-essential clauses, whose sum of maximum
+ * scores is less than the minimum competitive score, and essential clauses. Only essential clauses
+ * are used to find candidates: a document that only matches non-essential clauses cannot be
+ * competitive. Non-essential clauses are only advanced in order to compute the score of candidates,
+ * and skipped as soon as the score of the candidate is known not to be competitive.
+ *
+ * <p>Compared to {@link WANDScorer}, which needs to reorganize a heap of clauses on every
+ * candidate, the cost of finding the next candidate only depends on the number of essential
+ * clauses, which makes this scorer a better fit for disjunctions that have many clauses. It only
+ * supports {@link ScoreMode#TOP_SCORES} and a minimum number of matching clauses of 1.
+ */
+final class BlockMaxMaxScoreScorer extends Scorer {
+
+  private static final Comparator<DisiWrapper> BLOCK_MAX_SCORE_COMPARATOR =
+      Comparator.comparingDouble(w -> w.blockMaxScore);
+
+  // all clauses, non-essential clauses first, sorted by increasing max score within the window
+  private final DisiWrapper[] allScorers;
+  // essential clauses, ordered by doc ID
+  private final DisiPriorityQueue essentialQueue;
+  // at index i, the sum of the max scores within the window of the i first clauses
+  private final double[] maxScoreSums;
+  private final MaxScoreSumPropagator maxScorePropagator;
+  private final long cost;
+
+  // index of the first essential clause in allScorers
+  private int firstEssential;
+  // last doc ID of the current window, inclusive
+  private int upTo = -1;
+  private int doc = -1;
+  private float minCompetitiveScore;
+  // the min competitive score that was used to partition clauses
+  private float partitionMinCompetitiveScore;
+  // sum of the scores of essential clauses on the current doc
+  private double essentialScore;
+  private int scoreDoc = -1;
+  private float score;
+
+  BlockMaxMaxScoreScorer(Weight weight, Collection<Scorer> scorers) throws IOException {
+    super(weight);
+    this.allScorers = new DisiWrapper[scorers.size()];
+    int i = 0;
+    for (Scorer scorer : scorers) {
+      allScorers[i++] = new DisiWrapper(scorer);
+    }
+    this.essentialQueue = new DisiPriorityQueue(allScorers.length);
+    this.maxScoreSums = new double[allScorers.length + 1];
+    this.maxScorePropagator = new MaxScoreSumPropagator(scorers);
+    this.cost =
+        costWithMinShouldMatch(
+            scorers.stream().map(Scorer::iterator).mapToLong(DocIdSetIterator::cost),
+            scorers.size(),
+            1);
+  }
+
+  @Override
+  public DocIdSetIterator iterator() {
+    return TwoPhaseIterator.asDocIdSetIterator(twoPhaseIterator());
+  }
+
+  @Override
+  public TwoPhaseIterator twoPhaseIterator() {
+    DocIdSetIterator approximation =
+        new DocIdSetIterator() {
+
+          @Override
+          public int docID() {
+            return doc;
+          }
+
+          @Override
+          public int nextDoc() throws IOException {
+            return advance(doc + 1);
+          }
+
+          @Override
+          public int advance(int target) throws IOException {
+            return doc = nextCandidate(target);
+          }
+
+          @Override
+          public long cost() {
+            return cost;
+          }
+        };
+    return new TwoPhaseIterator(approximation) {
+
+      @Override
+      public boolean matches() throws IOException {
+        double score = essentialScore;
+        for (int i = firstEssential - 1; i >= 0; --i) {
+          if (maxScorePropagator.scoreSumUpperBound(score + maxScoreSums[i + 1])
+              < minCompetitiveScore) {
+            // even if all remaining non-essential clauses matched, this doc wouldn't compete
+            return false;
+          }
+          score += advanceAndScore(allScorers[i]);
+        }
+        scoreDoc = doc;
+        BlockMaxMaxScoreScorer.this.score = (float) score;
+        return BlockMaxMaxScoreScorer.this.score >= minCompetitiveScore;
+      }
+
+      @Override
+      public float matchCost() {
+        // maximum number of scorers that matches() might advance
+        return allScorers.length;
+      }
+    };
+  }
+
+  /** Return the next doc that is greater than or equal to target and might be competitive. */
+  private int nextCandidate(int target) throws IOException {
+    while (true) {
+      if (target == NO_MORE_DOCS) {
+        return NO_MORE_DOCS;
+      }
+
+      if (target > upTo) {
+        moveToNextWindow(target);
+      } else if (minCompetitiveScore > partitionMinCompetitiveScore) {
+        // more clauses may have become non-essential since the window started
+        partitionScorers();
+      }
+
+      if (essentialQueue.size() == 0) {
+        // non-essential clauses alone can't produce competitive hits in this window
+        if (upTo == NO_MORE_DOCS) {
+          return NO_MORE_DOCS;
+        }
+        target = upTo + 1;
+        continue;
+      }
+
+      DisiWrapper top = essentialQueue.top();
+      while (top.doc < target) {
+        top.doc = top.iterator.advance(target);
+        top = essentialQueue.updateTop();
+      }
+
+      if (top.doc == NO_MORE_DOCS) {
+        return NO_MORE_DOCS;
+      } else if (top.doc > upTo) {
+        // no essential clause matches in this window, move to the next one
+        target = upTo + 1;
+        continue;
+      }
+
+      final int candidate = top.doc;
+      double essentialScore = 0;
+      for (DisiWrapper w = essentialQueue.topList(); w != null; w = w.next) {
+        essentialScore += w.scorer.score();
+      }
+      if (maxScorePropagator.scoreSumUpperBound(essentialScore + maxScoreSums[firstEssential])
+          < minCompetitiveScore) {
+        target = candidate + 1;
+        continue;
+      }
+
+      this.essentialScore = essentialScore;
+      return candidate;
+    }
+  }
+
+  /**
+   * Compute the boundaries of the window that starts at target and the max scores of all clauses
+   * within this window, then partition clauses into essential and non-essential clauses.
+   */
+  private void moveToNextWindow(int target) throws IOException {
+    // Use the blocks of the clause with the highest cost to define windows, since it is also
+    // the clause that has the most fine-grained impacts.
+    DisiWrapper lead = null;
+    for (DisiWrapper w : allScorers) {
+      if (w.doc != NO_MORE_DOCS && (lead == null || w.cost > lead.cost)) {
+        lead = w;
+      }
+    }
+
+    if (lead == null) {
+      upTo = NO_MORE_DOCS;
+    } else {
+      upTo = lead.scorer.advanceShallow(Math.max(lead.doc, target));
+    }
+    assert upTo >= target;
+
+    for (DisiWrapper w : allScorers) {
+      if (w.doc > upTo) {
+        w.blockMaxScore = 0;
+      } else {
+        w.scorer.advanceShallow(Math.max(w.doc, target));
+        w.blockMaxScore = w.scorer.getMaxScore(upTo);
+      }
+    }
+
+    partitionScorers();
+  }
+
+  /** Split clauses into non-essential and essential clauses based on the current max scores. */
+  private void partitionScorers() {
+    Arrays.sort(allScorers, BLOCK_MAX_SCORE_COMPARATOR);
+
+    firstEssential = 0;
+    maxScoreSums[0] = 0;
+    while (firstEssential < allScorers.length) {
+      double maxScoreSum = maxScoreSums[firstEssential] + allScorers[firstEssential].blockMaxScore;
+      if (maxScorePropagator.scoreSumUpperBound(maxScoreSum) >= minCompetitiveScore) {
+        break;
+      }
+      maxScoreSums[++firstEssential] = maxScoreSum;
+    }
+
+    essentialQueue.clear();
+    for (int i = firstEssential; i < allScorers.length; ++i) {
+      essentialQueue.add(allScorers[i]);
+    }
+    partitionMinCompetitiveScore = minCompetitiveScore;
+  }
+
+  private float advanceAndScore(DisiWrapper w) throws IOException {
+    if (w.doc < doc) {
+      w.doc = w.iterator.advance(doc);
+    }
+    if (w.doc == doc) {
+      return w.scorer.score();
+    }
+    return 0f;
+  }
+
+  @Override
+  public float score() throws IOException {
+    if (scoreDoc != doc) {
+      double score = essentialScore;
+      for (int i = 0; i < firstEssential; ++i) {
+        score += advanceAndScore(allScorers[i]);
+      }
+      scoreDoc = doc;
+      this.score = (float) score;
+    }
+    return score;
+  }
+
+  @Override
+  public Collection<ChildScorable> getChildren() throws IOException {
+    List<ChildScorable> matchingChildren = new ArrayList<>();
+    for (DisiWrapper w : allScorers) {
+      if (w.doc < doc) {
+        w.doc = w.iterator.advance(doc);
+      }
+      if (w.doc == doc) {
+        matchingChildren.add(new ChildScorable(w.scorer, "SHOULD"));
+      }
+    }
+    return matchingChildren;
+  }
+
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    // Propagate to improve score bounds
+    maxScorePropagator.advanceShallow(target);
+    if (target <= upTo) {
+      return upTo;
+    }
+    return NO_MORE_DOCS;
+  }
+
+  @Override
+  public float getMaxScore(int upTo) throws IOException {
+    return maxScorePropagator.getMaxScore(upTo);
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    assert minScore >= minCompetitiveScore;
+    minCompetitiveScore = minScore;
+    maxScorePropagator.setMinCompetitiveScore(minScore);
+  }
+
+  @Override
+  public int docID() {
+    return doc;
+  }
+}
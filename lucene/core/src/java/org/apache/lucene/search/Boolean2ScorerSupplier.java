@@ -29,6 +29,14 @@ import org.apache.lucene.search.BooleanClause.Occur;
 
 final class Boolean2ScorerSupplier extends ScorerSupplier {
 
+  /**
+   * Minimum number of SHOULD clauses for top-scores disjunctions to be evaluated with {@link
+   * BlockMaxMaxScoreScorer} rather than {@link WANDScorer}. This is a conservative choice, not a
+   * measured crossover; {@code lucene/benchmark/conf/long-disjunctions.alg} compares both scorers
+   * on disjunctions of 8 to 128 terms.
+   */
+  static final int MAX_SCORE_MIN_CLAUSES = 32;
+
   private final Weight weight;
   private final Map<BooleanClause.Occur, Collection<ScorerSupplier>> subs;
   private final ScoreMode scoreMode;
@@ -238,7 +246,13 @@ final class Boolean2ScorerSupplier extends ScorerSupplier {
       //
       // However, as WANDScorer uses more complex algorithm and data structure, we would like to
       // still use DisjunctionSumScorer to handle exhaustive pure disjunctions, which may be faster
-      if (scoreMode == ScoreMode.TOP_SCORES || minShouldMatch > 1) {
+      if (scoreMode == ScoreMode.TOP_SCORES
+          && minShouldMatch <= 1
+          && optionalScorers.size() >= MAX_SCORE_MIN_CLAUSES) {
+        // WANDScorer needs to reorganize its heaps on every candidate, MaxScore scales better
+        // with the number of clauses
+        return new BlockMaxMaxScoreScorer(weight, optionalScorers);
+      } else if (scoreMode == ScoreMode.TOP_SCORES || minShouldMatch > 1) {
         return new WANDScorer(weight, optionalScorers, minShouldMatch, scoreMode);
       } else {
         return new DisjunctionSumScorer(weight, optionalScorers, scoreMode);
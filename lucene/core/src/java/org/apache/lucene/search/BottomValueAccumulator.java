@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Maintains the most competitive bottom value of the primary sort across the collectors of a
+ * search concurrently, so that collectors can skip documents that another collector already proved
+ * non-competitive.
+ */
+final class BottomValueAccumulator {
+  // we use 2^10-1 to check the remainder with a bitwise operation
+  static final int DEFAULT_INTERVAL = 0x3ff;
+
+  private final int reverseMul;
+  private final AtomicReference<BottomValue> bottom = new AtomicReference<>();
+
+  // non-final and visible for tests
+  long modInterval;
+
+  BottomValueAccumulator(int reverseMul) {
+    this.reverseMul = reverseMul;
+    this.modInterval = DEFAULT_INTERVAL;
+  }
+
+  /**
+   * Record the bottom value of a collector whose queue is full, using its comparator to compare it
+   * with the current value.
+   */
+  void accumulate(FieldComparator<?> comparator, Object value) {
+    @SuppressWarnings("unchecked")
+    final FieldComparator<Object> cmp = (FieldComparator<Object>) comparator;
+    BottomValue update = null;
+    for (BottomValue current = bottom.get();
+        current == null || reverseMul * cmp.compareValues(value, current.value) < 0;
+        current = bottom.get()) {
+      if (update == null) {
+        // values may be reused by the comparator
+        if (value instanceof BytesRef) {
+          value = BytesRef.deepCopyOf((BytesRef) value);
+        }
+        update = new BottomValue(value);
+      }
+      if (bottom.compareAndSet(current, update)) {
+        return;
+      }
+    }
+  }
+
+  /** Return the most competitive bottom value, or null if no collector has a full queue yet. */
+  BottomValue get() {
+    return bottom.get();
+  }
+
+  /** Holder for a bottom value, since values may be null. */
+  static final class BottomValue {
+    final Object value;
+
+    BottomValue(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public String toString() {
+      return "BottomValue{" + "value=" + value + '}';
+    }
+  }
+}
@@ -113,6 +113,12 @@ public final class DisiPriorityQueue implements Iterable<DisiWrapper> {
     return result;
   }
 
+  /** Remove all entries from this queue. */
+  public void clear() {
+    Arrays.fill(heap, 0, size, null);
+    size = 0;
+  }
+
   public DisiWrapper updateTop() {
     downHeap(size);
     return heap[0];
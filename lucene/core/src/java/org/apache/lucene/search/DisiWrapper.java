@@ -41,6 +41,9 @@ public class DisiWrapper {
   // For WANDScorer
   long maxScore;
 
+  // For BlockMaxMaxScoreScorer
+  float blockMaxScore;
+
   // FOR SPANS
   public final Spans spans;
   public int lastApproxMatchDoc; // last doc of approximation that did match
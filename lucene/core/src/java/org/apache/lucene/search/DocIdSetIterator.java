@@ -17,6 +17,7 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import org.apache.lucene.util.FixedBitSet;
 
 /**
  * This abstract class defines methods to iterate over a set of non-decreasing doc ids. Note that
@@ -208,6 +209,32 @@ public abstract class DocIdSetIterator {
     return doc;
   }
 
+  /**
+   * Load doc IDs into a {@link FixedBitSet}. This sets the bit of every doc ID between the current
+   * doc ID, inclusive, and {@code upTo}, exclusive, minus {@code offset}, and then positions this
+   * iterator on the first doc ID that is greater than or equal to {@code upTo}. This iterator must
+   * be positioned, ie. {@link #nextDoc()} or {@link #advance(int)} must have been called.
+   *
+   * <p>The default implementation is equivalent to:
+   *
+   * <pre class="prettyprint">
+   * for (int doc = docID(); doc &lt; upTo; doc = nextDoc()) {
+   *   bitSet.set(doc - offset);
+   * }
+   * </pre>
+   *
+   * Implementations that decode doc IDs by blocks, such as postings, may override it to load
+   * entire blocks at once.
+   *
+   * @lucene.experimental
+   */
+  public void intoBitSet(int upTo, FixedBitSet bitSet, int offset) throws IOException {
+    assert offset <= docID();
+    for (int doc = docID(); doc < upTo; doc = nextDoc()) {
+      bitSet.set(doc - offset);
+    }
+  }
+
   /**
    * Returns the estimated cost of this {@link DocIdSetIterator}.
    *
@@ -22,7 +22,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.Impacts;
 import org.apache.lucene.index.ImpactsEnum;
@@ -50,6 +49,7 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
   }
 
   private final PostingsAndPosition[] postings;
+  private final ImpactsEnum[] shingles;
   private final DocIdSetIterator approximation;
   private final ImpactsDISI impactsApproximation;
 
@@ -59,13 +59,34 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
       ScoreMode scoreMode,
       SimScorer scorer,
       float matchCost) {
+    this(postings, new ImpactsEnum[0], scoreMode, scorer, matchCost);
+  }
+
+  /**
+   * Expert: Creates ExactPhraseMatcher instance that also leverages the postings of shingles of
+   * consecutive terms of the phrase. Every document that contains the phrase must contain these
+   * shingles, and the frequency of a shingle in a document must be greater than or equal to the
+   * number of occurrences of the phrase. Shingles are used to skip documents that do not contain
+   * all shingles before decoding positions, and their frequencies and impacts are used as upper
+   * bounds of the phrase frequency. Their norms are ignored since they come from another field.
+   */
+  public ExactPhraseMatcher(
+      PhraseQuery.PostingsAndFreq[] postings,
+      ImpactsEnum[] shingles,
+      ScoreMode scoreMode,
+      SimScorer scorer,
+      float matchCost) {
     super(matchCost);
 
-    final DocIdSetIterator approximation =
-        ConjunctionDISI.intersectIterators(
-            Arrays.stream(postings).map(p -> p.postings).collect(Collectors.toList()));
+    List<DocIdSetIterator> iterators = new ArrayList<>();
+    for (PhraseQuery.PostingsAndFreq posting : postings) {
+      iterators.add(posting.postings);
+    }
+    iterators.addAll(Arrays.asList(shingles));
+    final DocIdSetIterator approximation = ConjunctionDISI.intersectIterators(iterators);
     final ImpactsSource impactsSource =
-        mergeImpacts(Arrays.stream(postings).map(p -> p.impacts).toArray(ImpactsEnum[]::new));
+        mergeImpacts(
+            Arrays.stream(postings).map(p -> p.impacts).toArray(ImpactsEnum[]::new), shingles);
 
     if (scoreMode == ScoreMode.TOP_SCORES) {
       this.approximation =
@@ -81,6 +102,7 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
     }
     this.postings =
         postingsAndPositions.toArray(new PostingsAndPosition[postingsAndPositions.size()]);
+    this.shingles = shingles;
   }
 
   @Override
@@ -94,11 +116,14 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
   }
 
   @Override
-  float maxFreq() {
+  float maxFreq() throws IOException {
     int minFreq = postings[0].freq;
     for (int i = 1; i < postings.length; i++) {
       minFreq = Math.min(minFreq, postings[i].freq);
     }
+    for (ImpactsEnum shingle : shingles) {
+      minFreq = Math.min(minFreq, shingle.freq());
+    }
     return minFreq;
   }
 
@@ -189,11 +214,23 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
 
   /** Merge impacts for multiple terms of an exact phrase. */
   static ImpactsSource mergeImpacts(ImpactsEnum[] impactsEnums) {
+    return mergeImpacts(impactsEnums, new ImpactsEnum[0]);
+  }
+
+  /**
+   * Merge impacts for multiple terms of an exact phrase, and cap frequencies with the maximum
+   * frequencies of the given shingles.
+   */
+  static ImpactsSource mergeImpacts(ImpactsEnum[] impactsEnums, ImpactsEnum[] shingleEnums) {
+    final int numTerms = impactsEnums.length;
+    final ImpactsEnum[] allEnums = new ImpactsEnum[numTerms + shingleEnums.length];
+    System.arraycopy(impactsEnums, 0, allEnums, 0, numTerms);
+    System.arraycopy(shingleEnums, 0, allEnums, numTerms, shingleEnums.length);
     // Iteration of block boundaries uses the impacts enum with the lower cost.
     // This is consistent with BlockMaxConjunctionScorer.
     int tmpLeadIndex = -1;
-    for (int i = 0; i < impactsEnums.length; ++i) {
-      if (tmpLeadIndex == -1 || impactsEnums[i].cost() < impactsEnums[tmpLeadIndex].cost()) {
+    for (int i = 0; i < allEnums.length; ++i) {
+      if (tmpLeadIndex == -1 || allEnums[i].cost() < allEnums[tmpLeadIndex].cost()) {
         tmpLeadIndex = i;
       }
     }
@@ -223,9 +260,9 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
 
       @Override
       public Impacts getImpacts() throws IOException {
-        final Impacts[] impacts = new Impacts[impactsEnums.length];
-        for (int i = 0; i < impactsEnums.length; ++i) {
-          impacts[i] = impactsEnums[i].getImpacts();
+        final Impacts[] impacts = new Impacts[allEnums.length];
+        for (int i = 0; i < allEnums.length; ++i) {
+          impacts[i] = allEnums[i].getImpacts();
         }
         final Impacts lead = impacts[leadIndex];
         return new Impacts() {
@@ -282,6 +319,13 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
                 // Dummy impacts, ignore it too.
                 continue;
               }
+              if (i >= numTerms) {
+                // Norms of shingles come from another field, so only their maximum frequency can
+                // be used, as an upper bound of the phrase frequency. Impacts are sorted by
+                // increasing frequency.
+                Impact lastImpact = impactList.get(impactList.size() - 1);
+                impactList = Collections.singletonList(new Impact(lastImpact.freq, 1L));
+              }
 
               SubIterator subIterator = new SubIterator(impactList);
               pq.add(subIterator);
@@ -350,7 +394,7 @@ public final class ExactPhraseMatcher extends PhraseMatcher {
 
       @Override
       public void advanceShallow(int target) throws IOException {
-        for (ImpactsEnum impactsEnum : impactsEnums) {
+        for (ImpactsEnum impactsEnum : allEnums) {
           impactsEnum.advanceShallow(target);
         }
       }
@@ -20,9 +20,13 @@ import java.io.IOException;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.DocIdSetBuilder;
 
 /**
  * Expert: a FieldComparator compares hits so as to determine their sort order when collecting the
@@ -132,6 +136,15 @@ public abstract class FieldComparator<T> {
    */
   public void disableSkipping() {}
 
+  /**
+   * Informs the comparator about the bottom value of another collector of the same search, e.g. a
+   * collector that searches another slice of the index concurrently. Documents that compare worse
+   * than this value can't make it to the top hits, so comparators that can skip non-competitive
+   * documents may skip them even before their own queue is full. This is only called on the
+   * comparator of the primary sort, with values that are increasingly competitive.
+   */
+  public void setGlobalBottomValue(T value) {}
+
   /**
    * Sorts by descending relevance. NOTE: if you are sorting only by descending relevance and then
    * secondarily by ascending docID, performance is faster using {@link TopScoreDocCollector}
@@ -223,6 +236,12 @@ public abstract class FieldComparator<T> {
    * using the ordinals. For medium to large results, this comparator will be much faster than
    * {@link org.apache.lucene.search.FieldComparator.TermValComparator}. For very small result sets
    * it may be slower.
+   *
+   * <p>If skipping is enabled, see {@link SortField#setOptimizeSortWithTerms}, and the field is also
+   * indexed with the same values, e.g. with both a {@link org.apache.lucene.document.StringField}
+   * and a {@link org.apache.lucene.document.SortedDocValuesField}, this comparator can skip
+   * non-competitive documents: once the queue is full, it computes the range of competitive
+   * ordinals and, if it only contains a few terms, only iterates over the postings of these terms.
    */
   public static class TermOrdValComparator extends FieldComparator<BytesRef>
       implements LeafFieldComparator {
@@ -283,6 +302,29 @@ public abstract class FieldComparator<T> {
     /** Which ordinal to use for a missing value. */
     final int missingOrd;
 
+    /** Maximum number of competitive terms for which skipping is worth it. */
+    private static final int MAX_COMPETITIVE_TERMS = 1024;
+
+    private final boolean reverse;
+    private boolean topValueSet;
+    // the bottom value of other collectors of the same search, only valid if globalBottomSet
+    private BytesRef globalBottom;
+    private boolean globalBottomSet;
+    private boolean singleSort;
+    private boolean hitsThresholdReached;
+    // skipping functionality is only relevant for primary sort
+    private boolean canSkipDocuments;
+
+    // Per-segment state for skipping, terms is null if skipping is disabled on this segment
+    private Terms terms;
+    private TermsEnum termsEnum;
+    private PostingsEnum postings;
+    private int maxDoc;
+    private DocIdSetIterator competitiveIterator;
+    private long iteratorCost;
+    private int maxDocVisited;
+    private int updateCounter;
+
     /** Creates this, sorting missing values first. */
     public TermOrdValComparator(int numHits, String field) {
       this(numHits, field, false);
@@ -293,6 +335,23 @@ public abstract class FieldComparator<T> {
      * put missing values at the end.
      */
     public TermOrdValComparator(int numHits, String field, boolean sortMissingLast) {
+      this(numHits, field, sortMissingLast, false, false);
+    }
+
+    /**
+     * Creates this, with control over how missing values are sorted. Pass sortMissingLast=true to
+     * put missing values at the end. If {@code enableSkipping} is true, this comparator may skip
+     * non-competitive documents on segments where the field is also indexed, in which case the
+     * indexed terms of every document must be exactly its doc value.
+     */
+    public TermOrdValComparator(
+        int numHits,
+        String field,
+        boolean sortMissingLast,
+        boolean reverse,
+        boolean enableSkipping) {
+      this.reverse = reverse;
+      this.canSkipDocuments = enableSkipping;
       ords = new int[numHits];
       values = new BytesRef[numHits];
       tempBRs = new BytesRefBuilder[numHits];
@@ -356,6 +415,7 @@ public abstract class FieldComparator<T> {
 
     @Override
     public void copy(int slot, int doc) throws IOException {
+      maxDocVisited = doc;
       int ord = getOrdForDoc(doc);
       if (ord == -1) {
         ord = missingOrd;
@@ -383,6 +443,19 @@ public abstract class FieldComparator<T> {
       termsIndex = getSortedDocValues(context, field);
       currentReaderGen++;
 
+      terms = canSkipDocuments ? context.reader().terms(field) : null;
+      maxDocVisited = -1;
+      updateCounter = 0;
+      if (terms != null) {
+        termsEnum = terms.iterator();
+        maxDoc = context.reader().maxDoc();
+        competitiveIterator = DocIdSetIterator.all(maxDoc);
+        iteratorCost = maxDoc;
+      } else {
+        termsEnum = null;
+        competitiveIterator = null;
+      }
+
       if (topValue != null) {
         // Recompute topOrd/SameReader
         int ord = termsIndex.lookupTerm(topValue);
@@ -437,6 +510,7 @@ public abstract class FieldComparator<T> {
           }
         }
       }
+      updateCompetitiveIterator(); // update an iterator if we set a new bottom
     }
 
     @Override
@@ -444,6 +518,7 @@ public abstract class FieldComparator<T> {
       // null is fine: it means the last doc of the prior
       // search was missing this value
       topValue = value;
+      topValueSet = true;
       // System.out.println("setTopValue " + topValue);
     }
 
@@ -488,7 +563,167 @@ public abstract class FieldComparator<T> {
     }
 
     @Override
-    public void setScorer(Scorable scorer) {}
+    public void setScorer(Scorable scorer) throws IOException {
+      if (terms != null && scorer instanceof Scorer) {
+        // starting iterator cost is the scorer's cost
+        iteratorCost = ((Scorer) scorer).iterator().cost();
+        updateCompetitiveIterator(); // update an iterator when we have a new segment
+      }
+    }
+
+    @Override
+    public void setSingleSort() {
+      singleSort = true;
+    }
+
+    @Override
+    public void disableSkipping() {
+      canSkipDocuments = false;
+    }
+
+    @Override
+    public void setHitsThresholdReached() throws IOException {
+      hitsThresholdReached = true;
+      updateCompetitiveIterator();
+    }
+
+    @Override
+    public void setGlobalBottomValue(BytesRef value) {
+      globalBottom = value == null ? null : BytesRef.deepCopyOf(value);
+      globalBottomSet = true;
+    }
+
+    // update the competitive iterator to only include docs whose value is "stronger" than the
+    // current bottom entry, which is possible if it only contains a small number of terms
+    private void updateCompetitiveIterator() throws IOException {
+      if (terms == null
+          || hitsThresholdReached == false
+          || (bottomSlot == -1 && globalBottomSet == false)) {
+        return;
+      }
+
+      updateCounter++;
+      if (updateCounter > 256
+          && (updateCounter & 0x1f) != 0x1f) { // Start sampling if we get called too much
+        return;
+      }
+
+      // Compute the range of competitive ords, missing values having missingOrd as an ord. Equal
+      // values are competitive unless sort is done on this single field, since docs are visited
+      // in doc ID order. Longs are used in order to not overflow on missingOrd.
+      long minOrd, maxOrd;
+      if (reverse == false) {
+        minOrd = topValueSet == false ? Long.MIN_VALUE : topSameReader ? topOrd : topOrd + 1L;
+        maxOrd = Long.MAX_VALUE;
+        if (bottomSlot != -1) {
+          maxOrd = bottomSameReader && singleSort ? bottomOrd - 1L : bottomOrd;
+        }
+      } else {
+        minOrd = Long.MIN_VALUE;
+        if (bottomSlot != -1) {
+          minOrd = bottomSameReader && singleSort == false ? bottomOrd : bottomOrd + 1L;
+        }
+        maxOrd = topValueSet == false ? Long.MAX_VALUE : topOrd;
+      }
+      if (globalBottomSet) {
+        // docs that are equal to the global bottom may have lower doc IDs, so they are competitive
+        if (globalBottom == null) {
+          if (reverse == false) {
+            maxOrd = Math.min(maxOrd, missingOrd);
+          } else {
+            minOrd = Math.max(minOrd, missingOrd);
+          }
+        } else {
+          final int ord = termsIndex.lookupTerm(globalBottom);
+          if (reverse == false) {
+            maxOrd = Math.min(maxOrd, ord >= 0 ? ord : -ord - 2L);
+          } else {
+            minOrd = Math.max(minOrd, ord >= 0 ? ord : -ord - 1L);
+          }
+        }
+      }
+
+      if (minOrd <= missingOrd && missingOrd <= maxOrd) {
+        // we can't filter out documents, as documents with missing values are competitive and
+        // they may have indexed terms too
+        return;
+      }
+
+      final int valueCount = termsIndex.getValueCount();
+      final int fromOrd = (int) Math.min(Math.max(minOrd, 0), valueCount);
+      final int toOrd = (int) Math.max(Math.min(maxOrd, valueCount - 1L), -1);
+      if (fromOrd > toOrd) {
+        competitiveIterator = DocIdSetIterator.empty();
+        iteratorCost = 0;
+        return;
+      }
+      if (toOrd - fromOrd >= MAX_COMPETITIVE_TERMS) {
+        return; // too many terms to be worth iterating over their postings
+      }
+
+      final BytesRef toTerm = BytesRef.deepCopyOf(termsIndex.lookupOrd(toOrd));
+      final BytesRef fromTerm = BytesRef.deepCopyOf(termsIndex.lookupOrd(fromOrd));
+      final long threshold = iteratorCost >>> 3;
+      long estimatedNumberOfMatches = 0;
+      int numTerms = 0;
+      if (termsEnum.seekCeil(fromTerm) != TermsEnum.SeekStatus.END) {
+        for (BytesRef term = termsEnum.term();
+            term != null && term.compareTo(toTerm) <= 0;
+            term = termsEnum.next()) {
+          estimatedNumberOfMatches += termsEnum.docFreq();
+          if (estimatedNumberOfMatches >= threshold || ++numTerms > MAX_COMPETITIVE_TERMS) {
+            // the new range is not selective enough to be worth materializing, it doesn't reduce
+            // number of docs at least 8x
+            return;
+          }
+        }
+      }
+
+      DocIdSetBuilder result = new DocIdSetBuilder(maxDoc, terms);
+      if (termsEnum.seekCeil(fromTerm) != TermsEnum.SeekStatus.END) {
+        for (BytesRef term = termsEnum.term();
+            term != null && term.compareTo(toTerm) <= 0;
+            term = termsEnum.next()) {
+          postings = termsEnum.postings(postings, PostingsEnum.NONE);
+          DocIdSetBuilder.BulkAdder adder = result.grow(termsEnum.docFreq());
+          for (int doc = postings.advance(maxDocVisited + 1);
+              doc != DocIdSetIterator.NO_MORE_DOCS;
+              doc = postings.nextDoc()) {
+            adder.add(doc);
+          }
+        }
+      }
+      competitiveIterator = result.build().iterator();
+      iteratorCost = competitiveIterator.cost();
+    }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() {
+      if (terms == null) return null;
+      return new DocIdSetIterator() {
+        private int docID = -1;
+
+        @Override
+        public int nextDoc() throws IOException {
+          return advance(docID + 1);
+        }
+
+        @Override
+        public int docID() {
+          return docID;
+        }
+
+        @Override
+        public long cost() {
+          return competitiveIterator.cost();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+          return docID = competitiveIterator.advance(target);
+        }
+      };
+    }
   }
 
   /**
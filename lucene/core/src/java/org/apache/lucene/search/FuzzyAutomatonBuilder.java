@@ -17,7 +17,11 @@
 
 package org.apache.lucene.search;
 
+import java.util.List;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.UnicodeUtil;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
 import org.apache.lucene.util.automaton.LevenshteinAutomata;
 import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
@@ -33,6 +37,7 @@ class FuzzyAutomatonBuilder {
   private final LevenshteinAutomata levBuilder;
   private final String prefix;
   private final int termLength;
+  private final List<Object> cacheKey;
 
   FuzzyAutomatonBuilder(String term, int maxEdits, int prefixLength, boolean transpositions) {
     if (maxEdits < 0 || maxEdits > LevenshteinAutomata.MAXIMUM_SUPPORTED_DISTANCE) {
@@ -54,9 +59,22 @@ class FuzzyAutomatonBuilder {
     System.arraycopy(codePoints, prefixLength, suffix, 0, suffix.length);
     this.levBuilder = new LevenshteinAutomata(suffix, Character.MAX_CODE_POINT, transpositions);
     this.prefix = UnicodeUtil.newString(codePoints, 0, prefixLength);
+    this.cacheKey = List.of("fuzzy", term, maxEdits, prefixLength, transpositions);
   }
 
+  /**
+   * Returns the automata for edit distances 0 to maxEdits, shared through the default {@link
+   * AutomatonCache} with other queries on the same term and options.
+   */
   CompiledAutomaton[] buildAutomatonSet() {
+    final AutomatonCache cache = AutomatonCache.getDefaultCache();
+    if (cache == null) {
+      return compileAutomatonSet();
+    }
+    return cache.computeIfAbsent(cacheKey, () -> new AutomatonSet(compileAutomatonSet())).automata;
+  }
+
+  private CompiledAutomaton[] compileAutomatonSet() {
     CompiledAutomaton[] compiled = new CompiledAutomaton[maxEdits + 1];
     for (int i = 0; i <= maxEdits; i++) {
       try {
@@ -76,6 +94,20 @@ class FuzzyAutomatonBuilder {
     }
   }
 
+  /** Automata for all edit distances, as stored in the {@link AutomatonCache}. */
+  private static final class AutomatonSet implements Accountable {
+    final CompiledAutomaton[] automata;
+
+    AutomatonSet(CompiledAutomaton[] automata) {
+      this.automata = automata;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return RamUsageEstimator.sizeOf(automata);
+    }
+  }
+
   int getTermLength() {
     return this.termLength;
   }
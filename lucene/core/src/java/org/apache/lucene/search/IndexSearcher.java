@@ -304,11 +304,77 @@ public class IndexSearcher {
 
   /**
    * Expert: Creates an array of leaf slices each holding a subset of the given leaves. Each {@link
-   * LeafSlice} is executed in a single thread. By default, segments with more than
-   * MAX_DOCS_PER_SLICE will get their own thread
+   * LeafSlice} is executed in a single thread. By default, leaves are spread over slices so that
+   * their estimated costs are balanced, see {@link #balancedSlices(List, int, int)}.
    */
   protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
-    return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+    return balancedSlices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+  }
+
+  /**
+   * Static method to spread LeafReaderContexts over slices of similar cost. The cost of a leaf is
+   * estimated by its number of live documents. The number of slices is the minimum number that
+   * keeps both the average cost under {@code maxDocsPerSlice} and the number of leaves per slice
+   * under {@code maxSegmentsPerSlice}, and leaves are assigned by descending cost to the slice that
+   * has the lowest cost so far. Unlike {@link #slices(List, int, int)}, this doesn't leave a tail
+   * of small slices behind the slices that hold the largest segments.
+   *
+   * @lucene.experimental
+   */
+  public static LeafSlice[] balancedSlices(
+      List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    if (leaves.isEmpty()) {
+      return new LeafSlice[0];
+    }
+    // Make a copy so we can sort:
+    List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+
+    // Sort by numDocs, descending:
+    Collections.sort(
+        sortedLeaves, Collections.reverseOrder(Comparator.comparingInt(l -> l.reader().numDocs())));
+
+    long totalCost = 0;
+    for (LeafReaderContext ctx : sortedLeaves) {
+      totalCost += ctx.reader().numDocs();
+    }
+    long numSlices =
+        Math.max(
+            (totalCost + maxDocsPerSlice - 1) / maxDocsPerSlice,
+            (sortedLeaves.size() + maxSegmentsPerSlice - 1) / maxSegmentsPerSlice);
+    numSlices = Math.max(1, Math.min(numSlices, sortedLeaves.size()));
+
+    final List<List<LeafReaderContext>> groupedLeaves = new ArrayList<>();
+    final long[] costs = new long[(int) numSlices];
+    for (int i = 0; i < numSlices; ++i) {
+      groupedLeaves.add(new ArrayList<>());
+    }
+    for (LeafReaderContext ctx : sortedLeaves) {
+      int target = -1;
+      for (int i = 0; i < numSlices; ++i) {
+        List<LeafReaderContext> group = groupedLeaves.get(i);
+        if (group.size() >= maxSegmentsPerSlice) {
+          continue;
+        }
+        if (target == -1
+            || costs[i] < costs[target]
+            || (costs[i] == costs[target] && group.size() < groupedLeaves.get(target).size())) {
+          target = i;
+        }
+      }
+      assert target != -1;
+      groupedLeaves.get(target).add(ctx);
+      costs[target] += ctx.reader().numDocs();
+    }
+
+    LeafSlice[] slices = new LeafSlice[groupedLeaves.size()];
+    int upto = 0;
+    for (List<LeafReaderContext> currentLeaf : groupedLeaves) {
+      assert currentLeaf.isEmpty() == false;
+      slices[upto] = new LeafSlice(currentLeaf);
+      ++upto;
+    }
+
+    return slices;
   }
 
   /** Static method to segregate LeafReaderContexts amongst multiple slices */
@@ -624,11 +690,21 @@ public class IndexSearcher {
           private final MaxScoreAccumulator minScoreAcc =
               (executor == null || leafSlices.length <= 1) ? null : new MaxScoreAccumulator();
 
+          private final BottomValueAccumulator bottomValueAcc =
+              (executor == null || leafSlices.length <= 1)
+                  ? null
+                  : new BottomValueAccumulator(rewrittenSort.getSort()[0].getReverse() ? -1 : 1);
+
           @Override
           public TopFieldCollector newCollector() throws IOException {
             // TODO: don't pay the price for accurate hit counts by default
             return TopFieldCollector.create(
-                rewrittenSort, cappedNumHits, after, hitsThresholdChecker, minScoreAcc);
+                rewrittenSort,
+                cappedNumHits,
+                after,
+                hitsThresholdChecker,
+                minScoreAcc,
+                bottomValueAcc);
           }
 
           @Override
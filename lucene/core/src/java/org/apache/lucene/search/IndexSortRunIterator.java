@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import org.apache.lucene.index.LeafReaderContext;
+
+/**
+ * A competitive iterator for a segment whose index sort starts with some leading fields followed by
+ * the search sort. Documents that have the same values for the leading fields form a run of
+ * consecutive doc IDs that is sorted by the search sort, so once a document is not competitive, the
+ * rest of its run is not competitive either and can be skipped. The end of a run is found with an
+ * exponential search followed by a binary search on the values of the leading fields, so skipping a
+ * run only reads the values of a logarithmic number of documents.
+ */
+final class IndexSortRunIterator extends DocIdSetIterator {
+
+  private final SortField[] leadingFields;
+  private final LeafReaderContext context;
+  private final int maxDoc;
+
+  private int doc = -1;
+  // documents before this doc ID belong to runs that have been skipped
+  private int skipUpTo = 0;
+
+  IndexSortRunIterator(SortField[] leadingFields, LeafReaderContext context) {
+    this.leadingFields = leadingFields;
+    this.context = context;
+    this.maxDoc = context.reader().maxDoc();
+  }
+
+  /** Mark the documents that follow {@code doc} in its run as not competitive. */
+  void skipRestOfRun(int doc) throws IOException {
+    if (doc < skipUpTo) {
+      return;
+    }
+    RunMatcher matcher = new RunMatcher(doc);
+    // exponential search for a doc that is in a later run ...
+    int low = doc;
+    int high = maxDoc;
+    for (int step = 1; doc + step < maxDoc; step <<= 1) {
+      if (matcher.sameRun(doc + step)) {
+        low = doc + step;
+      } else {
+        high = doc + step;
+        break;
+      }
+    }
+    // ... then binary search for the first doc of the next run
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (matcher.sameRun(mid)) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    skipUpTo = high;
+  }
+
+  @Override
+  public int docID() {
+    return doc;
+  }
+
+  @Override
+  public int nextDoc() throws IOException {
+    return advance(doc + 1);
+  }
+
+  @Override
+  public int advance(int target) throws IOException {
+    if (target < skipUpTo) {
+      target = skipUpTo;
+    }
+    if (target >= maxDoc) {
+      return doc = NO_MORE_DOCS;
+    }
+    return doc = target;
+  }
+
+  @Override
+  public long cost() {
+    return maxDoc;
+  }
+
+  /** Checks whether documents have the same values for the leading fields as a reference doc. */
+  private class RunMatcher {
+    private final FieldComparator<?>[] comparators;
+    private final LeafFieldComparator[] leafComparators;
+    private int lastDoc;
+
+    RunMatcher(int doc) throws IOException {
+      comparators = new FieldComparator<?>[leadingFields.length];
+      leafComparators = new LeafFieldComparator[leadingFields.length];
+      for (int i = 0; i < leadingFields.length; ++i) {
+        FieldComparator<?> comparator = leadingFields[i].getComparator(1, i);
+        comparator.disableSkipping();
+        LeafFieldComparator leafComparator = comparator.getLeafComparator(context);
+        leafComparator.copy(0, doc);
+        setTopValue(comparator, comparator.value(0));
+        comparators[i] = comparator;
+      }
+      loadLeafComparators();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void setTopValue(FieldComparator<T> comparator, Object value) {
+      comparator.setTopValue((T) value);
+    }
+
+    private void loadLeafComparators() throws IOException {
+      for (int i = 0; i < comparators.length; ++i) {
+        leafComparators[i] = comparators[i].getLeafComparator(context);
+      }
+      lastDoc = -1;
+    }
+
+    boolean sameRun(int doc) throws IOException {
+      if (doc <= lastDoc) {
+        // doc values can only be read forward
+        loadLeafComparators();
+      }
+      lastDoc = doc;
+      for (LeafFieldComparator leafComparator : leafComparators) {
+        if (leafComparator.compareTop(doc) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
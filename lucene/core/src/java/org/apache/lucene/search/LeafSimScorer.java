@@ -21,12 +21,14 @@ import java.util.Objects;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.search.similarities.Similarity.SimScorer;
+import org.apache.lucene.util.ArrayUtil;
 
 /** {@link SimScorer} on a specific {@link LeafReader}. */
 public final class LeafSimScorer {
 
   private final SimScorer scorer;
   private final NumericDocValues norms;
+  private long[] normBuffer = new long[0];
 
   /** Sole constructor: Score documents of {@code reader} with {@code scorer}. */
   public LeafSimScorer(SimScorer scorer, LeafReader reader, String field, boolean needsScores)
@@ -60,6 +62,23 @@ public final class LeafSimScorer {
     return scorer.score(freq, getNormValue(doc));
   }
 
+  /**
+   * Score the first {@code size} documents of {@code docs} assuming the given term document
+   * frequencies, and store their scores into {@code scores}. This method must be called on
+   * non-decreasing sequences of doc ids.
+   *
+   * @see SimScorer#score(float[], long[], int, float[])
+   */
+  public void score(int[] docs, float[] freqs, int size, float[] scores) throws IOException {
+    if (normBuffer.length < size) {
+      normBuffer = new long[ArrayUtil.oversize(size, Long.BYTES)];
+    }
+    for (int i = 0; i < size; ++i) {
+      normBuffer[i] = getNormValue(docs[i]);
+    }
+    scorer.score(freqs, normBuffer, size, scores);
+  }
+
   /**
    * Explain the score for the provided document assuming the given term document frequency. This
    * method must be called on non-decreasing sequences of doc ids.
@@ -39,6 +39,7 @@ import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.search.similarities.Similarity.SimScorer;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 
 /**
  * A Query that matches documents containing a particular sequence of terms. A PhraseQuery is built
@@ -76,6 +77,7 @@ public class PhraseQuery extends Query {
     private int slop;
     private final List<Term> terms;
     private final List<Integer> positions;
+    private String shingleField;
 
     /** Sole constructor. */
     public Builder() {
@@ -94,6 +96,16 @@ public class PhraseQuery extends Query {
       return this;
     }
 
+    /**
+     * Set the field that holds shingles of the field of this phrase.
+     *
+     * @see PhraseQuery#getShingleField()
+     */
+    public Builder setShingleField(String shingleField) {
+      this.shingleField = shingleField;
+      return this;
+    }
+
     /**
      * Adds a term to the end of the query phrase. The relative position of the term is the one
      * immediately after the last term added.
@@ -140,16 +152,23 @@ public class PhraseQuery extends Query {
       for (int i = 0; i < positions.length; ++i) {
         positions[i] = this.positions.get(i);
       }
-      return new PhraseQuery(slop, terms, positions);
+      return new PhraseQuery(slop, terms, positions, shingleField);
     }
   }
 
+  /**
+   * The separator between the two terms of a shingle in the {@link #getShingleField() shingle
+   * field}, the same as the default token separator of ShingleFilter.
+   */
+  public static final byte SHINGLE_SEPARATOR = ' ';
+
   private final int slop;
   private final String field;
   private final Term[] terms;
   private final int[] positions;
+  private final String shingleField;
 
-  private PhraseQuery(int slop, Term[] terms, int[] positions) {
+  private PhraseQuery(int slop, Term[] terms, int[] positions, String shingleField) {
     if (terms.length != positions.length) {
       throw new IllegalArgumentException("Must have as many terms as positions");
     }
@@ -182,6 +201,7 @@ public class PhraseQuery extends Query {
     this.terms = terms;
     this.positions = positions;
     this.field = terms.length == 0 ? null : terms[0].field();
+    this.shingleField = shingleField;
   }
 
   private static int[] incrementalPositions(int length) {
@@ -218,7 +238,7 @@ public class PhraseQuery extends Query {
    * @see #getSlop()
    */
   public PhraseQuery(int slop, String field, String... terms) {
-    this(slop, toTerms(field, terms), incrementalPositions(terms.length));
+    this(slop, toTerms(field, terms), incrementalPositions(terms.length), null);
   }
 
   /**
@@ -237,7 +257,7 @@ public class PhraseQuery extends Query {
    * @see #getSlop()
    */
   public PhraseQuery(int slop, String field, BytesRef... terms) {
-    this(slop, toTerms(field, terms), incrementalPositions(terms.length));
+    this(slop, toTerms(field, terms), incrementalPositions(terms.length), null);
   }
 
   /**
@@ -283,6 +303,23 @@ public class PhraseQuery extends Query {
     return positions;
   }
 
+  /**
+   * Return the field that holds shingles of the field of this phrase, or null if no such field
+   * was configured.
+   *
+   * <p>Every document that has a value for the field of this phrase must have a value for the
+   * shingle field, made of every pair of tokens at consecutive positions of the field, separated
+   * with {@link #SHINGLE_SEPARATOR}, for instance with a ShingleFilter that produces shingles of
+   * two tokens. The shingle field must be indexed with frequencies. Exact phrase queries then
+   * only decode the positions of documents that contain the shingles of the phrase, and use the
+   * frequencies of these shingles as upper bounds of the phrase frequency, which helps skip
+   * non-competitive blocks of documents when running phrase queries on common terms. Segments
+   * that have no shingle field are searched as if no shingle field was configured.
+   */
+  public String getShingleField() {
+    return shingleField;
+  }
+
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
     if (terms.length == 0) {
@@ -294,7 +331,7 @@ public class PhraseQuery extends Query {
       for (int i = 0; i < positions.length; ++i) {
         newPositions[i] = positions[i] - positions[0];
       }
-      return new PhraseQuery(slop, terms, newPositions);
+      return new PhraseQuery(slop, terms, newPositions, shingleField);
     } else {
       return super.rewrite(reader);
     }
@@ -529,12 +566,55 @@ public class PhraseQuery extends Query {
         // sort by increasing docFreq order
         if (slop == 0) {
           ArrayUtil.timSort(postingsFreqs);
-          return new ExactPhraseMatcher(postingsFreqs, scoreMode, scorer, totalMatchCost);
+          final ImpactsEnum[] shingles = getShingles(reader);
+          if (shingles == null) {
+            return null;
+          }
+          return new ExactPhraseMatcher(postingsFreqs, shingles, scoreMode, scorer, totalMatchCost);
         } else {
           return new SloppyPhraseMatcher(
               postingsFreqs, slop, scoreMode, scorer, totalMatchCost, exposeOffsets);
         }
       }
+
+      /**
+       * Returns the postings of the shingles of consecutive terms of the phrase, or null if the
+       * phrase cannot match because one of its shingles does not exist in the segment.
+       */
+      private ImpactsEnum[] getShingles(LeafReader reader) throws IOException {
+        final Terms shingleTerms = shingleField == null ? null : reader.terms(shingleField);
+        if (shingleTerms == null) {
+          return new ImpactsEnum[0];
+        }
+        if (shingleTerms.hasFreqs() == false) {
+          throw new IllegalStateException(
+              "shingle field \""
+                  + shingleField
+                  + "\" was indexed without frequencies; cannot run PhraseQuery (phrase="
+                  + getQuery()
+                  + ")");
+        }
+        final TermsEnum te = shingleTerms.iterator();
+        final BytesRefBuilder shingle = new BytesRefBuilder();
+        final List<ImpactsEnum> shingles = new ArrayList<>();
+        for (int i = 1; i < terms.length; ++i) {
+          if (positions[i] != positions[i - 1] + 1) {
+            continue;
+          }
+          shingle.copyBytes(terms[i - 1].bytes());
+          shingle.append(SHINGLE_SEPARATOR);
+          shingle.append(terms[i].bytes());
+          if (te.seekExact(shingle.get()) == false) {
+            return null;
+          }
+          if (scoreMode == ScoreMode.TOP_SCORES) {
+            shingles.add(te.impacts(PostingsEnum.FREQS));
+          } else {
+            shingles.add(new SlowImpactsEnum(te.postings(null, PostingsEnum.FREQS)));
+          }
+        }
+        return shingles.toArray(new ImpactsEnum[0]);
+      }
     };
   }
 
@@ -600,7 +680,8 @@ public class PhraseQuery extends Query {
   private boolean equalsTo(PhraseQuery other) {
     return slop == other.slop
         && Arrays.equals(terms, other.terms)
-        && Arrays.equals(positions, other.positions);
+        && Arrays.equals(positions, other.positions)
+        && Objects.equals(shingleField, other.shingleField);
   }
 
   /** Returns a hash code value for this object. */
@@ -610,6 +691,7 @@ public class PhraseQuery extends Query {
     h = 31 * h + slop;
     h = 31 * h + Arrays.hashCode(terms);
     h = 31 * h + Arrays.hashCode(positions);
+    h = 31 * h + Objects.hashCode(shingleField);
     return h;
   }
 }
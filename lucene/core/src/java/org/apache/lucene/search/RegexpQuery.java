@@ -16,6 +16,7 @@
  */
 package org.apache.lucene.search;
 
+import java.util.List;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.util.automaton.Automaton;
 import org.apache.lucene.util.automaton.AutomatonProvider;
@@ -133,8 +134,13 @@ public class RegexpQuery extends AutomatonQuery {
       int maxDeterminizedStates) {
     super(
         term,
-        new RegExp(term.text(), syntax_flags, match_flags)
-            .toAutomaton(provider, maxDeterminizedStates),
+        // named automata of custom providers could change, only cache without them
+        provider == defaultProvider
+            ? List.of("regexp", term.text(), syntax_flags, match_flags, maxDeterminizedStates)
+            : null,
+        () ->
+            new RegExp(term.text(), syntax_flags, match_flags)
+                .toAutomaton(provider, maxDeterminizedStates),
         maxDeterminizedStates);
   }
 
@@ -38,7 +38,9 @@ import org.apache.lucene.util.NumericUtils;
  *
  * <p>Sorting on a numeric field that is indexed with both doc values and points may use an
  * optimization to skip non-competitive documents. This optimization relies on the assumption that
- * the same data is stored in these points and doc values.
+ * the same data is stored in these points and doc values. Sorting on a {@link Type#STRING} field
+ * can similarly only visit the postings of competitive terms, see {@link
+ * #setOptimizeSortWithTerms}.
  *
  * <p>Created: Feb 11, 2004 1:25:29 PM
  *
@@ -126,6 +128,9 @@ public class SortField {
   // Used for 'sortMissingFirst/Last'
   protected Object missingValue = null;
 
+  // Used for STRING sort: whether postings can be used to skip non-competitive documents
+  private boolean optimizeSortWithTerms = false;
+
   /**
    * Creates a sort by terms in the given field with the type of term values explicitly given.
    *
@@ -273,6 +278,23 @@ public class SortField {
     return missingValue;
   }
 
+  /**
+   * Enables skipping non-competitive documents of a primary {@link Type#STRING} sort by only
+   * visiting the postings of competitive terms, on segments where the field is also indexed. This
+   * is only correct if the indexed terms of every document are exactly its sorted doc value, as with
+   * a {@link org.apache.lucene.document.StringField} and a {@link
+   * org.apache.lucene.document.SortedDocValuesField} holding the same value. It must not be enabled
+   * for analyzed text. Disabled by default.
+   */
+  public void setOptimizeSortWithTerms(boolean optimizeSortWithTerms) {
+    this.optimizeSortWithTerms = optimizeSortWithTerms;
+  }
+
+  /** Returns whether sorting may skip non-competitive documents based on the indexed terms. */
+  public boolean getOptimizeSortWithTerms() {
+    return optimizeSortWithTerms;
+  }
+
   /** Set the value to use for documents that don't have a value. */
   public void setMissingValue(Object missingValue) {
     if (type == Type.STRING || type == Type.STRING_VAL) {
@@ -510,7 +532,11 @@ public class SortField {
 
       case STRING:
         return new FieldComparator.TermOrdValComparator(
-            numHits, field, missingValue == STRING_LAST);
+            numHits,
+            field,
+            missingValue == STRING_LAST,
+            reverse,
+            optimizeSortWithTerms && sortPos == 0);
 
       case STRING_VAL:
         return new FieldComparator.TermValComparator(numHits, field, missingValue == STRING_LAST);
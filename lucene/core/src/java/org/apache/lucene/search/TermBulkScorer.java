@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.util.Bits;
+
+/**
+ * {@link BulkScorer} for a single term that scores documents by batches: doc IDs and term
+ * frequencies are loaded with {@link PostingsEnum#nextPostings}, which copies entire decoded blocks
+ * of postings for most codecs, and then scored at once with {@link LeafSimScorer#score(int[],
+ * float[], int, float[])}, which can run a loop that the JVM vectorizes.
+ */
+final class TermBulkScorer extends BulkScorer {
+
+  private static final int BATCH_SIZE = 128;
+
+  private final PostingsEnum postingsEnum;
+  private final LeafSimScorer docScorer;
+  private final int[] docs = new int[BATCH_SIZE];
+  private final int[] freqs = new int[BATCH_SIZE];
+  private final float[] freqBuffer = new float[BATCH_SIZE];
+  private final float[] scores = new float[BATCH_SIZE];
+  private final ScoreAndDoc scorable = new ScoreAndDoc();
+
+  TermBulkScorer(PostingsEnum postingsEnum, LeafSimScorer docScorer) {
+    this.postingsEnum = postingsEnum;
+    this.docScorer = docScorer;
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    collector.setScorer(scorable);
+    final DocIdSetIterator competitiveIterator = collector.competitiveIterator();
+    int doc = postingsEnum.docID();
+    if (doc < min) {
+      doc = postingsEnum.advance(min);
+    }
+    while (doc < max) {
+      if (competitiveIterator != null) {
+        int competitiveDoc = competitiveIterator.docID();
+        if (competitiveDoc < doc) {
+          competitiveDoc = competitiveIterator.advance(doc);
+        }
+        if (competitiveDoc > doc) {
+          // skip documents that the collector considers non-competitive
+          doc = postingsEnum.advance(competitiveDoc);
+          continue;
+        }
+      }
+
+      final int size = postingsEnum.nextPostings(max, docs, freqs);
+      int numDocs = 0;
+      for (int i = 0; i < size; ++i) {
+        if (acceptDocs == null || acceptDocs.get(docs[i])) {
+          docs[numDocs] = docs[i];
+          freqBuffer[numDocs] = freqs[i];
+          ++numDocs;
+        }
+      }
+      docScorer.score(docs, freqBuffer, numDocs, scores);
+
+      for (int i = 0; i < numDocs; ++i) {
+        final int d = docs[i];
+        if (competitiveIterator != null) {
+          // the collector may have made more documents non-competitive since the batch was loaded
+          if (competitiveIterator.docID() < d) {
+            competitiveIterator.advance(d);
+          }
+          if (competitiveIterator.docID() != d) {
+            continue;
+          }
+        }
+        scorable.doc = d;
+        scorable.score = scores[i];
+        collector.collect(d);
+      }
+      doc = postingsEnum.docID();
+    }
+    return doc;
+  }
+
+  @Override
+  public long cost() {
+    return postingsEnum.cost();
+  }
+}
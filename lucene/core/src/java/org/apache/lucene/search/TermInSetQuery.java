@@ -69,6 +69,15 @@ import org.apache.lucene.util.automaton.Operations;
  * are many terms, instead of merging iterators on the fly, it will populate a bit set with matching
  * docs and return a {@link Scorer} over this bit set.
  *
+ * <p>This query only reads postings. When it is intersected with a much more selective query, it
+ * can be faster to verify the terms of candidate documents against their doc values, by wrapping
+ * it in an {@link IndexOrDocValuesQuery} alongside {@link
+ * org.apache.lucene.document.SortedSetDocValuesField#newSlowSetQuery}. This is only correct when
+ * the doc values of every document are exactly its indexed terms, as with a {@link
+ * org.apache.lucene.document.StringField} and a {@link
+ * org.apache.lucene.document.SortedSetDocValuesField} holding the same values, but not for
+ * analyzed text.
+ *
  * <p>NOTE: This query produces scores that are equal to its boost
  */
 public class TermInSetQuery extends Query implements Accountable {
@@ -200,6 +209,22 @@ public class TermInSetQuery extends Query implements Accountable {
     return Collections.emptyList();
   }
 
+  /**
+   * Estimate the number of matches of this query on the given terms, without seeking the terms of
+   * this query: each term of the index matches at least one document, so the query terms can't
+   * match more than the sum of the doc freqs minus the number of other indexed terms.
+   */
+  private long estimateCost(Terms terms) throws IOException {
+    final long docCount = terms.getDocCount();
+    final long sumDocFreq = terms.getSumDocFreq();
+    final long numTerms = terms.size();
+    if (docCount == -1 || sumDocFreq == -1 || numTerms == -1) {
+      return docCount == -1 ? Long.MAX_VALUE : docCount;
+    }
+    final long maxMatches = sumDocFreq - Math.max(0, numTerms - termData.size());
+    return Math.min(docCount, maxMatches);
+  }
+
   private static class TermAndState {
     final String field;
     final TermsEnum termsEnum;
@@ -324,6 +349,35 @@ public class TermInSetQuery extends Query implements Accountable {
         return new ConstantScoreScorer(this, score(), scoreMode, disi);
       }
 
+      @Override
+      public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+        final LeafReader reader = context.reader();
+        final Terms terms = reader.terms(field);
+        if (terms == null) {
+          return null;
+        }
+        // the cost is estimated without seeking terms, so that IndexOrDocValuesQuery can pick doc
+        // values before any postings are read
+        final long cost = estimateCost(terms);
+        final Weight weight = this;
+        return new ScorerSupplier() {
+          @Override
+          public Scorer get(long leadCost) throws IOException {
+            final Scorer scorer = scorer(context);
+            if (scorer == null) {
+              // none of the terms exist in this segment, but a ScorerSupplier may not return null
+              return new ConstantScoreScorer(weight, score(), scoreMode, DocIdSetIterator.empty());
+            }
+            return scorer;
+          }
+
+          @Override
+          public long cost() {
+            return cost;
+          }
+        };
+      }
+
       @Override
       public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
         final WeightOrDocIdSet weightOrBitSet = rewrite(context);
@@ -121,6 +121,20 @@ public class TermQuery extends Query {
       }
     }
 
+    @Override
+    public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+      if (scoreMode != ScoreMode.COMPLETE) {
+        return super.bulkScorer(context);
+      }
+      final TermsEnum termsEnum = getTermsEnum(context);
+      if (termsEnum == null) {
+        return null;
+      }
+      // all matches need to be scored, so score them by batches
+      LeafSimScorer scorer = new LeafSimScorer(simScorer, context.reader(), term.field(), true);
+      return new TermBulkScorer(termsEnum.postings(null, PostingsEnum.FREQS), scorer);
+    }
+
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
       return true;
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.BottomValueAccumulator.BottomValue;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
 import org.apache.lucene.search.MaxScoreAccumulator.DocAndScore;
 import org.apache.lucene.search.TotalHits.Relation;
@@ -47,6 +48,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
 
     final LeafFieldComparator comparator;
     final int reverseMul;
+    final IndexSortRunIterator runIterator;
     Scorable scorer;
     boolean collectedAllCompetitiveHits = false;
 
@@ -57,10 +59,18 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       if (searchSortPartOfIndexSort == null) {
         final Sort indexSort = context.reader().getMetaData().getSort();
         searchSortPartOfIndexSort = canEarlyTerminate(sort, indexSort);
+        if (searchSortPartOfIndexSort == false) {
+          indexSortLeadingFields = getIndexSortLeadingFields(sort, indexSort);
+        }
         if (searchSortPartOfIndexSort) {
           firstComparator.disableSkipping();
         }
       }
+      if (indexSortLeadingFields != null) {
+        runIterator = new IndexSortRunIterator(indexSortLeadingFields, context);
+      } else {
+        runIterator = null;
+      }
       LeafFieldComparator[] comparators = queue.getComparators(context);
       int[] reverseMuls = queue.getReverseMul();
       if (comparators.length == 1) {
@@ -79,6 +89,9 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       if (minScoreAcc != null && (totalHits & minScoreAcc.modInterval) == 0) {
         updateGlobalMinCompetitiveScore(scorer);
       }
+      if (bottomValueAcc != null && (totalHits & bottomValueAcc.modInterval) == 0) {
+        updateGlobalBottomValue();
+      }
       if (scoreMode.isExhaustive() == false
           && totalHitsRelation == TotalHits.Relation.EQUAL_TO
           && hitsThresholdChecker.isThresholdReached()) {
@@ -100,6 +113,11 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
           } else {
             collectedAllCompetitiveHits = true;
           }
+        } else if (runIterator != null && hitsThresholdChecker.isThresholdReached()) {
+          // the rest of the run of documents that share the values of the leading index sort
+          // fields with this document is sorted after it, and therefore not competitive
+          totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+          runIterator.skipRestOfRun(doc);
         } else if (totalHitsRelation == TotalHits.Relation.EQUAL_TO) {
           // we can start setting the min competitive score if the
           // threshold is reached for the first time here.
@@ -127,12 +145,18 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       if (queueFull) {
         comparator.setBottom(bottom.slot);
         updateMinCompetitiveScore(scorer);
+        if (bottomValueAcc != null) {
+          updateGlobalBottomValue();
+        }
       }
     }
 
     @Override
     public void setScorer(Scorable scorer) throws IOException {
       this.scorer = scorer;
+      if (bottomValueAcc != null) {
+        updateGlobalBottomValue();
+      }
       comparator.setScorer(scorer);
       minCompetitiveScore = 0f;
       updateMinCompetitiveScore(scorer);
@@ -143,7 +167,15 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
 
     @Override
     public DocIdSetIterator competitiveIterator() throws IOException {
-      return comparator.competitiveIterator();
+      DocIdSetIterator comparatorIterator = comparator.competitiveIterator();
+      if (runIterator == null) {
+        return comparatorIterator;
+      } else if (comparatorIterator == null) {
+        return runIterator;
+      }
+      // the comparator skips whole segments or ranges of values that are not competitive based on
+      // points, runs are skipped based on the index sort
+      return ConjunctionDISI.intersectIterators(Arrays.asList(runIterator, comparatorIterator));
     }
   }
 
@@ -170,6 +202,26 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
   }
 
+  /**
+   * Returns the leading fields of the index sort if the rest of the index sort starts with the
+   * search sort, or null otherwise. For instance if the index is sorted by tenant and timestamp,
+   * segments consist of runs of documents of the same tenant that are sorted by timestamp, which
+   * allows skipping the rest of a run when sorting by timestamp.
+   */
+  static SortField[] getIndexSortLeadingFields(Sort searchSort, Sort indexSort) {
+    if (indexSort == null) {
+      return null;
+    }
+    final List<SortField> searchFields = Arrays.asList(searchSort.getSort());
+    final List<SortField> indexFields = Arrays.asList(indexSort.getSort());
+    for (int i = 1; i + searchFields.size() <= indexFields.size(); ++i) {
+      if (indexFields.subList(i, i + searchFields.size()).equals(searchFields)) {
+        return indexFields.subList(0, i).toArray(new SortField[0]);
+      }
+    }
+    return null;
+  }
+
   /*
    * Implements a TopFieldCollector over one SortField criteria, with tracking
    * document scores and maxScore.
@@ -183,8 +235,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         FieldValueHitQueue<Entry> queue,
         int numHits,
         HitsThresholdChecker hitsThresholdChecker,
-        MaxScoreAccumulator minScoreAcc) {
-      super(queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc);
+        MaxScoreAccumulator minScoreAcc,
+        BottomValueAccumulator bottomValueAcc) {
+      super(
+          queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc, bottomValueAcc);
       this.sort = sort;
       this.queue = queue;
     }
@@ -227,8 +281,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         FieldDoc after,
         int numHits,
         HitsThresholdChecker hitsThresholdChecker,
-        MaxScoreAccumulator minScoreAcc) {
-      super(queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc);
+        MaxScoreAccumulator minScoreAcc,
+        BottomValueAccumulator bottomValueAcc) {
+      super(
+          queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc, bottomValueAcc);
       this.sort = sort;
       this.queue = queue;
       this.after = after;
@@ -286,12 +342,20 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   final boolean canSetMinScore;
 
   Boolean searchSortPartOfIndexSort = null; // shows if Search Sort if a part of the Index Sort
+  // the leading fields of the index sort, if the search sort follows them in the index sort
+  SortField[] indexSortLeadingFields = null;
 
   // an accumulator that maintains the maximum of the segment's minimum competitive scores
   final MaxScoreAccumulator minScoreAcc;
   // the current local minimum competitive score already propagated to the underlying scorer
   float minCompetitiveScore;
 
+  // an accumulator that maintains the most competitive of the collectors' bottom values, when the
+  // primary sort is not by relevance
+  final BottomValueAccumulator bottomValueAcc;
+  // the global bottom value already propagated to the first comparator
+  BottomValue globalBottom;
+
   final int numComparators;
   FieldValueHitQueue.Entry bottom = null;
   boolean queueFull;
@@ -309,7 +373,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       int numHits,
       HitsThresholdChecker hitsThresholdChecker,
       boolean needsScores,
-      MaxScoreAccumulator minScoreAcc) {
+      MaxScoreAccumulator minScoreAcc,
+      BottomValueAccumulator bottomValueAcc) {
     super(pq);
     this.needsScores = needsScores;
     this.numHits = numHits;
@@ -332,6 +397,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       }
     }
     this.minScoreAcc = minScoreAcc;
+    // relevance is already shared through minScoreAcc
+    this.bottomValueAcc = canSetMinScore ? null : bottomValueAcc;
   }
 
   @Override
@@ -354,6 +421,20 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
   }
 
+  void updateGlobalBottomValue() {
+    assert bottomValueAcc != null;
+    if (queueFull) {
+      bottomValueAcc.accumulate(firstComparator, firstComparator.value(bottom.slot));
+    }
+    BottomValue maxBottom = bottomValueAcc.get();
+    if (maxBottom != null && maxBottom != globalBottom) {
+      globalBottom = maxBottom;
+      @SuppressWarnings("unchecked")
+      FieldComparator<Object> comparator = (FieldComparator<Object>) firstComparator;
+      comparator.setGlobalBottomValue(maxBottom.value);
+    }
+  }
+
   protected void updateMinCompetitiveScore(Scorable scorer) throws IOException {
     if (canSetMinScore && queueFull && hitsThresholdChecker.isThresholdReached()) {
       assert bottom != null;
@@ -420,19 +501,21 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         numHits,
         after,
         HitsThresholdChecker.create(Math.max(totalHitsThreshold, numHits)),
-        null /* bottomValueChecker */);
+        null /* minScoreAcc */,
+        null /* bottomValueAcc */);
   }
 
   /**
-   * Same as above with additional parameters to allow passing in the threshold checker and the max
-   * score accumulator.
+   * Same as above with additional parameters to allow passing in the threshold checker, the max
+   * score accumulator and the bottom value accumulator.
    */
   static TopFieldCollector create(
       Sort sort,
       int numHits,
       FieldDoc after,
       HitsThresholdChecker hitsThresholdChecker,
-      MaxScoreAccumulator minScoreAcc) {
+      MaxScoreAccumulator minScoreAcc,
+      BottomValueAccumulator bottomValueAcc) {
 
     if (sort.fields.length == 0) {
       throw new IllegalArgumentException("Sort must contain at least one field");
@@ -450,7 +533,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.fields, numHits);
 
     if (after == null) {
-      return new SimpleFieldCollector(sort, queue, numHits, hitsThresholdChecker, minScoreAcc);
+      return new SimpleFieldCollector(
+          sort, queue, numHits, hitsThresholdChecker, minScoreAcc, bottomValueAcc);
     } else {
       if (after.fields == null) {
         throw new IllegalArgumentException(
@@ -466,14 +550,15 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       }
 
       return new PagingFieldCollector(
-          sort, queue, after, numHits, hitsThresholdChecker, minScoreAcc);
+          sort, queue, after, numHits, hitsThresholdChecker, minScoreAcc, bottomValueAcc);
     }
   }
 
   /**
    * Create a CollectorManager which uses a shared hit counter to maintain number of hits and a
    * shared {@link MaxScoreAccumulator} to propagate the minimum score accross segments if the
-   * primary sort is by relevancy.
+   * primary sort is by relevancy, or a shared {@link BottomValueAccumulator} to propagate the
+   * bottom value of the primary sort otherwise.
    */
   public static CollectorManager<TopFieldCollector, TopFieldDocs> createSharedManager(
       Sort sort, int numHits, FieldDoc after, int totalHitsThreshold) {
@@ -482,10 +567,12 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       private final HitsThresholdChecker hitsThresholdChecker =
           HitsThresholdChecker.createShared(Math.max(totalHitsThreshold, numHits));
       private final MaxScoreAccumulator minScoreAcc = new MaxScoreAccumulator();
+      private final BottomValueAccumulator bottomValueAcc =
+          new BottomValueAccumulator(sort.getSort()[0].getReverse() ? -1 : 1);
 
       @Override
       public TopFieldCollector newCollector() throws IOException {
-        return create(sort, numHits, after, hitsThresholdChecker, minScoreAcc);
+        return create(sort, numHits, after, hitsThresholdChecker, minScoreAcc, bottomValueAcc);
       }
 
       @Override
@@ -47,7 +47,7 @@ public class WildcardQuery extends AutomatonQuery {
 
   /** Constructs a query for terms matching <code>term</code>. */
   public WildcardQuery(Term term) {
-    super(term, toAutomaton(term));
+    this(term, Operations.DEFAULT_MAX_DETERMINIZED_STATES);
   }
 
   /**
@@ -58,7 +58,11 @@ public class WildcardQuery extends AutomatonQuery {
    *     Higher number require more space but can process more complex automata.
    */
   public WildcardQuery(Term term, int maxDeterminizedStates) {
-    super(term, toAutomaton(term), maxDeterminizedStates);
+    super(
+        term,
+        List.of("wildcard", term.text(), maxDeterminizedStates),
+        () -> toAutomaton(term),
+        maxDeterminizedStates);
   }
 
   /**
@@ -110,5 +110,10 @@ public class DoubleComparator extends NumericComparator<Double> {
     protected void encodeTop(byte[] packedValue) {
       DoublePoint.encodeDimension(topValue, packedValue, 0);
     }
+
+    @Override
+    protected void encodeValue(Double value, byte[] packedValue) {
+      DoublePoint.encodeDimension(value, packedValue, 0);
+    }
   }
 }
@@ -110,5 +110,10 @@ public class FloatComparator extends NumericComparator<Float> {
     protected void encodeTop(byte[] packedValue) {
       FloatPoint.encodeDimension(topValue, packedValue, 0);
     }
+
+    @Override
+    protected void encodeValue(Float value, byte[] packedValue) {
+      FloatPoint.encodeDimension(value, packedValue, 0);
+    }
   }
 }
@@ -112,5 +112,10 @@ public class IntComparator extends NumericComparator<Integer> {
     protected void encodeTop(byte[] packedValue) {
       IntPoint.encodeDimension(topValue, packedValue, 0);
     }
+
+    @Override
+    protected void encodeValue(Integer value, byte[] packedValue) {
+      IntPoint.encodeDimension(value, packedValue, 0);
+    }
   }
 }
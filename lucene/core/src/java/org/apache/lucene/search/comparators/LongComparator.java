@@ -112,5 +112,10 @@ public class LongComparator extends NumericComparator<Long> {
     protected void encodeTop(byte[] packedValue) {
       LongPoint.encodeDimension(topValue, packedValue, 0);
     }
+
+    @Override
+    protected void encodeValue(Long value, byte[] packedValue) {
+      LongPoint.encodeDimension(value, packedValue, 0);
+    }
   }
 }
@@ -45,6 +45,8 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
   protected boolean hitsThresholdReached;
   protected boolean queueFull;
   private boolean canSkipDocuments;
+  // the bottom value of other collectors of the same search, null if unknown
+  private T globalBottom;
 
   protected NumericComparator(
       String field, T missingValue, boolean reverse, int sortPos, int bytesCount) {
@@ -71,6 +73,11 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     canSkipDocuments = false;
   }
 
+  @Override
+  public void setGlobalBottomValue(T value) {
+    globalBottom = value;
+  }
+
   /** Leaf comparator for {@link NumericComparator} that provides skipping functionality */
   public abstract class NumericLeafComparator implements LeafFieldComparator {
     protected final NumericDocValues docValues;
@@ -80,10 +87,12 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     private final int maxDoc;
     private final byte[] minValueAsBytes;
     private final byte[] maxValueAsBytes;
+    private final byte[] globalBottomAsBytes;
+    private final byte[] missingValueAsBytes;
 
     private DocIdSetIterator competitiveIterator;
     private long iteratorCost;
-    private int maxDocVisited = 0;
+    private int maxDocVisited = -1;
     private int updateCounter = 0;
 
     public NumericLeafComparator(LeafReaderContext context) throws IOException {
@@ -96,6 +105,8 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
             reverse == false ? new byte[bytesCount] : topValueSet ? new byte[bytesCount] : null;
         this.minValueAsBytes =
             reverse ? new byte[bytesCount] : topValueSet ? new byte[bytesCount] : null;
+        this.globalBottomAsBytes = new byte[bytesCount];
+        this.missingValueAsBytes = new byte[bytesCount];
         this.competitiveIterator = DocIdSetIterator.all(maxDoc);
         this.iteratorCost = maxDoc;
       } else {
@@ -103,6 +114,8 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
         this.maxDoc = 0;
         this.maxValueAsBytes = null;
         this.minValueAsBytes = null;
+        this.globalBottomAsBytes = null;
+        this.missingValueAsBytes = null;
       }
     }
 
@@ -141,10 +154,41 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     // update its iterator to include possibly only docs that are "stronger" than the current bottom
     // entry
     private void updateCompetitiveIterator() throws IOException {
-      if (enableSkipping == false || hitsThresholdReached == false || queueFull == false) return;
+      if (enableSkipping == false
+          || hitsThresholdReached == false
+          || (queueFull == false && globalBottom == null)) return;
+
+      // the bottom is the most competitive of the local bottom and the global bottom
+      final byte[] bottomAsBytes = reverse ? minValueAsBytes : maxValueAsBytes;
+      boolean useGlobalBottom = false;
+      if (globalBottom != null) {
+        encodeValue(globalBottom, globalBottomAsBytes);
+        if (queueFull) {
+          encodeBottom(bottomAsBytes);
+          int cmp =
+              Arrays.compareUnsigned(
+                  globalBottomAsBytes, 0, bytesCount, bottomAsBytes, 0, bytesCount);
+          useGlobalBottom = reverse ? cmp > 0 : cmp < 0;
+        } else {
+          useGlobalBottom = true;
+        }
+      }
+
       // if some documents have missing points, check that missing values prohibits optimization
-      if ((pointValues.getDocCount() < maxDoc) && isMissingValueCompetitive()) {
-        return; // we can't filter out documents, as documents with missing values are competitive
+      if (pointValues.getDocCount() < maxDoc) {
+        final boolean missingValueCompetitive;
+        if (useGlobalBottom) {
+          encodeValue(missingValue, missingValueAsBytes);
+          int cmp =
+              Arrays.compareUnsigned(
+                  missingValueAsBytes, 0, bytesCount, globalBottomAsBytes, 0, bytesCount);
+          missingValueCompetitive = reverse ? cmp >= 0 : cmp <= 0;
+        } else {
+          missingValueCompetitive = isMissingValueCompetitive();
+        }
+        if (missingValueCompetitive) {
+          return; // we can't filter out documents, as documents with missing values are competitive
+        }
       }
 
       updateCounter++;
@@ -152,17 +196,20 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
           && (updateCounter & 0x1f) != 0x1f) { // Start sampling if we get called too much
         return;
       }
-      if (reverse == false) {
-        encodeBottom(maxValueAsBytes);
-        if (topValueSet) {
-          encodeTop(minValueAsBytes);
-        }
+      if (useGlobalBottom) {
+        System.arraycopy(globalBottomAsBytes, 0, bottomAsBytes, 0, bytesCount);
       } else {
-        encodeBottom(minValueAsBytes);
-        if (topValueSet) {
-          encodeTop(maxValueAsBytes);
-        }
+        encodeBottom(bottomAsBytes);
+      }
+      if (topValueSet) {
+        encodeTop(reverse ? maxValueAsBytes : minValueAsBytes);
       }
+      // docs that are equal to the local bottom are not competitive for a single sort since docs
+      // are visited in order, but docs that are equal to the global bottom may have lower doc IDs,
+      // and docs that are equal to the top may have greater doc IDs than the top doc
+      final boolean excludeEqualBottom = singleSort && useGlobalBottom == false;
+      final boolean excludeEqualMax = reverse ? false : excludeEqualBottom;
+      final boolean excludeEqualMin = reverse ? excludeEqualBottom : false;
 
       DocIdSetBuilder result = new DocIdSetBuilder(maxDoc);
       PointValues.IntersectVisitor visitor =
@@ -191,17 +238,17 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
                 int cmp =
                     Arrays.compareUnsigned(
                         packedValue, 0, bytesCount, maxValueAsBytes, 0, bytesCount);
-                // if doc's value is too high or for single sort even equal, it is not competitive
-                // and the doc can be skipped
-                if (cmp > 0 || (singleSort && cmp == 0)) return;
+                // if doc's value is too high or for single sort even equal to the bottom, it is not
+                // competitive and the doc can be skipped
+                if (cmp > 0 || (excludeEqualMax && cmp == 0)) return;
               }
               if (minValueAsBytes != null) {
                 int cmp =
                     Arrays.compareUnsigned(
                         packedValue, 0, bytesCount, minValueAsBytes, 0, bytesCount);
-                // if doc's value is too low or for single sort even equal, it is not competitive
-                // and the doc can be skipped
-                if (cmp < 0 || (singleSort && cmp == 0)) return;
+                // if doc's value is too low or for single sort even equal to the bottom, it is not
+                // competitive and the doc can be skipped
+                if (cmp < 0 || (excludeEqualMin && cmp == 0)) return;
               }
               adder.add(docID); // doc is competitive
             }
@@ -212,14 +259,14 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
                 int cmp =
                     Arrays.compareUnsigned(
                         minPackedValue, 0, bytesCount, maxValueAsBytes, 0, bytesCount);
-                if (cmp > 0 || (singleSort && cmp == 0))
+                if (cmp > 0 || (excludeEqualMax && cmp == 0))
                   return PointValues.Relation.CELL_OUTSIDE_QUERY;
               }
               if (minValueAsBytes != null) {
                 int cmp =
                     Arrays.compareUnsigned(
                         maxPackedValue, 0, bytesCount, minValueAsBytes, 0, bytesCount);
-                if (cmp < 0 || (singleSort && cmp == 0))
+                if (cmp < 0 || (excludeEqualMin && cmp == 0))
                   return PointValues.Relation.CELL_OUTSIDE_QUERY;
               }
               if ((maxValueAsBytes != null
@@ -281,5 +328,8 @@ public abstract class NumericComparator<T extends Number> extends FieldComparato
     protected abstract void encodeBottom(byte[] packedValue);
 
     protected abstract void encodeTop(byte[] packedValue);
+
+    /** Encodes the given value the same way as points of this field. */
+    protected abstract void encodeValue(T value, byte[] packedValue);
   }
 }
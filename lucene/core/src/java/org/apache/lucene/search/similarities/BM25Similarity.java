@@ -257,6 +257,18 @@ public class BM25Similarity extends Similarity {
       return weight - weight / (1f + freq * normInverse);
     }
 
+    @Override
+    public void score(float[] freqs, long[] norms, int size, float[] scores) {
+      // Look up all norms first so that the second loop, which computes the same expression as
+      // score(float, long), only performs arithmetic on arrays and can be vectorized by the JIT.
+      for (int i = 0; i < size; ++i) {
+        scores[i] = cache[((byte) norms[i]) & 0xFF];
+      }
+      for (int i = 0; i < size; ++i) {
+        scores[i] = weight - weight / (1f + freqs[i] * scores[i]);
+      }
+    }
+
     @Override
     public Explanation explain(Explanation freq, long encodedNorm) {
       List<Explanation> subs = new ArrayList<>(explainConstantFactors());
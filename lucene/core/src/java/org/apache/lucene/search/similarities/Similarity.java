@@ -160,6 +160,25 @@ public abstract class Similarity {
      */
     public abstract float score(float freq, long norm);
 
+    /**
+     * Score {@code size} documents at once: {@code scores[i]} is set to the score of a document
+     * whose sloppy term frequency is {@code freqs[i]} and whose encoded normalization factor is
+     * {@code norms[i]}. The result must be the same as calling {@link #score(float, long)} for
+     * every document. The default implementation does exactly that, but implementations may
+     * override it with loops that the JVM can better optimize.
+     *
+     * @param freqs sloppy term frequencies
+     * @param norms encoded normalization factors
+     * @param size number of documents to score
+     * @param scores array that receives the scores of the documents
+     * @lucene.experimental
+     */
+    public void score(float[] freqs, long[] norms, int size, float[] scores) {
+      for (int i = 0; i < size; ++i) {
+        scores[i] = score(freqs[i], norms[i]);
+      }
+    }
+
     /**
      * Explain the score for a single document
      *
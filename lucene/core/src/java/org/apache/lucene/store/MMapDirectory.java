@@ -34,6 +34,7 @@ import java.security.PrivilegedAction;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
 import org.apache.lucene.store.ByteBufferGuard.BufferCleaner;
 import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.SuppressForbidden;
@@ -80,7 +81,29 @@ import org.apache.lucene.util.SuppressForbidden;
  */
 public class MMapDirectory extends FSDirectory {
   private boolean useUnmapHack = UNMAP_SUPPORTED;
-  private boolean preload;
+  private BiPredicate<String, IOContext> preload = NO_FILES;
+
+  /**
+   * Argument for {@link #setPreload(BiPredicate)} that configures all files to be preloaded upon
+   * opening them.
+   */
+  public static final BiPredicate<String, IOContext> ALL_FILES = (filename, context) -> true;
+
+  /**
+   * Argument for {@link #setPreload(BiPredicate)} that configures no files to be preloaded upon
+   * opening them.
+   */
+  public static final BiPredicate<String, IOContext> NO_FILES = (filename, context) -> false;
+
+  /**
+   * Argument for {@link #setPreload(BiPredicate)} that preloads files opened for searching, but
+   * never files that are opened for merging or only read once (e.g. segment metadata or files that
+   * are checksummed on open). Merges read their inputs sequentially exactly once, so loading them
+   * into physical memory would only evict pages that searches still need.
+   */
+  public static final BiPredicate<String, IOContext> ALL_FILES_EXCEPT_MERGE_AND_READONCE =
+      (filename, context) ->
+          context.context != IOContext.Context.MERGE && context.readOnce == false;
 
   /**
    * Default max chunk size.
@@ -200,18 +223,47 @@ public class MMapDirectory extends FSDirectory {
    * Set to {@code true} to ask mapped pages to be loaded into physical memory on init. The behavior
    * is best-effort and operating system dependent.
    *
+   * <p>This is a shortcut for {@code setPreload(preload ? ALL_FILES : NO_FILES)}.
+   *
    * @see MappedByteBuffer#load
+   * @see #setPreload(BiPredicate)
    */
   public void setPreload(boolean preload) {
-    this.preload = preload;
+    setPreload(preload ? ALL_FILES : NO_FILES);
   }
 
   /**
-   * Returns {@code true} if mapped pages should be loaded.
+   * Configure which files to preload in physical memory upon opening. The predicate is called with
+   * the file name and the {@link IOContext} passed to {@link #openInput(String, IOContext)}, so
+   * preloading can be restricted to e.g. small metadata files or to files that are opened for
+   * searching rather than merging. The behavior is best-effort and operating system dependent.
    *
-   * @see #setPreload
+   * @param preload a {@link BiPredicate} whose first argument is the file name, and second argument
+   *     is the {@link IOContext} used to open the file
+   * @see #ALL_FILES
+   * @see #NO_FILES
+   * @see #ALL_FILES_EXCEPT_MERGE_AND_READONCE
+   * @see MappedByteBuffer#load
+   */
+  public void setPreload(BiPredicate<String, IOContext> preload) {
+    this.preload = Objects.requireNonNull(preload);
+  }
+
+  /**
+   * Returns {@code true} if mapped pages of all files should be loaded.
+   *
+   * @see #setPreload(boolean)
    */
   public boolean getPreload() {
+    return preload == ALL_FILES;
+  }
+
+  /**
+   * Returns the predicate that decides which files are preloaded.
+   *
+   * @see #setPreload(BiPredicate)
+   */
+  public BiPredicate<String, IOContext> getPreloadPredicate() {
     return preload;
   }
 
@@ -233,9 +285,10 @@ public class MMapDirectory extends FSDirectory {
     try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
+      final boolean preload = this.preload.test(name, context);
       return ByteBufferIndexInput.newInstance(
           resourceDescription,
-          map(resourceDescription, c, 0, c.size()),
+          map(resourceDescription, c, 0, c.size(), preload),
           c.size(),
           chunkSizePower,
           new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
@@ -243,7 +296,8 @@ public class MMapDirectory extends FSDirectory {
   }
 
   /** Maps a file into a set of buffers */
-  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length)
+  final ByteBuffer[] map(
+      String resourceDescription, FileChannel fc, long offset, long length, boolean preload)
       throws IOException {
     if ((length >>> chunkSizePower) >= Integer.MAX_VALUE)
       throw new IllegalArgumentException(
@@ -268,7 +268,9 @@ public final class FixedBitSet extends BitSet implements Bits, Accountable {
       final FixedBitSet bits = BitSetIterator.getFixedBitSetOrNull(iter);
       or(bits);
     } else {
-      super.or(iter);
+      checkUnpositioned(iter);
+      iter.nextDoc();
+      iter.intoBitSet(DocIdSetIterator.NO_MORE_DOCS, this, 0);
     }
   }
 
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.automaton;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A bounded, least-recently-used cache of compiled automata. Queries such as {@code RegexpQuery},
+ * {@code WildcardQuery} and {@code FuzzyQuery} need to parse, determinize and compile an automaton
+ * every time they are created, which can take several milliseconds for complex patterns. This
+ * cache allows queries that are built from the same pattern to share the compiled automata.
+ *
+ * <p>The cache is bounded both by a maximum number of entries and by the amount of memory that
+ * its entries use. Values that are larger than the whole memory budget are never cached. Cached
+ * values are shared across threads and must not be modified.
+ *
+ * @lucene.experimental
+ */
+public final class AutomatonCache implements Accountable {
+
+  private static final long BASE_RAM_BYTES =
+      RamUsageEstimator.shallowSizeOfInstance(AutomatonCache.class);
+
+  private static volatile AutomatonCache defaultCache;
+
+  static {
+    final int maxSize = 1000;
+    // min of 16MB or ~1.5% of the heap size
+    final long maxRamBytesUsed = Math.min(1L << 24, Runtime.getRuntime().maxMemory() / 64);
+    defaultCache = new AutomatonCache(maxSize, maxRamBytesUsed);
+  }
+
+  /**
+   * Expert: Get the default {@link AutomatonCache} or {@code null} if caching of automata is
+   * disabled.
+   *
+   * @lucene.internal
+   */
+  public static AutomatonCache getDefaultCache() {
+    return defaultCache;
+  }
+
+  /**
+   * Expert: set the default {@link AutomatonCache} instance, {@code null} disables caching.
+   *
+   * @lucene.internal
+   */
+  public static void setDefaultCache(AutomatonCache cache) {
+    defaultCache = cache;
+  }
+
+  private final int maxSize;
+  private final long maxRamBytesUsed;
+  // access-ordered, so that iteration starts with the least recently used entry
+  private final Map<Object, Entry> cache;
+  private long ramBytesUsed;
+  private long hitCount;
+  private long missCount;
+
+  private static final class Entry {
+    final Accountable value;
+    final long ramBytesUsed;
+
+    Entry(Accountable value, long ramBytesUsed) {
+      this.value = value;
+      this.ramBytesUsed = ramBytesUsed;
+    }
+  }
+
+  /**
+   * Create a new instance that will cache at most <code>maxSize</code> automata with at most
+   * <code>maxRamBytesUsed</code> bytes of memory.
+   */
+  public AutomatonCache(int maxSize, long maxRamBytesUsed) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0, got " + maxSize);
+    }
+    if (maxRamBytesUsed < 0) {
+      throw new IllegalArgumentException("maxRamBytesUsed must be >= 0, got " + maxRamBytesUsed);
+    }
+    this.maxSize = maxSize;
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Return the value that is associated with the given key, computing it with the given supplier
+   * and caching it if it is not cached yet. The key must implement {@link Object#equals} and {@link
+   * Object#hashCode} and capture everything the computed value depends on. Exceptions thrown by
+   * the supplier, such as {@link TooComplexToDeterminizeException}, are propagated and nothing is
+   * cached.
+   *
+   * <p>NOTE: the value is computed outside of the lock, so concurrent calls for the same missing
+   * key may compute the value more than once.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Accountable> T computeIfAbsent(Object key, Supplier<T> supplier) {
+    synchronized (this) {
+      final Entry entry = cache.get(key);
+      if (entry != null) {
+        hitCount++;
+        return (T) entry.value;
+      }
+      missCount++;
+    }
+    final T value = supplier.get();
+    final long entryRamBytesUsed =
+        RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY
+            + RamUsageEstimator.sizeOfObject(key)
+            + value.ramBytesUsed();
+    if (maxSize == 0 || entryRamBytesUsed > maxRamBytesUsed) {
+      return value;
+    }
+    synchronized (this) {
+      final Entry previous = cache.get(key);
+      if (previous != null) {
+        // another thread computed the same value in the meantime, share its instance
+        return (T) previous.value;
+      }
+      cache.put(key, new Entry(value, entryRamBytesUsed));
+      ramBytesUsed += entryRamBytesUsed;
+      evictIfNecessary();
+    }
+    return value;
+  }
+
+  private void evictIfNecessary() {
+    assert Thread.holdsLock(this);
+    for (Iterator<Entry> it = cache.values().iterator();
+        it.hasNext() && (cache.size() > maxSize || ramBytesUsed > maxRamBytesUsed); ) {
+      ramBytesUsed -= it.next().ramBytesUsed;
+      it.remove();
+    }
+  }
+
+  /** Remove all entries from this cache. */
+  public synchronized void clear() {
+    cache.clear();
+    ramBytesUsed = 0;
+  }
+
+  /** Return the number of cached entries. */
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /** Return the number of lookups that found a cached value. */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /** Return the number of lookups that had to compute their value. */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public synchronized long ramBytesUsed() {
+    return BASE_RAM_BYTES + ramBytesUsed;
+  }
+}
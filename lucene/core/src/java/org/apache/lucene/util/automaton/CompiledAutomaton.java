@@ -263,11 +263,10 @@ public class CompiledAutomaton implements Accountable {
     sinkState = findSinkState(this.automaton);
   }
 
-  private Transition transition = new Transition();
-
   // private static final boolean DEBUG = BlockTreeTermsWriter.DEBUG;
 
-  private BytesRef addTail(int state, BytesRefBuilder term, int idx, int leadLabel) {
+  private BytesRef addTail(
+      int state, BytesRefBuilder term, int idx, int leadLabel, Transition transition) {
     // System.out.println("addTail state=" + state + " term=" + term.utf8ToString() + " idx=" + idx
     // + " leadLabel=" + (char) leadLabel);
     // System.out.println(automaton.toDot());
@@ -397,6 +396,8 @@ public class CompiledAutomaton implements Accountable {
     }
 
     final List<Integer> stack = new ArrayList<>();
+    // not shared across calls since compiled automata may be used by several threads at once
+    final Transition transition = new Transition();
 
     int idx = 0;
     while (true) {
@@ -460,7 +461,7 @@ public class CompiledAutomaton implements Accountable {
 
         // if (DEBUG) System.out.println("  label=" + (char) label + " idx=" + idx);
 
-        return addTail(state, output, idx, label);
+        return addTail(state, output, idx, label, transition);
 
       } else {
         output.grow(1 + idx);
@@ -504,7 +505,6 @@ public class CompiledAutomaton implements Accountable {
         + RamUsageEstimator.sizeOfObject(automaton)
         + RamUsageEstimator.sizeOfObject(commonSuffixRef)
         + RamUsageEstimator.sizeOfObject(runAutomaton)
-        + RamUsageEstimator.sizeOfObject(term)
-        + RamUsageEstimator.sizeOfObject(transition);
+        + RamUsageEstimator.sizeOfObject(term);
   }
 }
@@ -676,7 +676,9 @@ public final class Operations {
     // a.writeDot("/l/la/lucene/core/detin.dot");
 
     // Same initial values and state will always have the same hashCode
-    FrozenIntSet initialset = new FrozenIntSet(new int[] {0}, 683, 0);
+    final int[] initialStates = new int[] {0};
+    FrozenIntSet initialset =
+        new FrozenIntSet(initialStates, StateSet.hashCode(initialStates), 0);
 
     // Create state 0:
     b.createState();
@@ -692,8 +694,8 @@ public final class Operations {
     // like Set<Integer,PointTransitions>
     final PointTransitionSet points = new PointTransitionSet();
 
-    // like SortedMap<Integer,Integer>
-    final SortedIntSet statesSet = new SortedIntSet(5);
+    // like Map<Integer,Integer> of state to number of overlapping intervals
+    final StateSet statesSet = new StateSet(5);
 
     Transition t = new Transition();
 
@@ -728,11 +730,9 @@ public final class Operations {
 
         final int point = points.points[i].point;
 
-        if (statesSet.upto > 0) {
+        if (statesSet.size() > 0) {
           assert lastPoint != -1;
 
-          statesSet.computeHash();
-
           Integer q = newstate.get(statesSet);
           if (q == null) {
             q = b.createState();
@@ -784,7 +784,7 @@ public final class Operations {
         points.points[i].starts.next = 0;
       }
       points.reset();
-      assert statesSet.upto == 0 : "upto=" + statesSet.upto;
+      assert statesSet.size() == 0 : "size=" + statesSet.size();
     }
 
     Automaton result = b.finish();
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.automaton;
+
+import java.util.Arrays;
+
+// Holds a set of states, plus a corresponding count per state. Used by Operations.determinize.
+// States are kept in an open-addressing hash table so that incr and decr are constant-time, and
+// the hash code is order-independent so that it can be maintained incrementally. The sorted array
+// of states is only computed when needed, ie. when the set is compared to another set or frozen.
+final class StateSet extends IntSet {
+  private static final int EMPTY = -1;
+
+  private int[] keys;
+  private int[] counts;
+  private int mask;
+  private int size;
+  private int hashCode;
+
+  // sorted states, only valid if arrayUpdated is true
+  private int[] array = new int[0];
+  private boolean arrayUpdated = true;
+
+  StateSet(int capacity) {
+    int tableSize = Integer.highestOneBit(Math.max(4, capacity * 2) - 1) << 1;
+    keys = new int[tableSize];
+    Arrays.fill(keys, EMPTY);
+    counts = new int[tableSize];
+    mask = tableSize - 1;
+  }
+
+  private static int mix(int state) {
+    // finalization step of Murmur3
+    int h = state;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * Computes the hash code of a set of states the same way as {@link #hashCode()}, for sets that
+   * are not built incrementally.
+   */
+  static int hashCode(int[] states) {
+    int hashCode = 0;
+    for (int state : states) {
+      hashCode += mix(state);
+    }
+    return hashCode;
+  }
+
+  private int slot(int state) {
+    int slot = mix(state) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != state) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Adds this state to the set
+  void incr(int state) {
+    assert state >= 0;
+    final int slot = slot(state);
+    if (keys[slot] == state) {
+      counts[slot]++;
+      return;
+    }
+    keys[slot] = state;
+    counts[slot] = 1;
+    size++;
+    hashCode += mix(state);
+    arrayUpdated = false;
+    if (size > (keys.length >>> 1)) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  // Removes this state from the set, if count decrs to 0
+  void decr(int state) {
+    final int slot = slot(state);
+    assert keys[slot] == state : "state " + state + " is not in the set";
+    if (--counts[slot] > 0) {
+      return;
+    }
+    size--;
+    hashCode -= mix(state);
+    arrayUpdated = false;
+    // backward-shift deletion, so that lookups never need tombstones
+    int gap = slot;
+    for (int i = (slot + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+      final int home = mix(keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        counts[gap] = counts[i];
+        gap = i;
+      }
+    }
+    keys[gap] = EMPTY;
+    counts[gap] = 0;
+  }
+
+  private void rehash(int tableSize) {
+    final int[] oldKeys = keys;
+    final int[] oldCounts = counts;
+    keys = new int[tableSize];
+    Arrays.fill(keys, EMPTY);
+    counts = new int[tableSize];
+    mask = tableSize - 1;
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != EMPTY) {
+        final int slot = slot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  /**
+   * Create a snapshot of this int set associated with a given state. The snapshot will not retain
+   * any frequency information about the elements of this set, only existence.
+   *
+   * @param state the state to associate with the frozen set.
+   * @return A new FrozenIntSet with the same values as this set.
+   */
+  FrozenIntSet freeze(int state) {
+    return new FrozenIntSet(getArray(), hashCode, state);
+  }
+
+  @Override
+  int[] getArray() {
+    if (arrayUpdated == false) {
+      // always allocate a new array, since frozen sets share it
+      final int[] array = new int[size];
+      int upto = 0;
+      for (int key : keys) {
+        if (key != EMPTY) {
+          array[upto++] = key;
+        }
+      }
+      assert upto == size;
+      Arrays.sort(array);
+      this.array = array;
+      arrayUpdated = true;
+    }
+    return array;
+  }
+
+  @Override
+  int size() {
+    return size;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder().append('[');
+    final int[] array = getArray();
+    for (int i = 0; i < array.length; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(array[i]).append(':').append(counts[slot(array[i])]);
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+}
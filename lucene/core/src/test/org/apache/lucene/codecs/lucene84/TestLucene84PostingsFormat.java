@@ -17,12 +17,14 @@
 package org.apache.lucene.codecs.lucene84;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.CompetitiveImpactAccumulator;
+import org.apache.lucene.codecs.blocktree.BlockTreeTermsWriter;
 import org.apache.lucene.codecs.blocktree.FieldReader;
 import org.apache.lucene.codecs.blocktree.Stats;
 import org.apache.lucene.codecs.lucene84.Lucene84ScoreSkipReader.MutableImpactList;
@@ -33,12 +35,21 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
 
 public class TestLucene84PostingsFormat extends BasePostingsFormatTestCase {
   private final Codec codec = TestUtil.alwaysPostingsFormat(new Lucene84PostingsFormat());
@@ -73,6 +84,177 @@ public class TestLucene84PostingsFormat extends BasePostingsFormatTestCase {
     d.close();
   }
 
+  public void testIntoBitSet() throws Exception {
+    Directory d = newDirectory();
+    IndexWriter w =
+        new IndexWriter(d, newIndexWriterConfig(new MockAnalyzer(random())).setCodec(codec));
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newStringField("field", "all", Field.Store.NO));
+      if (i % 3 == 0) {
+        doc.add(newStringField("field", "third", Field.Store.NO));
+      }
+      if (random().nextInt(20) == 0) {
+        doc.add(newStringField("field", "rare", Field.Store.NO));
+      }
+      if (i == numDocs / 2) {
+        doc.add(newStringField("field", "single", Field.Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w);
+    LeafReader reader = getOnlyLeafReader(r);
+    TermsEnum termsEnum = reader.terms("field").iterator();
+    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+      for (int iter = 0; iter < 10; ++iter) {
+        PostingsEnum expected = termsEnum.postings(null, PostingsEnum.NONE);
+        PostingsEnum actual = termsEnum.postings(null, PostingsEnum.NONE);
+        int target = random().nextInt(numDocs);
+        int upTo =
+            random().nextBoolean()
+                ? DocIdSetIterator.NO_MORE_DOCS
+                : TestUtil.nextInt(random(), target, numDocs);
+        int doc = actual.advance(target);
+        assertEquals(doc, expected.advance(target));
+        if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+          continue;
+        }
+        int offset = random().nextInt(doc + 1);
+        FixedBitSet expectedBits = new FixedBitSet(numDocs);
+        for (; doc < upTo; doc = expected.nextDoc()) {
+          expectedBits.set(doc - offset);
+        }
+        FixedBitSet actualBits = new FixedBitSet(numDocs);
+        actual.intoBitSet(upTo, actualBits, offset);
+        assertEquals(expectedBits, actualBits);
+        assertEquals(expected.docID(), actual.docID());
+        if (actual.docID() != DocIdSetIterator.NO_MORE_DOCS) {
+          assertEquals(expected.nextDoc(), actual.nextDoc());
+        }
+      }
+    }
+    r.close();
+    w.close();
+    d.close();
+  }
+
+  public void testNextPostings() throws Exception {
+    Directory d = newDirectory();
+    IndexWriter w =
+        new IndexWriter(d, newIndexWriterConfig(new MockAnalyzer(random())).setCodec(codec));
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      StringBuilder body = new StringBuilder();
+      for (int j = random().nextInt(5); j >= 0; --j) {
+        body.append("all ");
+      }
+      if (i % 3 == 0) {
+        body.append("third third ");
+      }
+      if (random().nextInt(20) == 0) {
+        body.append("rare ");
+      }
+      if (i == numDocs / 2) {
+        body.append("single ");
+      }
+      Document doc = new Document();
+      doc.add(newTextField("field", body.toString(), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w);
+    LeafReader reader = getOnlyLeafReader(r);
+    TermsEnum termsEnum = reader.terms("field").iterator();
+    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+      for (int iter = 0; iter < 10; ++iter) {
+        int flags = random().nextBoolean() ? PostingsEnum.FREQS : PostingsEnum.NONE;
+        PostingsEnum expected = termsEnum.postings(null, flags);
+        PostingsEnum actual = termsEnum.postings(null, flags);
+        int target = random().nextInt(numDocs);
+        int doc = actual.advance(target);
+        assertEquals(doc, expected.advance(target));
+        int[] docs = new int[TestUtil.nextInt(random(), 1, 300)];
+        int[] freqs = new int[docs.length];
+        while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+          int upTo =
+              random().nextBoolean()
+                  ? DocIdSetIterator.NO_MORE_DOCS
+                  : TestUtil.nextInt(random(), doc, numDocs);
+          int size = actual.nextPostings(upTo, docs, freqs);
+          for (int i = 0; i < size; ++i) {
+            assertEquals(expected.docID(), docs[i]);
+            assertEquals(expected.freq(), freqs[i]);
+            expected.nextDoc();
+          }
+          assertTrue(size == docs.length || expected.docID() >= upTo);
+          assertEquals(expected.docID(), actual.docID());
+          doc = actual.docID();
+        }
+      }
+    }
+    r.close();
+    w.close();
+    d.close();
+  }
+
+  public void testReversedTermsIndex() throws Exception {
+    Directory d = newDirectory();
+    Codec reversedCodec =
+        TestUtil.alwaysPostingsFormat(
+            new Lucene84PostingsFormat(
+                BlockTreeTermsWriter.DEFAULT_MIN_BLOCK_SIZE,
+                BlockTreeTermsWriter.DEFAULT_MAX_BLOCK_SIZE,
+                true));
+    IndexWriter w =
+        new IndexWriter(
+            d, newIndexWriterConfig(new MockAnalyzer(random())).setCodec(reversedCodec));
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      String value = Integer.toString(random().nextInt(), Character.MAX_RADIX);
+      if (random().nextInt(500) == 0) {
+        value += "suffix";
+      }
+      doc.add(newStringField("field", value, Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w);
+    FieldReader field = (FieldReader) getOnlyLeafReader(r).terms("field");
+    for (String pattern : new String[] {"*suffix", "*x", "*ab", "?*fix", "a*b", "*?x"}) {
+      CompiledAutomaton compiled =
+          new CompiledAutomaton(WildcardQuery.toAutomaton(new Term("field", pattern)));
+      BytesRef startTerm =
+          random().nextBoolean()
+              ? null
+              : new BytesRef(Integer.toString(random().nextInt(), Character.MAX_RADIX));
+      List<BytesRef> expected = new ArrayList<>();
+      TermsEnum termsEnum = field.iterator();
+      for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+        if (compiled.runAutomaton.run(term.bytes, term.offset, term.length)
+            && (startTerm == null || term.compareTo(startTerm) > 0)) {
+          expected.add(BytesRef.deepCopyOf(term));
+        }
+      }
+      TermsEnum intersected = field.intersect(compiled, startTerm);
+      for (BytesRef term : expected) {
+        assertEquals(term, intersected.next());
+        assertTrue(termsEnum.seekExact(term));
+        assertEquals(termsEnum.docFreq(), intersected.docFreq());
+        assertEquals(termsEnum.totalTermFreq(), intersected.totalTermFreq());
+      }
+      assertNull(intersected.next());
+    }
+    r.close();
+    w.close();
+    d.close();
+  }
+
   private void shouldFail(int minItemsInBlock, int maxItemsInBlock) {
     expectThrows(
         IllegalArgumentException.class,
@@ -41,6 +41,7 @@ public class TestDocumentsWriterPerThreadPool extends LuceneTestCase {
                       new DocumentsWriterDeleteQueue(null),
                       null,
                       new AtomicLong(),
+                      null,
                       false));
 
       DocumentsWriterPerThread first = pool.getAndLock();
@@ -81,6 +82,7 @@ public class TestDocumentsWriterPerThreadPool extends LuceneTestCase {
                       new DocumentsWriterDeleteQueue(null),
                       null,
                       new AtomicLong(),
+                      null,
                       false));
 
       DocumentsWriterPerThread first = pool.getAndLock();
@@ -61,6 +61,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     assertEquals(InfoStream.getDefault(), conf.getInfoStream());
     assertEquals(IndexWriterConfig.DEFAULT_USE_COMPOUND_FILE_SYSTEM, conf.getUseCompoundFile());
     assertTrue(conf.isCheckPendingFlushOnUpdate());
+    assertEquals(
+        IndexWriterConfig.DEFAULT_MAX_RECYCLED_INDEXING_BUFFER_MB,
+        conf.getMaxRecycledIndexingBufferMB(),
+        0.0);
     // Sanity check - validate that all getters are covered.
     Set<String> getters = new HashSet<>();
     getters.add("getAnalyzer");
@@ -269,6 +273,12 @@ public class TestIndexWriterConfig extends LuceneTestCase {
           conf.setRAMPerThreadHardLimitMB(0);
         });
 
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> {
+          conf.setMaxRecycledIndexingBufferMB(-1);
+        });
+
     // Test MergePolicy
     assertEquals(TieredMergePolicy.class, conf.getMergePolicy().getClass());
     conf.setMergePolicy(new LogDocMergePolicy());
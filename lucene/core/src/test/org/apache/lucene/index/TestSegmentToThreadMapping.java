@@ -19,7 +19,10 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -33,6 +36,7 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.Version;
 
 public class TestSegmentToThreadMapping extends LuceneTestCase {
@@ -271,4 +275,59 @@ public class TestSegmentToThreadMapping extends LuceneTestCase {
 
     assertTrue(resultSlices.length > 0);
   }
+
+  public void testBalancedSlices() {
+    List<LeafReaderContext> leafReaderContexts = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      leafReaderContexts.add(new LeafReaderContext(dummyIndexReader(10_000)));
+    }
+    leafReaderContexts.add(new LeafReaderContext(dummyIndexReader(130_000)));
+    leafReaderContexts.add(new LeafReaderContext(dummyIndexReader(130_000)));
+
+    IndexSearcher.LeafSlice[] resultSlices =
+        IndexSearcher.balancedSlices(leafReaderContexts, 250_000, 5);
+
+    // the small segments are spread evenly instead of making a slice of their own
+    assertEquals(2, resultSlices.length);
+    for (IndexSearcher.LeafSlice slice : resultSlices) {
+      assertEquals(4, slice.leaves.length);
+      int numDocs = 0;
+      for (LeafReaderContext ctx : slice.leaves) {
+        numDocs += ctx.reader().numDocs();
+      }
+      assertEquals(160_000, numDocs);
+    }
+  }
+
+  public void testBalancedSlicesRandom() {
+    List<LeafReaderContext> leafReaderContexts = new ArrayList<>();
+    int max = 500_000;
+    int min = 10_000;
+    int numSegments = 1 + random().nextInt(50);
+    long totalDocs = 0;
+
+    for (int i = 0; i < numSegments; i++) {
+      int maxDoc = random().nextInt((max - min) + 1) + min;
+      totalDocs += maxDoc;
+      leafReaderContexts.add(new LeafReaderContext(dummyIndexReader(maxDoc)));
+    }
+
+    int maxDocsPerSlice = TestUtil.nextInt(random(), 10_000, 1_000_000);
+    int maxSegmentsPerSlice = TestUtil.nextInt(random(), 1, 10);
+    IndexSearcher.LeafSlice[] resultSlices =
+        IndexSearcher.balancedSlices(leafReaderContexts, maxDocsPerSlice, maxSegmentsPerSlice);
+
+    assertTrue(resultSlices.length > 0);
+    assertTrue(resultSlices.length <= numSegments);
+    assertTrue(resultSlices.length >= Math.min(numSegments, totalDocs / maxDocsPerSlice));
+    Set<LeafReader> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (IndexSearcher.LeafSlice slice : resultSlices) {
+      assertTrue(slice.leaves.length > 0);
+      assertTrue(slice.leaves.length <= maxSegmentsPerSlice);
+      for (LeafReaderContext ctx : slice.leaves) {
+        assertTrue(seen.add(ctx.reader()));
+      }
+    }
+    assertEquals(numSegments, seen.size());
+  }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestStripedFreeList extends LuceneTestCase {
+
+  public void testLIFOForSingleThread() {
+    StripedFreeList<Integer> freeList = new StripedFreeList<>(TestUtil.nextInt(random(), 1, 8));
+    assertNull(freeList.poll(x -> true));
+    freeList.add(1);
+    freeList.add(2);
+    freeList.add(3);
+    assertEquals(Integer.valueOf(3), freeList.poll(x -> true));
+    assertEquals(Integer.valueOf(1), freeList.poll(x -> x == 1));
+    assertTrue(freeList.contains(2));
+    assertFalse(freeList.contains(1));
+    assertNull(freeList.poll(x -> x == 1));
+    assertTrue(freeList.remove(2));
+    assertFalse(freeList.remove(2));
+    assertNull(freeList.poll(x -> true));
+  }
+
+  public void testIllegalConcurrency() {
+    expectThrows(IllegalArgumentException.class, () -> new StripedFreeList<>(0));
+  }
+
+  public void testConcurrentAddAndPoll() throws Exception {
+    final int numEntries = 16;
+    final int numThreads = TestUtil.nextInt(random(), 2, 8);
+    final int iters = atLeast(1000);
+    StripedFreeList<Object> freeList = new StripedFreeList<>(TestUtil.nextInt(random(), 1, 8));
+    List<Object> entries = new ArrayList<>();
+    for (int i = 0; i < numEntries; ++i) {
+      Object entry = new Object();
+      entries.add(entry);
+      freeList.add(entry);
+    }
+    // every entry must be held by at most one thread at a time
+    Set<Object> taken =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; ++t) {
+      threads[t] =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+                for (int i = 0; i < iters; ++i) {
+                  Object entry = freeList.poll(x -> true);
+                  if (entry == null) {
+                    continue;
+                  }
+                  if (taken.add(entry) == false) {
+                    failures.incrementAndGet();
+                  }
+                  taken.remove(entry);
+                  freeList.add(entry);
+                }
+              });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, failures.get());
+    for (Object entry : entries) {
+      assertTrue(freeList.contains(entry));
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestBlockMaxMaxScoreScorer extends LuceneTestCase {
+
+  private Query maybeWrap(Query query) {
+    if (random().nextBoolean()) {
+      query = new BlockScoreQueryWrapper(query, TestUtil.nextInt(random(), 2, 8));
+      query = new AssertingQuery(random(), query);
+    }
+    return query;
+  }
+
+  private Query maybeBoost(Query query) {
+    if (random().nextBoolean()) {
+      query = new BoostQuery(query, 1 + random().nextInt(10));
+    }
+    return query;
+  }
+
+  private static Directory newIndex(int numDocs, int numTerms) throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      // skew the distribution so that clauses have very different costs and max scores
+      int numValues = random().nextInt(1 << random().nextInt(6));
+      for (int j = 0; j < numValues; ++j) {
+        int term = random().nextInt(1 + random().nextInt(numTerms));
+        doc.add(new StringField("foo", Integer.toString(term), Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1 + random().nextInt(3));
+    w.close();
+    return dir;
+  }
+
+  private Query newDisjunction(int start, int numClauses) {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    for (int i = 0; i < numClauses; ++i) {
+      Query clause = new TermQuery(new Term("foo", Integer.toString(start + i)));
+      builder.add(maybeWrap(maybeBoost(clause)), Occur.SHOULD);
+    }
+    return builder.build();
+  }
+
+  public void testUsedForLongDisjunctions() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    // all terms are in every doc, so that no clause gets dropped because its term is missing from
+    // the segment
+    for (int i = 0; i < 100; ++i) {
+      Document doc = new Document();
+      for (int term = 0; term < Boolean2ScorerSupplier.MAX_SCORE_MIN_CLAUSES; ++term) {
+        doc.add(new StringField("foo", Integer.toString(term), Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    w.close();
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    LeafReaderContext context = reader.leaves().get(0);
+
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    for (int i = 0; i < Boolean2ScorerSupplier.MAX_SCORE_MIN_CLAUSES; ++i) {
+      builder.add(new TermQuery(new Term("foo", Integer.toString(i))), Occur.SHOULD);
+    }
+    Query query = builder.build();
+    Scorer scorer =
+        searcher.createWeight(searcher.rewrite(query), ScoreMode.TOP_SCORES, 1).scorer(context);
+    assertTrue(scorer instanceof BlockMaxMaxScoreScorer);
+    // exhaustive evaluation doesn't need dynamic pruning
+    scorer = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, 1).scorer(context);
+    assertFalse(scorer instanceof BlockMaxMaxScoreScorer);
+
+    builder = new BooleanQuery.Builder();
+    for (int i = 0; i < Boolean2ScorerSupplier.MAX_SCORE_MIN_CLAUSES - 1; ++i) {
+      builder.add(new TermQuery(new Term("foo", Integer.toString(i))), Occur.SHOULD);
+    }
+    query = builder.build();
+    scorer =
+        searcher.createWeight(searcher.rewrite(query), ScoreMode.TOP_SCORES, 1).scorer(context);
+    assertFalse(scorer instanceof BlockMaxMaxScoreScorer);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandom() throws IOException {
+    int numTerms = 200;
+    Directory dir = newIndex(atLeast(2000), numTerms);
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      int numClauses =
+          TestUtil.nextInt(random(), Boolean2ScorerSupplier.MAX_SCORE_MIN_CLAUSES, 100);
+      int start = random().nextInt(numTerms - numClauses);
+      Query query = newDisjunction(start, numClauses);
+
+      CheckHits.checkTopScores(random(), query, searcher);
+
+      int filterTerm = random().nextInt(numTerms);
+      Query filteredQuery =
+          new BooleanQuery.Builder()
+              .add(query, Occur.MUST)
+              .add(new TermQuery(new Term("foo", Integer.toString(filterTerm))), Occur.FILTER)
+              .build();
+
+      CheckHits.checkTopScores(random(), filteredQuery, searcher);
+    }
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomWithRequiredClause() throws IOException {
+    int numTerms = 200;
+    Directory dir = newIndex(atLeast(2000), numTerms);
+    IndexReader reader = DirectoryReader.open(dir);
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      int numClauses =
+          TestUtil.nextInt(random(), Boolean2ScorerSupplier.MAX_SCORE_MIN_CLAUSES, 100);
+      int start = random().nextInt(numTerms - numClauses);
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      builder.add(newDisjunction(start, numClauses), Occur.SHOULD);
+      builder.add(
+          new TermQuery(new Term("foo", Integer.toString(random().nextInt(10)))), Occur.MUST);
+      Query query = builder.build();
+
+      CheckHits.checkTopScores(random(), query, searcher);
+    }
+    reader.close();
+    dir.close();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import org.apache.lucene.search.comparators.LongComparator;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestBottomValueAccumulator extends LuceneTestCase {
+  public void testSimple() {
+    FieldComparator<Long> comparator = new LongComparator(1, "foo", null, false, 0);
+    BottomValueAccumulator acc = new BottomValueAccumulator(1);
+    assertNull(acc.get());
+    acc.accumulate(comparator, 10L);
+    assertEquals(10L, acc.get().value);
+    acc.accumulate(comparator, 20L);
+    assertEquals(10L, acc.get().value);
+    acc.accumulate(comparator, 5L);
+    assertEquals(5L, acc.get().value);
+
+    BottomValueAccumulator reverseAcc = new BottomValueAccumulator(-1);
+    reverseAcc.accumulate(comparator, 10L);
+    reverseAcc.accumulate(comparator, 5L);
+    assertEquals(10L, reverseAcc.get().value);
+    reverseAcc.accumulate(comparator, 20L);
+    assertEquals(20L, reverseAcc.get().value);
+  }
+
+  public void testMissingValues() {
+    FieldComparator<BytesRef> comparator =
+        new FieldComparator.TermOrdValComparator(1, "foo", true);
+    BottomValueAccumulator acc = new BottomValueAccumulator(1);
+    acc.accumulate(comparator, null);
+    assertNotNull(acc.get());
+    assertNull(acc.get().value);
+    BytesRef value = new BytesRef("b");
+    acc.accumulate(comparator, value);
+    assertEquals(new BytesRef("b"), acc.get().value);
+    // values are copied since comparators may reuse them
+    value.bytes[value.offset] = 'z';
+    assertEquals(new BytesRef("b"), acc.get().value);
+    acc.accumulate(comparator, null);
+    assertEquals(new BytesRef("b"), acc.get().value);
+  }
+
+  public void testRandom() {
+    FieldComparator<Long> comparator = new LongComparator(1, "foo", null, false, 0);
+    boolean reverse = random().nextBoolean();
+    BottomValueAccumulator acc = new BottomValueAccumulator(reverse ? -1 : 1);
+    long best = reverse ? Long.MIN_VALUE : Long.MAX_VALUE;
+    int numValues = atLeast(100);
+    for (int i = 0; i < numValues; i++) {
+      long value = random().nextLong();
+      acc.accumulate(comparator, value);
+      best = reverse ? Math.max(best, value) : Math.min(best, value);
+    }
+    assertEquals(best, acc.get().value);
+  }
+}
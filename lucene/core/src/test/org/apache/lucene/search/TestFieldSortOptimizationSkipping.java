@@ -20,6 +20,7 @@ import static org.apache.lucene.search.SortField.FIELD_DOC;
 import static org.apache.lucene.search.SortField.FIELD_SCORE;
 
 import java.io.IOException;
+import java.util.Locale;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FloatDocValuesField;
@@ -27,15 +28,19 @@ import org.apache.lucene.document.FloatPoint;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 public class TestFieldSortOptimizationSkipping extends LuceneTestCase {
 
@@ -295,6 +300,301 @@ public class TestFieldSortOptimizationSkipping extends LuceneTestCase {
     dir.close();
   }
 
+  public void testStringSortOptimization() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      final String value = String.format(Locale.ROOT, "%06d", i);
+      final String reverseValue = String.format(Locale.ROOT, "%06d", numDocs - i);
+      doc.add(new SortedDocValuesField("my_field", new BytesRef(value)));
+      doc.add(new StringField("my_field", value, Field.Store.NO));
+      doc.add(new SortedDocValuesField("my_reverse_field", new BytesRef(reverseValue)));
+      doc.add(new StringField("my_reverse_field", reverseValue, Field.Store.NO));
+      doc.add(new SortedDocValuesField("my_dv_only_field", new BytesRef(value)));
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // simple sort
+      final Sort sort = new Sort(stringSortField("my_field", false));
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(String.format(Locale.ROOT, "%06d", i), toString(fieldDoc.fields[0]));
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // reverse sort
+      final Sort sort = new Sort(stringSortField("my_reverse_field", true));
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(
+            String.format(Locale.ROOT, "%06d", numDocs - i), toString(fieldDoc.fields[0]));
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // paging sort with after
+      final Sort sort = new Sort(stringSortField("my_field", false));
+      final int afterValue = 2;
+      FieldDoc after =
+          new FieldDoc(
+              afterValue,
+              Float.NaN,
+              new Object[] {new BytesRef(String.format(Locale.ROOT, "%06d", afterValue))});
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, after, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(
+            String.format(Locale.ROOT, "%06d", afterValue + 1 + i), toString(fieldDoc.fields[0]));
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // test that if the field is not indexed, no optimization is run
+      final Sort sort = new Sort(stringSortField("my_dv_only_field", false));
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs);
+    }
+
+    { // test that no optimization is run unless it is enabled on the sort field
+      final Sort sort = new Sort(new SortField("my_field", SortField.Type.STRING));
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs);
+    }
+
+    { // test that if the string field is a secondary sort, no optimization is run
+      final Sort sort = new Sort(FIELD_SCORE, stringSortField("my_field", false));
+      final TopFieldCollector collector =
+          TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testStringSortOptimizationWithMissingValues() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      if ((i % 500) != 0) { // miss values on every 500th document
+        final String value = String.format(Locale.ROOT, "%06d", i);
+        doc.add(new SortedDocValuesField("my_field", new BytesRef(value)));
+        doc.add(new StringField("my_field", value, Field.Store.NO));
+      }
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // test that docs with missing values are collected when they are competitive
+      final SortField sortField = stringSortField("my_field", false);
+      sortField.setMissingValue(SortField.STRING_FIRST);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(i * 500, fieldDoc.doc);
+        assertNull(fieldDoc.fields[0]);
+      }
+    }
+    { // test that optimization is run when missing values are NOT competitive
+      final SortField sortField = stringSortField("my_field", false);
+      sortField.setMissingValue(SortField.STRING_LAST);
+      final TopFieldCollector collector =
+          TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(String.format(Locale.ROOT, "%06d", i + 1), toString(fieldDoc.fields[0]));
+      }
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testStringSortOptimizationRandom() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(5000);
+    final int numValues = TestUtil.nextInt(random(), 1, numDocs);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      if (random().nextInt(10) != 0) {
+        final String value = Integer.toString(random().nextInt(numValues));
+        doc.add(new SortedDocValuesField("my_field", new BytesRef(value)));
+        doc.add(new StringField("my_field", value, Field.Store.NO));
+      }
+      doc.add(new StringField("filter", Integer.toString(random().nextInt(3)), Field.Store.NO));
+      writer.addDocument(doc);
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      final SortField sortField = stringSortField("my_field", random().nextBoolean());
+      sortField.setMissingValue(
+          random().nextBoolean() ? SortField.STRING_FIRST : SortField.STRING_LAST);
+      final Sort sort =
+          random().nextBoolean() ? new Sort(sortField) : new Sort(sortField, FIELD_DOC);
+      final Query query =
+          random().nextBoolean()
+              ? new MatchAllDocsQuery()
+              : new TermQuery(new Term("filter", Integer.toString(random().nextInt(3))));
+      final int numHits = TestUtil.nextInt(random(), 1, 100);
+      FieldDoc after = null;
+      if (random().nextBoolean()) {
+        TopDocs page = searcher.search(query, numHits, sort);
+        if (page.scoreDocs.length > 0) {
+          after = (FieldDoc) page.scoreDocs[page.scoreDocs.length - 1];
+        }
+      }
+
+      // reference results, with no skipping since the threshold is never reached
+      final TopFieldCollector expectedCollector =
+          TopFieldCollector.create(sort, numHits, after, Integer.MAX_VALUE);
+      searcher.search(query, expectedCollector);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, after, numHits);
+      searcher.search(query, collector);
+      CheckHits.checkEqual(
+          query, expectedCollector.topDocs().scoreDocs, collector.topDocs().scoreDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testStringSortOptimizationWithTermsButMissingDocValues() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      final String value = String.format(Locale.ROOT, "%06d", i);
+      // every document has a term, but every 500th document has no doc value
+      doc.add(new StringField("my_field", value, Field.Store.NO));
+      if ((i % 500) != 0) {
+        doc.add(new SortedDocValuesField("my_field", new BytesRef(value)));
+      }
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+
+    final SortField sortField = stringSortField("my_field", false);
+    sortField.setMissingValue(SortField.STRING_FIRST);
+    final TopFieldCollector collector =
+        TopFieldCollector.create(new Sort(sortField), numHits, null, numHits);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(topDocs.scoreDocs.length, numHits);
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      assertEquals(i * 500, fieldDoc.doc);
+      assertNull(fieldDoc.fields[0]);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testStringSortOnAnalyzedField() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      // the indexed tokens are lowercased, so none of them is equal to the doc value
+      final String value = String.format(Locale.ROOT, "Value %06d", i);
+      doc.add(new TextField("my_field", value, Field.Store.NO));
+      doc.add(new SortedDocValuesField("my_field", new BytesRef(value)));
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+
+    // skipping is disabled by default, so the analyzed terms are not used
+    final Sort sort = new Sort(new SortField("my_field", SortField.Type.STRING));
+    final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, numHits);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(topDocs.scoreDocs.length, numHits);
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      assertEquals(String.format(Locale.ROOT, "Value %06d", i), toString(fieldDoc.fields[0]));
+    }
+    assertEquals(topDocs.totalHits.value, numDocs);
+
+    reader.close();
+    dir.close();
+  }
+
+  private static SortField stringSortField(String field, boolean reverse) {
+    final SortField sortField = new SortField(field, SortField.Type.STRING, reverse);
+    sortField.setOptimizeSortWithTerms(true);
+    return sortField;
+  }
+
+  private static String toString(Object value) {
+    return ((BytesRef) value).utf8ToString();
+  }
+
   public void testFloatSortOptimization() throws IOException {
     final Directory dir = newDirectory();
     final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
@@ -35,12 +35,15 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.Impacts;
 import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.ImpactsSource;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
@@ -1052,6 +1055,57 @@ public class TestPhraseQuery extends LuceneTestCase {
     dir.close();
   }
 
+  public void testShingleField() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    FieldType shingleType = new FieldType(StringField.TYPE_NOT_STORED);
+    shingleType.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    shingleType.freeze();
+    int numDocs = TEST_NIGHTLY ? atLeast(128 * 8 * 8 * 3) : atLeast(300);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      int numTerms = random().nextInt(1 << random().nextInt(5));
+      String[] terms = new String[numTerms];
+      for (int j = 0; j < numTerms; ++j) {
+        terms[j] = random().nextBoolean() ? "a" : random().nextBoolean() ? "b" : "c";
+        if (j > 0) {
+          doc.add(new Field("foo_shingles", terms[j - 1] + " " + terms[j], shingleType));
+        }
+      }
+      doc.add(new TextField("foo", String.join(" ", terms), Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    String[][] phrases = {{"a", "b"}, {"b", "a"}, {"c", "c"}, {"a", "b", "c"}, {"c", "a", "a"}};
+    for (String[] phrase : phrases) {
+      PhraseQuery.Builder builder = new PhraseQuery.Builder();
+      for (String term : phrase) {
+        builder.add(new Term("foo", term));
+      }
+      Query query = builder.build();
+      Query shingleQuery = builder.setShingleField("foo_shingles").build();
+      assertNotEquals(query, shingleQuery);
+      assertEquals(searcher.count(query), searcher.count(shingleQuery));
+
+      TopScoreDocCollector collector1 =
+          TopScoreDocCollector.create(10, null, Integer.MAX_VALUE); // COMPLETE
+      TopScoreDocCollector collector2 = TopScoreDocCollector.create(10, null, 10); // TOP_SCORES
+      TopScoreDocCollector collector3 =
+          TopScoreDocCollector.create(10, null, Integer.MAX_VALUE); // COMPLETE
+      searcher.search(query, collector1);
+      searcher.search(shingleQuery, collector2);
+      CheckHits.checkEqual(query, collector1.topDocs().scoreDocs, collector2.topDocs().scoreDocs);
+      searcher.search(shingleQuery, collector3);
+      CheckHits.checkEqual(query, collector1.topDocs().scoreDocs, collector3.topDocs().scoreDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
   public void testNullTerm() {
     NullPointerException e =
         expectThrows(NullPointerException.class, () -> new PhraseQuery.Builder().add(null));
@@ -29,6 +29,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.AutomatonCache;
 import org.apache.lucene.util.automaton.AutomatonProvider;
 import org.apache.lucene.util.automaton.Operations;
 import org.apache.lucene.util.automaton.RegExp;
@@ -178,4 +179,45 @@ public class TestRegexpQuery extends LuceneTestCase {
   public void testBacktracking() throws IOException {
     assertEquals(1, regexQueryNrHits("4934[314]"));
   }
+
+  public void testCachedAutomaton() throws IOException {
+    AutomatonCache defaultCache = AutomatonCache.getDefaultCache();
+    try {
+      AutomatonCache cache = new AutomatonCache(10, 1 << 20);
+      AutomatonCache.setDefaultCache(cache);
+      RegexpQuery q1 = new RegexpQuery(newTerm("q.[aeiou]c.*"));
+      RegexpQuery q2 = new RegexpQuery(new Term("other_field", "q.[aeiou]c.*"));
+      assertSame(q1.compiled, q2.compiled);
+      assertEquals(1, cache.getMissCount());
+      assertEquals(1, cache.getHitCount());
+      assertEquals(1, searcher.count(q1));
+      assertEquals(0, searcher.count(q2));
+
+      // different flags or limits must not share the automaton
+      RegexpQuery q3 =
+          new RegexpQuery(
+              newTerm("q.[aeiou]c.*"), RegExp.ALL, RegExp.ASCII_CASE_INSENSITIVE, 10000);
+      assertNotSame(q1.compiled, q3.compiled);
+      RegexpQuery q4 = new RegexpQuery(newTerm("q.[aeiou]c.*"), RegExp.ALL, 5000);
+      assertNotSame(q1.compiled, q4.compiled);
+      assertEquals(3, cache.size());
+
+      // automata from custom providers are never cached
+      AutomatonProvider provider = name -> null;
+      RegexpQuery q5 =
+          new RegexpQuery(
+              newTerm("q.[aeiou]c.*"), RegExp.ALL, provider, DEFAULT_MAX_DETERMINIZED_STATES);
+      assertNotSame(q1.compiled, q5.compiled);
+      assertEquals(q1, q5);
+      assertEquals(3, cache.size());
+
+      AutomatonCache.setDefaultCache(null);
+      RegexpQuery q6 = new RegexpQuery(newTerm("q.[aeiou]c.*"));
+      assertNotSame(q1.compiled, q6.compiled);
+      assertEquals(q1, q6);
+      assertEquals(1, searcher.count(q6));
+    } finally {
+      AutomatonCache.setDefaultCache(defaultCache);
+    }
+  }
 }
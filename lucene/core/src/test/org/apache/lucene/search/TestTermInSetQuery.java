@@ -27,12 +27,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
@@ -103,6 +105,146 @@ public class TestTermInSetQuery extends LuceneTestCase {
     }
   }
 
+  public void testDocValuesVerification() throws IOException {
+    final String field = "f";
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    final int numValues = TestUtil.nextInt(random(), 20, 200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      final int numDocValues = random().nextInt(3);
+      for (int j = 0; j < numDocValues; ++j) {
+        BytesRef value = new BytesRef(Integer.toString(random().nextInt(numValues)));
+        doc.add(new StringField(field, value, Store.NO));
+        doc.add(new SortedSetDocValuesField(field, value));
+      }
+      iw.addDocument(doc);
+    }
+    final IndexReader reader = iw.getReader();
+    iw.close();
+    final IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(null);
+
+    for (int iter = 0; iter < 10; ++iter) {
+      final int numQueryTerms = TestUtil.nextInt(random(), 17, numValues);
+      List<BytesRef> queryTerms = new ArrayList<>();
+      for (int j = 0; j < numQueryTerms; ++j) {
+        queryTerms.add(new BytesRef(Integer.toString(random().nextInt(numValues + 10))));
+      }
+      final Query query =
+          searcher.rewrite(
+              new IndexOrDocValuesQuery(
+                  new TermInSetQuery(field, queryTerms),
+                  SortedSetDocValuesField.newSlowSetQuery(
+                      field, queryTerms.toArray(new BytesRef[0]))));
+      final Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1);
+      for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+        ScorerSupplier supplier = weight.scorerSupplier(context);
+        if (supplier == null) {
+          continue;
+        }
+        final long cost = supplier.cost();
+        // a lead cost of 0 makes IndexOrDocValuesQuery verify doc values
+        Scorer docValuesScorer = supplier.get(0);
+        Scorer postingsScorer = weight.scorerSupplier(context).get(Long.MAX_VALUE);
+        DocIdSetIterator expected =
+            postingsScorer == null ? DocIdSetIterator.empty() : postingsScorer.iterator();
+        DocIdSetIterator actual =
+            docValuesScorer == null ? DocIdSetIterator.empty() : docValuesScorer.iterator();
+        int count = 0;
+        for (int doc = expected.nextDoc();
+            doc != DocIdSetIterator.NO_MORE_DOCS;
+            doc = expected.nextDoc()) {
+          assertEquals(doc, actual.nextDoc());
+          count++;
+        }
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, actual.nextDoc());
+        assertTrue(cost >= count);
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testIgnoresDocValuesWithOtherValues() throws IOException {
+    // doc values that differ from the indexed terms, as with analyzed text, must not be used
+    final String field = "f";
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField(field, Integer.toString(i % 10), Store.NO));
+      doc.add(new SortedSetDocValuesField(field, new BytesRef("Value " + (i % 10))));
+      iw.addDocument(doc);
+    }
+    final IndexReader reader = iw.getReader();
+    iw.close();
+    final IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(null);
+
+    List<BytesRef> queryTerms = new ArrayList<>();
+    for (int i = 0; i < 20; ++i) {
+      queryTerms.add(new BytesRef(Integer.toString(i)));
+    }
+    final Query query = searcher.rewrite(new TermInSetQuery(field, queryTerms));
+    final Weight weight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1);
+    int count = 0;
+    for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+      ScorerSupplier supplier = weight.scorerSupplier(context);
+      if (supplier == null) {
+        continue;
+      }
+      // even with a very selective lead, matches come from the indexed terms
+      DocIdSetIterator it = supplier.get(0).iterator();
+      while (it.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+        count++;
+      }
+    }
+    assertEquals(numDocs, count);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNoMatchingTermsInConjunction() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    for (int i = 0; i < 10; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", "present" + i, Store.NO));
+      doc.add(new StringField("g", "x", Store.NO));
+      iw.addDocument(doc);
+    }
+    iw.forceMerge(1);
+    final IndexReader reader = iw.getReader();
+    iw.close();
+    final IndexSearcher searcher = newSearcher(reader);
+    searcher.setQueryCache(null);
+
+    // more terms than the rewrite threshold, none of which exist in the field
+    List<BytesRef> queryTerms = new ArrayList<>();
+    for (int i = 0; i <= TermInSetQuery.BOOLEAN_REWRITE_TERM_COUNT_THRESHOLD; ++i) {
+      queryTerms.add(new BytesRef("absent" + i));
+    }
+    final Query termInSet = new TermInSetQuery("f", queryTerms);
+    for (Occur occur : new Occur[] {Occur.FILTER, Occur.MUST}) {
+      Query query =
+          new BooleanQuery.Builder()
+              .add(new TermQuery(new Term("g", "x")), Occur.MUST)
+              .add(termInSet, occur)
+              .build();
+      assertEquals(0, searcher.count(query));
+      assertEquals(0, searcher.search(query, 10).totalHits.value);
+      assertEquals(0, searcher.count(new ConstantScoreQuery(query)));
+    }
+
+    reader.close();
+    dir.close();
+  }
+
   private void assertSameMatches(IndexSearcher searcher, Query q1, Query q2, boolean scores)
       throws IOException {
     final int maxDoc = searcher.getIndexReader().maxDoc();
@@ -17,14 +17,18 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CompositeReaderContext;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
@@ -34,6 +38,7 @@ import org.apache.lucene.index.TermStates;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
@@ -137,6 +142,80 @@ public class TestTermQuery extends LuceneTestCase {
     IOUtils.close(reader, w, dir);
   }
 
+  public void testBulkScorer() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      StringBuilder body = new StringBuilder();
+      for (int j = random().nextInt(10); j >= 0; --j) {
+        body.append(random().nextInt(3) == 0 ? "foo " : "bar ");
+      }
+      Document doc = new Document();
+      doc.add(new TextField("body", body.toString(), Store.NO));
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      w.addDocument(doc);
+    }
+    for (int i = 0; i < numDocs / 10; ++i) {
+      w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(numDocs))));
+    }
+    DirectoryReader reader = w.getReader();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    Weight weight =
+        searcher.createWeight(new TermQuery(new Term("body", "foo")), ScoreMode.COMPLETE, 1f);
+
+    for (LeafReaderContext context : reader.leaves()) {
+      Scorer scorer = weight.scorer(context);
+      BulkScorer bulkScorer = weight.bulkScorer(context);
+      if (scorer == null) {
+        assertNull(bulkScorer);
+        continue;
+      }
+      assertTrue(bulkScorer instanceof TermBulkScorer);
+      Bits liveDocs = context.reader().getLiveDocs();
+      List<Integer> expectedDocs = new ArrayList<>();
+      List<Float> expectedScores = new ArrayList<>();
+      for (int doc = scorer.iterator().nextDoc();
+          doc != DocIdSetIterator.NO_MORE_DOCS;
+          doc = scorer.iterator().nextDoc()) {
+        if (liveDocs == null || liveDocs.get(doc)) {
+          expectedDocs.add(doc);
+          expectedScores.add(scorer.score());
+        }
+      }
+
+      List<Integer> actualDocs = new ArrayList<>();
+      List<Float> actualScores = new ArrayList<>();
+      LeafCollector collector =
+          new LeafCollector() {
+            Scorable scorer;
+
+            @Override
+            public void setScorer(Scorable scorer) {
+              this.scorer = scorer;
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+              assertEquals(doc, scorer.docID());
+              actualDocs.add(doc);
+              actualScores.add(scorer.score());
+            }
+          };
+      // score by random windows
+      int maxDoc = context.reader().maxDoc();
+      for (int min = 0; min < maxDoc; ) {
+        int max = Math.min(maxDoc, min + random().nextInt(300));
+        min = bulkScorer.score(collector, liveDocs, min, max);
+        assertTrue(min >= max);
+      }
+      assertEquals(expectedDocs, actualDocs);
+      assertEquals(expectedScores, actualScores);
+    }
+
+    IOUtils.close(reader, w, dir);
+  }
+
   private static class NoSeekDirectoryReader extends FilterDirectoryReader {
 
     public NoSeekDirectoryReader(DirectoryReader in) throws IOException {
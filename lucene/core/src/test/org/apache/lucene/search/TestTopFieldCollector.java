@@ -21,6 +21,7 @@ import static org.apache.lucene.search.SortField.FIELD_SCORE;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -28,7 +29,9 @@ import java.util.concurrent.TimeUnit;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
@@ -41,6 +44,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
@@ -729,6 +733,94 @@ public class TestTopFieldCollector extends LuceneTestCase {
     dir.close();
   }
 
+  public void testRandomConcurrentFieldSort() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
+    int numDocs = atLeast(2000);
+    int numValues = TestUtil.nextInt(random(), 1, numDocs);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(10) != 0) {
+        int value = random().nextInt(numValues);
+        doc.add(new NumericDocValuesField("long", value));
+        doc.add(new LongPoint("long", value));
+        String term = Integer.toString(value);
+        doc.add(new SortedDocValuesField("string", new BytesRef(term)));
+        doc.add(new StringField("string", term, Store.NO));
+      }
+      doc.add(new StringField("filter", Integer.toString(random().nextInt(3)), Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(500) == 0) {
+        w.commit();
+      }
+    }
+    IndexReader indexReader = w.getReader();
+    w.close();
+
+    ExecutorService service =
+        new ThreadPoolExecutor(
+            4,
+            4,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamedThreadFactory("TestTopFieldCollector"));
+    try {
+      IndexSearcher searcher = new IndexSearcher(indexReader);
+      // one slice per segment so that collectors share their bottom values
+      IndexSearcher concurrentSearcher =
+          new IndexSearcher(indexReader, service) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+              return balancedSlices(leaves, Integer.MAX_VALUE, 1);
+            }
+          };
+      for (int iter = 0; iter < 50; ++iter) {
+        final SortField sortField;
+        if (random().nextBoolean()) {
+          sortField = new SortField("long", SortField.Type.LONG, random().nextBoolean());
+          if (random().nextBoolean()) {
+            sortField.setMissingValue((long) random().nextInt(numValues));
+          }
+        } else {
+          sortField = new SortField("string", SortField.Type.STRING, random().nextBoolean());
+          sortField.setMissingValue(
+              random().nextBoolean() ? SortField.STRING_FIRST : SortField.STRING_LAST);
+        }
+        Sort sort =
+            random().nextBoolean()
+                ? new Sort(sortField)
+                : new Sort(sortField, SortField.FIELD_DOC);
+        Query query =
+            random().nextBoolean()
+                ? new MatchAllDocsQuery()
+                : new TermQuery(new Term("filter", Integer.toString(random().nextInt(3))));
+        int numHits = TestUtil.nextInt(random(), 1, 100);
+        FieldDoc after = null;
+        if (random().nextBoolean()) {
+          TopDocs page = searcher.search(query, TestUtil.nextInt(random(), 1, 200), sort);
+          if (page.scoreDocs.length > 0) {
+            after = (FieldDoc) page.scoreDocs[page.scoreDocs.length - 1];
+          }
+        }
+
+        TopFieldCollector collector =
+            TopFieldCollector.create(sort, numHits, after, Integer.MAX_VALUE);
+        searcher.search(query, collector);
+        TopDocs expected = collector.topDocs();
+        TopDocs actual = concurrentSearcher.searchAfter(after, query, numHits, sort);
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; ++i) {
+          assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        }
+      }
+    } finally {
+      service.shutdown();
+      indexReader.close();
+      dir.close();
+    }
+  }
+
   public void testRelationVsTopDocsCount() throws Exception {
     Sort sort = new Sort(SortField.FIELD_SCORE, SortField.FIELD_DOC);
     try (Directory dir = newDirectory();
@@ -26,6 +26,7 @@ import java.util.Set;
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
@@ -48,16 +49,26 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
   private RandomIndexWriter iw;
   private IndexReader reader;
   private static final int FORCE_MERGE_MAX_SEGMENT_COUNT = 5;
+  // whether to index the search sort field with points, so that its comparator can skip documents
+  private boolean indexPoints;
 
   private Document randomDocument() {
     final Document doc = new Document();
-    doc.add(new NumericDocValuesField("ndv1", random().nextInt(10)));
+    final int ndv1 = random().nextInt(10);
+    doc.add(new NumericDocValuesField("ndv1", ndv1));
+    if (indexPoints) {
+      doc.add(new LongPoint("ndv1", ndv1));
+    }
     doc.add(new NumericDocValuesField("ndv2", random().nextInt(10)));
     doc.add(new StringField("s", RandomPicks.randomFrom(random(), terms), Store.YES));
     return doc;
   }
 
   private void createRandomIndex(boolean singleSortedSegment) throws IOException {
+    createRandomIndex(singleSortedSegment, sort);
+  }
+
+  private void createRandomIndex(boolean singleSortedSegment, Sort indexSort) throws IOException {
     dir = newDirectory();
     numDocs = atLeast(150);
     final int numTerms = TestUtil.nextInt(random(), 1, numDocs / 5);
@@ -73,7 +84,7 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
       iwc.setMergePolicy(newTieredMergePolicy());
     }
     iwc.setMergeScheduler(new SerialMergeScheduler()); // for reproducible tests
-    iwc.setIndexSort(sort);
+    iwc.setIndexSort(indexSort);
     iw = new RandomIndexWriter(new Random(seed), dir, iwc);
     iw.setDoRandomForceMerge(false); // don't do this, it may happen anyway with MockRandomMP
     for (int i = 0; i < numDocs; ++i) {
@@ -165,6 +176,80 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
     }
   }
 
+  public void testEarlyTerminationOnIndexSortSuffix() throws IOException {
+    // the index is sorted by ndv2 first, so the search sort only holds within runs of docs that
+    // have the same value for ndv2
+    final Sort indexSort = new Sort(new SortField("ndv2", SortField.Type.LONG), sort.getSort()[0]);
+    final int iters = atLeast(1);
+    for (int i = 0; i < iters; ++i) {
+      // with points, skipping by value and skipping runs are combined
+      indexPoints = random().nextBoolean();
+      createRandomIndex(false, indexSort);
+      for (int j = 0; j < iters; ++j) {
+        final IndexSearcher searcher = newSearcher(reader);
+        final int numHits = TestUtil.nextInt(random(), 1, numDocs);
+        final FieldDoc after;
+        if (random().nextBoolean()) {
+          TopFieldDocs td = searcher.search(new MatchAllDocsQuery(), 10, sort);
+          after = (FieldDoc) td.scoreDocs[td.scoreDocs.length - 1];
+        } else {
+          after = null;
+        }
+        final TopFieldCollector collector1 =
+            TopFieldCollector.create(sort, numHits, after, Integer.MAX_VALUE);
+        final TopFieldCollector collector2 = TopFieldCollector.create(sort, numHits, after, 1);
+
+        final Query query;
+        if (random().nextBoolean()) {
+          query = new TermQuery(new Term("s", RandomPicks.randomFrom(random(), terms)));
+        } else {
+          query = new MatchAllDocsQuery();
+        }
+        searcher.search(query, collector1);
+        searcher.search(query, collector2);
+        TopDocs td1 = collector1.topDocs();
+        TopDocs td2 = collector2.topDocs();
+
+        assertFalse(collector1.isEarlyTerminated());
+        if (collector2.isEarlyTerminated()) {
+          assertTrue(td2.totalHits.value >= td1.scoreDocs.length);
+          assertTrue(td2.totalHits.value <= td1.totalHits.value);
+        } else {
+          assertEquals(td2.totalHits.value, td1.totalHits.value);
+        }
+        CheckHits.checkEqual(query, td1.scoreDocs, td2.scoreDocs);
+      }
+      closeIndex();
+    }
+  }
+
+  public void testGetIndexSortLeadingFields() {
+    SortField a = new SortField("a", SortField.Type.LONG);
+    SortField b = new SortField("b", SortField.Type.STRING);
+    SortField c = new SortField("c", SortField.Type.LONG, true);
+
+    assertArrayEquals(
+        new SortField[] {a},
+        TopFieldCollector.getIndexSortLeadingFields(new Sort(b), new Sort(a, b)));
+    assertArrayEquals(
+        new SortField[] {a, b},
+        TopFieldCollector.getIndexSortLeadingFields(new Sort(c), new Sort(a, b, c)));
+    assertArrayEquals(
+        new SortField[] {a},
+        TopFieldCollector.getIndexSortLeadingFields(new Sort(b, c), new Sort(a, b, c)));
+    assertArrayEquals(
+        new SortField[] {a},
+        TopFieldCollector.getIndexSortLeadingFields(new Sort(b), new Sort(a, b, c)));
+
+    assertNull(TopFieldCollector.getIndexSortLeadingFields(new Sort(b), null));
+    assertNull(TopFieldCollector.getIndexSortLeadingFields(new Sort(a), new Sort(a, b)));
+    assertNull(TopFieldCollector.getIndexSortLeadingFields(new Sort(c), new Sort(a, b)));
+    assertNull(TopFieldCollector.getIndexSortLeadingFields(new Sort(c, b), new Sort(a, b, c)));
+    assertNull(
+        TopFieldCollector.getIndexSortLeadingFields(
+            new Sort(new SortField("b", SortField.Type.STRING, true)), new Sort(a, b)));
+  }
+
   public void testCanEarlyTerminateOnDocId() {
     assertTrue(
         TopFieldCollector.canEarlyTerminate(
@@ -18,6 +18,9 @@ package org.apache.lucene.store;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import org.junit.Ignore;
@@ -30,7 +33,17 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
   @Override
   protected Directory getDirectory(Path path) throws IOException {
     MMapDirectory m = new MMapDirectory(path);
-    m.setPreload(random().nextBoolean());
+    switch (random().nextInt(3)) {
+      case 0:
+        m.setPreload(random().nextBoolean());
+        break;
+      case 1:
+        m.setPreload(MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE);
+        break;
+      default:
+        m.setPreload((name, context) -> name.hashCode() % 2 == 0);
+        break;
+    }
     return m;
   }
 
@@ -40,6 +53,42 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
     assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
   }
 
+  public void testPreloadPredicate() throws Exception {
+    try (MMapDirectory dir = new MMapDirectory(createTempDir("testPreloadPredicate"))) {
+      assertFalse(dir.getPreload());
+      assertSame(MMapDirectory.NO_FILES, dir.getPreloadPredicate());
+      dir.setPreload(true);
+      assertTrue(dir.getPreload());
+      assertSame(MMapDirectory.ALL_FILES, dir.getPreloadPredicate());
+
+      List<String> preloaded = new ArrayList<>();
+      dir.setPreload(
+          (name, context) -> {
+            preloaded.add(name + ":" + context.context);
+            return MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE.test(name, context);
+          });
+      assertFalse(dir.getPreload());
+      expectThrows(NullPointerException.class, () -> dir.setPreload(null));
+
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        out.writeInt(42);
+      }
+      IOContext merge = new IOContext(new MergeInfo(1, 4, false, 1));
+      for (IOContext context : new IOContext[] {IOContext.READ, IOContext.READONCE, merge}) {
+        try (IndexInput in = dir.openInput("test", context)) {
+          assertEquals(42, in.readInt());
+        }
+      }
+      assertEquals(Arrays.asList("test:READ", "test:READ", "test:MERGE"), preloaded);
+    }
+    assertTrue(MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE.test("_0.tim", IOContext.READ));
+    assertFalse(
+        MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE.test("segments_1", IOContext.READONCE));
+    assertFalse(
+        MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE.test(
+            "_0.doc", new IOContext(new MergeInfo(1, 4, false, 1))));
+  }
+
   @Ignore(
       "This test is for JVM testing purposes. There are no guarantees that it may not fail with SIGSEGV!")
   public void testAceWithThreads() throws Exception {
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.automaton;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestAutomatonCache extends LuceneTestCase {
+
+  private static class Value implements Accountable {
+    final long ramBytesUsed;
+
+    Value(long ramBytesUsed) {
+      this.ramBytesUsed = ramBytesUsed;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return ramBytesUsed;
+    }
+  }
+
+  public void testComputeIfAbsent() {
+    AutomatonCache cache = new AutomatonCache(10, 1 << 20);
+    AtomicInteger computed = new AtomicInteger();
+    Value v1 =
+        cache.computeIfAbsent(
+            "foo",
+            () -> {
+              computed.incrementAndGet();
+              return new Value(10);
+            });
+    Value v2 =
+        cache.computeIfAbsent(
+            "foo",
+            () -> {
+              computed.incrementAndGet();
+              return new Value(10);
+            });
+    assertSame(v1, v2);
+    assertEquals(1, computed.get());
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    Value v3 = cache.computeIfAbsent("bar", () -> new Value(10));
+    assertNotSame(v1, v3);
+    assertEquals(2, cache.size());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNotSame(v1, cache.computeIfAbsent("foo", () -> new Value(10)));
+  }
+
+  public void testEvictBySize() {
+    AutomatonCache cache = new AutomatonCache(3, 1 << 20);
+    Value foo = cache.computeIfAbsent("foo", () -> new Value(10));
+    cache.computeIfAbsent("bar", () -> new Value(10));
+    cache.computeIfAbsent("baz", () -> new Value(10));
+    // make "bar" the least recently used entry
+    assertSame(foo, cache.computeIfAbsent("foo", () -> new Value(10)));
+    cache.computeIfAbsent("quux", () -> new Value(10));
+    assertEquals(3, cache.size());
+    assertSame(foo, cache.computeIfAbsent("foo", () -> new Value(10)));
+    final long misses = cache.getMissCount();
+    cache.computeIfAbsent("bar", () -> new Value(10));
+    assertEquals(misses + 1, cache.getMissCount());
+  }
+
+  public void testEvictByRamBytesUsed() {
+    AutomatonCache cache = new AutomatonCache(100, 10_000);
+    final long emptyRamBytesUsed = cache.ramBytesUsed();
+    for (int i = 0; i < 50; ++i) {
+      cache.computeIfAbsent(i, () -> new Value(1000));
+      assertTrue(cache.ramBytesUsed() - emptyRamBytesUsed <= 10_000);
+    }
+    assertTrue(cache.size() < 10);
+    assertTrue(cache.size() > 0);
+
+    // values that are larger than the budget are never cached
+    cache.clear();
+    assertEquals(emptyRamBytesUsed, cache.ramBytesUsed());
+    Value large = cache.computeIfAbsent("large", () -> new Value(20_000));
+    assertEquals(0, cache.size());
+    assertNotSame(large, cache.computeIfAbsent("large", () -> new Value(20_000)));
+  }
+
+  public void testExceptionsAreNotCached() {
+    AutomatonCache cache = new AutomatonCache(10, 1 << 20);
+    // (a|b)*a(a|b){8}, not determinized
+    Automaton ab = Automata.makeCharRange('a', 'b');
+    Automaton a =
+        Operations.concatenate(
+            Arrays.asList(
+                Operations.repeat(ab), Automata.makeChar('a'), Operations.repeat(ab, 8, 8)));
+    assertFalse(a.isDeterministic());
+    expectThrows(
+        TooComplexToDeterminizeException.class,
+        () ->
+            cache.computeIfAbsent(
+                "complex", () -> new CompiledAutomaton(a, null, true, 100, false)));
+    assertEquals(0, cache.size());
+    CompiledAutomaton compiled =
+        cache.computeIfAbsent(
+            "complex", () -> new CompiledAutomaton(a, null, true, Integer.MAX_VALUE, false));
+    assertEquals(1, cache.size());
+    assertSame(
+        compiled,
+        cache.computeIfAbsent(
+            "complex", () -> new CompiledAutomaton(a, null, true, Integer.MAX_VALUE, false)));
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new AutomatonCache(-1, 1000));
+    expectThrows(IllegalArgumentException.class, () -> new AutomatonCache(10, -1));
+  }
+}
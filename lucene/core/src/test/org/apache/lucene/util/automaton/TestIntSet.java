@@ -16,6 +16,8 @@
  */
 package org.apache.lucene.util.automaton;
 
+import java.util.Map;
+import java.util.TreeMap;
 import org.apache.lucene.util.LuceneTestCase;
 import org.junit.Test;
 
@@ -31,14 +33,13 @@ public class TestIntSet extends LuceneTestCase {
   }
 
   private void testFreezeEquality(int size) {
-    SortedIntSet sortedSet = new SortedIntSet(0);
+    StateSet sortedSet = new StateSet(0);
 
     for (int i = 0; i < size; i++) {
       // Some duplicates is nice but not critical
       sortedSet.incr(random().nextInt(i + 1));
     }
 
-    sortedSet.computeHash();
     IntSet frozen0 = sortedSet.freeze(0);
 
     assertEquals("Frozen set not equal to origin sorted set.", sortedSet, frozen0);
@@ -50,45 +51,65 @@ public class TestIntSet extends LuceneTestCase {
   }
 
   @Test
-  public void testMapCutover() {
-    SortedIntSet set = new SortedIntSet(10);
+  public void testRehash() {
+    StateSet set = new StateSet(10);
     for (int i = 0; i < 35; i++) {
-      // No duplicates so there are enough elements to trigger impl cutover
+      // No duplicates so there are enough elements to trigger a rehash
       set.incr(i);
     }
 
-    set.computeHash();
-    assertTrue(set.size() > 32);
+    assertEquals(35, set.size());
+    assertEquals(35, set.getArray().length);
 
     for (int i = 0; i < 35; i++) {
-      // This is pretty much the worst case, perf wise
       set.decr(i);
     }
 
-    set.computeHash();
-    assertTrue(set.size() == 0);
+    assertEquals(0, set.size());
+    assertEquals(0, set.getArray().length);
+    assertEquals(new StateSet(10).hashCode(), set.hashCode());
   }
 
   @Test
   public void testModify() {
-    SortedIntSet set = new SortedIntSet(2);
+    StateSet set = new StateSet(2);
     set.incr(1);
     set.incr(2);
-    set.computeHash();
 
     FrozenIntSet set2 = set.freeze(0);
     assertEquals(set, set2);
 
     set.incr(1);
-    set.computeHash();
     assertEquals(set, set2);
 
     set.decr(1);
-    set.computeHash();
     assertEquals(set, set2);
 
     set.decr(1);
-    set.computeHash();
     assertNotEquals(set, set2);
   }
+
+  @Test
+  public void testRandom() {
+    StateSet set = new StateSet(random().nextInt(10));
+    Map<Integer, Integer> expected = new TreeMap<>();
+    final int maxState = 1 + random().nextInt(200);
+    for (int iter = 0; iter < 10000; iter++) {
+      final int state = random().nextInt(maxState);
+      if (random().nextBoolean() && expected.containsKey(state)) {
+        set.decr(state);
+        expected.computeIfPresent(state, (k, v) -> v == 1 ? null : v - 1);
+      } else {
+        set.incr(state);
+        expected.merge(state, 1, Integer::sum);
+      }
+      assertEquals(expected.size(), set.size());
+      if (random().nextInt(10) == 0) {
+        final int[] states = expected.keySet().stream().mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(states, set.getArray());
+        assertEquals(StateSet.hashCode(states), set.hashCode());
+        assertEquals(new FrozenIntSet(states, StateSet.hashCode(states), 0), set);
+      }
+    }
+  }
 }
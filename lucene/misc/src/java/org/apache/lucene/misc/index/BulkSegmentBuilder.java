@@ -0,0 +1,701 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.BaseTermsEnum;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafMetaData;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SlowCodecReaderWrapper;
+import org.apache.lucene.index.SlowImpactsEnum;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.Version;
+
+/**
+ * Builds a segment from data that has already been analyzed and sorted, typically by an offline
+ * job, without going through {@link IndexWriter}'s in-memory inversion. Terms are added per field
+ * in sorted order together with their postings, and doc values are added as dense columns. The
+ * result of {@link #build()} is a {@link CodecReader} that can be passed to {@link
+ * IndexWriter#addIndexes(CodecReader...)}, which writes it with the codec's consumers the same way
+ * it would merge an existing segment.
+ *
+ * <p>Example:
+ *
+ * <pre class="prettyprint">
+ * BulkSegmentBuilder builder = new BulkSegmentBuilder(maxDoc);
+ * BulkSegmentBuilder.TermsBuilder body = builder.addTerms("body", IndexOptions.DOCS_AND_FREQS);
+ * body.add(new BytesRef("apache"), new int[] {0, 3}, new int[] {2, 1});
+ * body.add(new BytesRef("lucene"), new int[] {1, 3}, new int[] {1, 4});
+ * builder.addNumericDocValues("popularity", popularityColumn);
+ * writer.addIndexes(builder.build());
+ * </pre>
+ *
+ * <p>Only {@link IndexOptions#DOCS} and {@link IndexOptions#DOCS_AND_FREQS} are supported. Fields
+ * omit norms unless norms are provided via {@link #addNorms(String, long[])}, in which case they
+ * must have been encoded the same way as the {@link
+ * org.apache.lucene.search.similarities.Similarity} of the target index would encode them. All data
+ * is held in memory until the segment has been added, so the size of the segments that are built
+ * this way should be bounded.
+ *
+ * @lucene.experimental
+ */
+public final class BulkSegmentBuilder {
+
+  private final int maxDoc;
+  private final Map<String, TermsBuilder> terms = new LinkedHashMap<>();
+  private final Map<String, long[]> numericDocValues = new LinkedHashMap<>();
+  private final Map<String, long[]> norms = new LinkedHashMap<>();
+  private Sort indexSort;
+
+  /** Create a builder for a segment of {@code maxDoc} documents. */
+  public BulkSegmentBuilder(int maxDoc) {
+    if (maxDoc < 0 || maxDoc > IndexWriter.MAX_DOCS) {
+      throw new IllegalArgumentException(
+          "maxDoc must be between 0 and " + IndexWriter.MAX_DOCS + ", got " + maxDoc);
+    }
+    this.maxDoc = maxDoc;
+  }
+
+  /**
+   * Declare that documents have been sorted according to the given {@link Sort}, which must match
+   * the index sort of the {@link IndexWriter} the segment is added to. The order of documents is
+   * not verified.
+   */
+  public BulkSegmentBuilder setIndexSort(Sort indexSort) {
+    this.indexSort = indexSort;
+    return this;
+  }
+
+  /** Start adding terms for the given field. Terms must be added in {@link BytesRef} order. */
+  public TermsBuilder addTerms(String field, IndexOptions indexOptions) {
+    if (indexOptions != IndexOptions.DOCS && indexOptions != IndexOptions.DOCS_AND_FREQS) {
+      throw new IllegalArgumentException(
+          "only DOCS and DOCS_AND_FREQS are supported, got " + indexOptions);
+    }
+    if (terms.containsKey(field)) {
+      throw new IllegalArgumentException("terms have already been added for field: " + field);
+    }
+    TermsBuilder builder = new TermsBuilder(field, indexOptions);
+    terms.put(field, builder);
+    return builder;
+  }
+
+  /**
+   * Add a dense column of numeric doc values for the given field. {@code values[doc]} is the value
+   * of document {@code doc}. The array is not copied.
+   */
+  public BulkSegmentBuilder addNumericDocValues(String field, long[] values) {
+    checkColumn(field, values, numericDocValues);
+    numericDocValues.put(field, values);
+    return this;
+  }
+
+  /**
+   * Add already encoded norms for an indexed field. {@code norms[doc]} is the norm of document
+   * {@code doc}. Every document gets a norm, including documents that have no terms in this field,
+   * whereas {@link IndexWriter} only writes norms for documents that have terms. The array is not
+   * copied.
+   */
+  public BulkSegmentBuilder addNorms(String field, long[] norms) {
+    checkColumn(field, norms, this.norms);
+    this.norms.put(field, norms);
+    return this;
+  }
+
+  private void checkColumn(String field, long[] values, Map<String, long[]> columns) {
+    if (values.length != maxDoc) {
+      throw new IllegalArgumentException(
+          "expected " + maxDoc + " values for field " + field + ", got " + values.length);
+    }
+    if (columns.containsKey(field)) {
+      throw new IllegalArgumentException("values have already been added for field: " + field);
+    }
+  }
+
+  /** Return a {@link CodecReader} over the data that has been added to this builder. */
+  public CodecReader build() throws IOException {
+    for (String field : norms.keySet()) {
+      if (terms.containsKey(field) == false) {
+        throw new IllegalStateException("norms were added for field " + field + " without terms");
+      }
+    }
+    List<String> fieldNames = new ArrayList<>(terms.keySet());
+    for (String field : numericDocValues.keySet()) {
+      if (terms.containsKey(field) == false) {
+        fieldNames.add(field);
+      }
+    }
+    FieldInfo[] infos = new FieldInfo[fieldNames.size()];
+    Map<String, Terms> fieldTerms = new LinkedHashMap<>();
+    for (int i = 0; i < infos.length; ++i) {
+      String field = fieldNames.get(i);
+      TermsBuilder termsBuilder = terms.get(field);
+      IndexOptions indexOptions = IndexOptions.NONE;
+      if (termsBuilder != null) {
+        indexOptions = termsBuilder.indexOptions;
+        fieldTerms.put(field, termsBuilder.finish());
+      }
+      DocValuesType docValuesType =
+          numericDocValues.containsKey(field) ? DocValuesType.NUMERIC : DocValuesType.NONE;
+      boolean omitNorms = indexOptions != IndexOptions.NONE && norms.containsKey(field) == false;
+      infos[i] =
+          new FieldInfo(
+              field,
+              i,
+              false,
+              omitNorms,
+              false,
+              indexOptions,
+              docValuesType,
+              -1,
+              Collections.emptyMap(),
+              0,
+              0,
+              0,
+              0,
+              VectorValues.SearchStrategy.NONE,
+              false);
+    }
+    return SlowCodecReaderWrapper.wrap(
+        new BulkLeafReader(
+            maxDoc,
+            new FieldInfos(infos),
+            fieldTerms,
+            new LinkedHashMap<>(numericDocValues),
+            new LinkedHashMap<>(norms),
+            new LeafMetaData(Version.LATEST.major, Version.LATEST, indexSort)));
+  }
+
+  /** Accumulates the sorted terms and postings of a single field. */
+  public final class TermsBuilder {
+    private final String field;
+    private final IndexOptions indexOptions;
+    private final List<BytesRef> termList = new ArrayList<>();
+    private final List<int[]> docsList = new ArrayList<>();
+    private final List<int[]> freqsList = new ArrayList<>();
+    private final FixedBitSet docsWithField = new FixedBitSet(maxDoc);
+    private long sumDocFreq;
+    private long sumTotalTermFreq;
+    private boolean finished;
+
+    private TermsBuilder(String field, IndexOptions indexOptions) {
+      this.field = field;
+      this.indexOptions = indexOptions;
+    }
+
+    /**
+     * Add a term with its postings. {@code docs} must be sorted in increasing order without
+     * duplicates. {@code freqs} holds the frequency of the term in each of {@code docs} and is
+     * ignored if the field only indexes docs. Arrays are not copied.
+     */
+    public TermsBuilder add(BytesRef term, int[] docs, int[] freqs) {
+      if (finished) {
+        throw new IllegalStateException("the segment has already been built");
+      }
+      if (termList.isEmpty() == false && termList.get(termList.size() - 1).compareTo(term) >= 0) {
+        throw new IllegalArgumentException(
+            "terms must be added in increasing order for field "
+                + field
+                + ", got "
+                + term
+                + " after "
+                + termList.get(termList.size() - 1));
+      }
+      if (docs.length == 0) {
+        throw new IllegalArgumentException("term " + term + " of field " + field + " has no docs");
+      }
+      final boolean hasFreqs = indexOptions == IndexOptions.DOCS_AND_FREQS;
+      if (hasFreqs && (freqs == null || freqs.length != docs.length)) {
+        throw new IllegalArgumentException(
+            "expected " + docs.length + " freqs for term " + term + " of field " + field);
+      }
+      int previousDoc = -1;
+      for (int i = 0; i < docs.length; ++i) {
+        final int doc = docs[i];
+        if (doc <= previousDoc || doc >= maxDoc) {
+          throw new IllegalArgumentException(
+              "docs must be increasing and less than "
+                  + maxDoc
+                  + " for term "
+                  + term
+                  + " of field "
+                  + field
+                  + ", got "
+                  + doc
+                  + " after "
+                  + previousDoc);
+        }
+        if (hasFreqs && freqs[i] <= 0) {
+          throw new IllegalArgumentException(
+              "freqs must be positive for term " + term + " of field " + field);
+        }
+        docsWithField.set(doc);
+        sumTotalTermFreq += hasFreqs ? freqs[i] : 1;
+        previousDoc = doc;
+      }
+      sumDocFreq += docs.length;
+      termList.add(BytesRef.deepCopyOf(term));
+      docsList.add(docs);
+      freqsList.add(hasFreqs ? freqs : null);
+      return this;
+    }
+
+    private Terms finish() {
+      finished = true;
+      return new BulkTerms(
+          termList.toArray(new BytesRef[0]),
+          docsList.toArray(new int[0][]),
+          freqsList.toArray(new int[0][]),
+          indexOptions == IndexOptions.DOCS_AND_FREQS,
+          sumDocFreq,
+          sumTotalTermFreq,
+          docsWithField.cardinality());
+    }
+  }
+
+  private static final class BulkLeafReader extends LeafReader {
+    private final int maxDoc;
+    private final FieldInfos fieldInfos;
+    private final Map<String, Terms> terms;
+    private final Map<String, long[]> numericDocValues;
+    private final Map<String, long[]> norms;
+    private final LeafMetaData metaData;
+
+    BulkLeafReader(
+        int maxDoc,
+        FieldInfos fieldInfos,
+        Map<String, Terms> terms,
+        Map<String, long[]> numericDocValues,
+        Map<String, long[]> norms,
+        LeafMetaData metaData) {
+      this.maxDoc = maxDoc;
+      this.fieldInfos = fieldInfos;
+      this.terms = terms;
+      this.numericDocValues = numericDocValues;
+      this.norms = norms;
+      this.metaData = metaData;
+    }
+
+    @Override
+    public CacheHelper getCoreCacheHelper() {
+      return null;
+    }
+
+    @Override
+    public CacheHelper getReaderCacheHelper() {
+      return null;
+    }
+
+    @Override
+    public Terms terms(String field) {
+      return terms.get(field);
+    }
+
+    @Override
+    public NumericDocValues getNumericDocValues(String field) {
+      long[] values = numericDocValues.get(field);
+      return values == null ? null : new DenseNumericDocValues(values);
+    }
+
+    @Override
+    public BinaryDocValues getBinaryDocValues(String field) {
+      return null;
+    }
+
+    @Override
+    public SortedDocValues getSortedDocValues(String field) {
+      return null;
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumericDocValues(String field) {
+      return null;
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSetDocValues(String field) {
+      return null;
+    }
+
+    @Override
+    public NumericDocValues getNormValues(String field) {
+      long[] values = norms.get(field);
+      return values == null ? null : new DenseNumericDocValues(values);
+    }
+
+    @Override
+    public VectorValues getVectorValues(String field) {
+      return null;
+    }
+
+    @Override
+    public FieldInfos getFieldInfos() {
+      return fieldInfos;
+    }
+
+    @Override
+    public Bits getLiveDocs() {
+      return null;
+    }
+
+    @Override
+    public PointValues getPointValues(String field) {
+      return null;
+    }
+
+    @Override
+    public void checkIntegrity() {}
+
+    @Override
+    public LeafMetaData getMetaData() {
+      return metaData;
+    }
+
+    @Override
+    public Fields getTermVectors(int docID) {
+      return null;
+    }
+
+    @Override
+    public int numDocs() {
+      return maxDoc;
+    }
+
+    @Override
+    public int maxDoc() {
+      return maxDoc;
+    }
+
+    @Override
+    public void document(int docID, StoredFieldVisitor visitor) {}
+
+    @Override
+    protected void doClose() {}
+
+    @Override
+    public String toString() {
+      return "BulkSegmentBuilder(maxDoc=" + maxDoc + ")";
+    }
+  }
+
+  private static final class DenseNumericDocValues extends NumericDocValues {
+    private final long[] values;
+    private int doc = -1;
+
+    DenseNumericDocValues(long[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public long longValue() {
+      return values[doc];
+    }
+
+    @Override
+    public boolean advanceExact(int target) {
+      doc = target;
+      return true;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) {
+      if (target >= values.length) {
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = target;
+    }
+
+    @Override
+    public long cost() {
+      return values.length;
+    }
+  }
+
+  private static final class BulkTerms extends Terms {
+    private final BytesRef[] terms;
+    private final int[][] docs;
+    private final int[][] freqs;
+    private final boolean hasFreqs;
+    private final long sumDocFreq;
+    private final long sumTotalTermFreq;
+    private final int docCount;
+
+    BulkTerms(
+        BytesRef[] terms,
+        int[][] docs,
+        int[][] freqs,
+        boolean hasFreqs,
+        long sumDocFreq,
+        long sumTotalTermFreq,
+        int docCount) {
+      this.terms = terms;
+      this.docs = docs;
+      this.freqs = freqs;
+      this.hasFreqs = hasFreqs;
+      this.sumDocFreq = sumDocFreq;
+      this.sumTotalTermFreq = sumTotalTermFreq;
+      this.docCount = docCount;
+    }
+
+    @Override
+    public TermsEnum iterator() {
+      return new BulkTermsEnum(this);
+    }
+
+    @Override
+    public long size() {
+      return terms.length;
+    }
+
+    @Override
+    public long getSumTotalTermFreq() {
+      return sumTotalTermFreq;
+    }
+
+    @Override
+    public long getSumDocFreq() {
+      return sumDocFreq;
+    }
+
+    @Override
+    public int getDocCount() {
+      return docCount;
+    }
+
+    @Override
+    public boolean hasFreqs() {
+      return hasFreqs;
+    }
+
+    @Override
+    public boolean hasOffsets() {
+      return false;
+    }
+
+    @Override
+    public boolean hasPositions() {
+      return false;
+    }
+
+    @Override
+    public boolean hasPayloads() {
+      return false;
+    }
+  }
+
+  private static final class BulkTermsEnum extends BaseTermsEnum {
+    private final BulkTerms terms;
+    private int ord = -1;
+
+    BulkTermsEnum(BulkTerms terms) {
+      this.terms = terms;
+    }
+
+    @Override
+    public BytesRef next() {
+      if (ord + 1 >= terms.terms.length) {
+        ord = terms.terms.length;
+        return null;
+      }
+      return terms.terms[++ord];
+    }
+
+    @Override
+    public SeekStatus seekCeil(BytesRef text) {
+      int low = 0;
+      int high = terms.terms.length - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        final int cmp = terms.terms[mid].compareTo(text);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          ord = mid;
+          return SeekStatus.FOUND;
+        }
+      }
+      ord = low;
+      return low == terms.terms.length ? SeekStatus.END : SeekStatus.NOT_FOUND;
+    }
+
+    @Override
+    public void seekExact(long ord) {
+      this.ord = Math.toIntExact(ord);
+    }
+
+    @Override
+    public BytesRef term() {
+      return terms.terms[ord];
+    }
+
+    @Override
+    public long ord() {
+      return ord;
+    }
+
+    @Override
+    public int docFreq() {
+      return terms.docs[ord].length;
+    }
+
+    @Override
+    public long totalTermFreq() {
+      if (terms.hasFreqs == false) {
+        return docFreq();
+      }
+      long totalTermFreq = 0;
+      for (int freq : terms.freqs[ord]) {
+        totalTermFreq += freq;
+      }
+      return totalTermFreq;
+    }
+
+    @Override
+    public PostingsEnum postings(PostingsEnum reuse, int flags) {
+      BulkPostingsEnum postings;
+      if (reuse instanceof BulkPostingsEnum) {
+        postings = (BulkPostingsEnum) reuse;
+      } else {
+        postings = new BulkPostingsEnum();
+      }
+      return postings.reset(terms.docs[ord], terms.freqs[ord]);
+    }
+
+    @Override
+    public ImpactsEnum impacts(int flags) {
+      return new SlowImpactsEnum(postings(null, flags));
+    }
+  }
+
+  private static final class BulkPostingsEnum extends PostingsEnum {
+    private int[] docs;
+    private int[] freqs;
+    private int upto;
+    private int doc;
+
+    BulkPostingsEnum reset(int[] docs, int[] freqs) {
+      this.docs = docs;
+      this.freqs = freqs;
+      upto = -1;
+      doc = -1;
+      return this;
+    }
+
+    @Override
+    public int freq() {
+      return freqs == null ? 1 : freqs[upto];
+    }
+
+    @Override
+    public int nextPosition() {
+      return -1;
+    }
+
+    @Override
+    public int startOffset() {
+      return -1;
+    }
+
+    @Override
+    public int endOffset() {
+      return -1;
+    }
+
+    @Override
+    public BytesRef getPayload() {
+      return null;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (++upto >= docs.length) {
+        upto = docs.length;
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = docs[upto];
+    }
+
+    @Override
+    public int advance(int target) {
+      int low = upto + 1;
+      int high = docs.length - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        if (docs[mid] < target) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      upto = low;
+      if (upto >= docs.length) {
+        upto = docs.length;
+        return doc = NO_MORE_DOCS;
+      }
+      return doc = docs[upto];
+    }
+
+    @Override
+    public long cost() {
+      return docs.length;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.misc.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestBulkSegmentBuilder extends LuceneTestCase {
+
+  public void testAddIndexes() throws Exception {
+    final int maxDoc = atLeast(100);
+    // term -> doc -> freq
+    Map<BytesRef, TreeMap<Integer, Integer>> postings = new TreeMap<>();
+    final int numTerms = TestUtil.nextInt(random(), 1, 50);
+    for (int i = 0; i < numTerms; ++i) {
+      BytesRef term = new BytesRef(TestUtil.randomSimpleString(random(), 1, 10));
+      TreeMap<Integer, Integer> docs = postings.computeIfAbsent(term, t -> new TreeMap<>());
+      final int numDocs = TestUtil.nextInt(random(), 1, maxDoc);
+      for (int j = 0; j < numDocs; ++j) {
+        docs.put(random().nextInt(maxDoc), TestUtil.nextInt(random(), 1, 10));
+      }
+    }
+    long[] values = new long[maxDoc];
+    for (int i = 0; i < maxDoc; ++i) {
+      values[i] = random().nextLong();
+    }
+
+    BulkSegmentBuilder builder = new BulkSegmentBuilder(maxDoc);
+    BulkSegmentBuilder.TermsBuilder termsBuilder =
+        builder.addTerms("body", IndexOptions.DOCS_AND_FREQS);
+    for (Map.Entry<BytesRef, TreeMap<Integer, Integer>> entry : postings.entrySet()) {
+      int[] docs = entry.getValue().keySet().stream().mapToInt(Integer::intValue).toArray();
+      int[] freqs = entry.getValue().values().stream().mapToInt(Integer::intValue).toArray();
+      termsBuilder.add(entry.getKey(), docs, freqs);
+    }
+    builder.addNumericDocValues("dv", values);
+
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        w.addIndexes(builder.build());
+      }
+      TestUtil.checkIndex(dir);
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(1, reader.leaves().size());
+        LeafReader leaf = reader.leaves().get(0).reader();
+        assertEquals(maxDoc, leaf.maxDoc());
+
+        Terms terms = leaf.terms("body");
+        assertEquals(postings.size(), terms.size());
+        TermsEnum termsEnum = terms.iterator();
+        for (Map.Entry<BytesRef, TreeMap<Integer, Integer>> entry : postings.entrySet()) {
+          assertEquals(entry.getKey(), termsEnum.next());
+          assertEquals(entry.getValue().size(), termsEnum.docFreq());
+          PostingsEnum postingsEnum = termsEnum.postings(null, PostingsEnum.FREQS);
+          for (Map.Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+            assertEquals(posting.getKey().intValue(), postingsEnum.nextDoc());
+            assertEquals(posting.getValue().intValue(), postingsEnum.freq());
+          }
+          assertEquals(DocIdSetIterator.NO_MORE_DOCS, postingsEnum.nextDoc());
+        }
+        assertNull(termsEnum.next());
+
+        NumericDocValues dv = leaf.getNumericDocValues("dv");
+        for (int doc = 0; doc < maxDoc; ++doc) {
+          assertEquals(doc, dv.nextDoc());
+          assertEquals(values[doc], dv.longValue());
+        }
+
+        BytesRef first = postings.keySet().iterator().next();
+        IndexSearcher searcher = newSearcher(reader);
+        assertEquals(
+            postings.get(first).size(), searcher.count(new TermQuery(new Term("body", first))));
+      }
+    }
+  }
+
+  public void testDocsOnly() throws Exception {
+    BulkSegmentBuilder builder = new BulkSegmentBuilder(3);
+    builder
+        .addTerms("id", IndexOptions.DOCS)
+        .add(new BytesRef("a"), new int[] {0}, null)
+        .add(new BytesRef("b"), new int[] {1, 2}, null);
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        w.addIndexes(builder.build());
+      }
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(2, reader.docFreq(new Term("id", "b")));
+        assertEquals(2, reader.totalTermFreq(new Term("id", "b")));
+        assertFalse(reader.leaves().get(0).reader().terms("id").hasFreqs());
+      }
+    }
+  }
+
+  public void testIllegalInput() {
+    BulkSegmentBuilder builder = new BulkSegmentBuilder(2);
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> builder.addTerms("f", IndexOptions.DOCS_AND_FREQS_AND_POSITIONS));
+    BulkSegmentBuilder.TermsBuilder termsBuilder =
+        builder.addTerms("f", IndexOptions.DOCS_AND_FREQS);
+    expectThrows(IllegalArgumentException.class, () -> builder.addTerms("f", IndexOptions.DOCS));
+    termsBuilder.add(new BytesRef("b"), new int[] {0}, new int[] {1});
+    // out of order terms
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> termsBuilder.add(new BytesRef("a"), new int[] {0}, new int[] {1}));
+    // out of order docs
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> termsBuilder.add(new BytesRef("c"), new int[] {1, 0}, new int[] {1, 1}));
+    // doc out of bounds
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> termsBuilder.add(new BytesRef("c"), new int[] {2}, new int[] {1}));
+    // missing freqs
+    expectThrows(
+        IllegalArgumentException.class,
+        () -> termsBuilder.add(new BytesRef("c"), new int[] {1}, null));
+    // wrong number of values
+    expectThrows(
+        IllegalArgumentException.class, () -> builder.addNumericDocValues("dv", new long[3]));
+    // norms without terms
+    builder.addNorms("g", new long[2]);
+    expectThrows(IllegalStateException.class, builder::build);
+  }
+
+  public void testNorms() throws Exception {
+    final int maxDoc = TestUtil.nextInt(random(), 1, 20);
+    long[] norms = new long[maxDoc];
+    List<Integer> docs = new ArrayList<>();
+    for (int doc = 0; doc < maxDoc; ++doc) {
+      docs.add(doc);
+      norms[doc] = TestUtil.nextInt(random(), 1, 100);
+    }
+    BulkSegmentBuilder builder = new BulkSegmentBuilder(maxDoc);
+    builder
+        .addTerms("body", IndexOptions.DOCS)
+        .add(new BytesRef("foo"), docs.stream().mapToInt(Integer::intValue).toArray(), null);
+    builder.addNorms("body", norms);
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+        w.addIndexes(builder.build());
+      }
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        NumericDocValues normValues = reader.leaves().get(0).reader().getNormValues("body");
+        for (int doc = 0; doc < maxDoc; ++doc) {
+          assertEquals(doc, normValues.nextDoc());
+          assertEquals(norms[doc], normValues.longValue());
+        }
+      }
+    }
+  }
+}
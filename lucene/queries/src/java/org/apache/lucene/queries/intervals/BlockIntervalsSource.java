@@ -112,7 +112,7 @@ class BlockIntervalsSource extends ConjunctionIntervalsSource {
     }
 
     @Override
-    public int nextInterval() throws IOException {
+    protected int nextIntervalInDoc() throws IOException {
       if (subIterators.get(0).nextInterval() == IntervalIterator.NO_MORE_INTERVALS)
         return start = end = IntervalIterator.NO_MORE_INTERVALS;
       int i = 1;
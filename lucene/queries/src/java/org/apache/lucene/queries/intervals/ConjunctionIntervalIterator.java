@@ -27,6 +27,8 @@ abstract class ConjunctionIntervalIterator extends IntervalIterator {
   final List<IntervalIterator> subIterators;
   final float cost;
 
+  private boolean positionsPending;
+
   ConjunctionIntervalIterator(List<IntervalIterator> subIterators) {
     this.approximation = ConjunctionDISI.intersectIterators(subIterators);
     this.subIterators = subIterators;
@@ -47,6 +49,7 @@ abstract class ConjunctionIntervalIterator extends IntervalIterator {
     int doc = approximation.nextDoc();
     if (doc != NO_MORE_DOCS) {
       reset();
+      positionsPending = true;
     }
     return doc;
   }
@@ -56,12 +59,34 @@ abstract class ConjunctionIntervalIterator extends IntervalIterator {
     int doc = approximation.advance(target);
     if (doc != NO_MORE_DOCS) {
       reset();
+      positionsPending = true;
     }
     return doc;
   }
 
+  @Override
+  public final int nextInterval() throws IOException {
+    if (positionsPending) {
+      // positions of the sub iterators are only read once the current doc needs to be verified,
+      // so docs that are rejected by other clauses of the query do not pay for it
+      positionsPending = false;
+      loadPositions();
+    }
+    return nextIntervalInDoc();
+  }
+
+  /**
+   * Called when the iterator moves to a new document, must reset the current interval without
+   * reading positions
+   */
   protected abstract void reset() throws IOException;
 
+  /** Called before the first interval of the current document is read */
+  protected void loadPositions() throws IOException {}
+
+  /** Advances to the next interval of the current document */
+  protected abstract int nextIntervalInDoc() throws IOException;
+
   @Override
   public long cost() {
     return approximation.cost();
@@ -45,7 +45,7 @@ class ContainingIntervalsSource extends ConjunctionIntervalsSource {
     IntervalIterator b = iterators.get(1);
     return new FilteringIntervalIterator(a, b) {
       @Override
-      public int nextInterval() throws IOException {
+      protected int nextIntervalInDoc() throws IOException {
         if (bpos == false) {
           return IntervalIterator.NO_MORE_INTERVALS;
         }
@@ -158,6 +158,7 @@ class DisjunctionIntervalsSource extends IntervalsSource {
     final float matchCost;
 
     IntervalIterator current = EMPTY;
+    boolean positionsPending;
 
     DisjunctionIntervalIterator(List<IntervalIterator> iterators) {
       this.disiQueue = new DisiPriorityQueue(iterators.size());
@@ -175,7 +176,7 @@ class DisjunctionIntervalsSource extends IntervalsSource {
           };
       float costsum = 0;
       for (IntervalIterator it : iterators) {
-        costsum += it.cost();
+        costsum += it.matchCost();
       }
       this.matchCost = costsum;
     }
@@ -200,13 +201,17 @@ class DisjunctionIntervalsSource extends IntervalsSource {
       return current.gaps();
     }
 
-    private void reset() throws IOException {
+    private void reset() {
       intervalQueue.clear();
+      current = EMPTY;
+      positionsPending = true;
+    }
+
+    private void loadPositions() throws IOException {
       for (DisiWrapper dw = disiQueue.topList(); dw != null; dw = dw.next) {
         dw.intervals.nextInterval();
         intervalQueue.add(dw.intervals);
       }
-      current = EMPTY;
     }
 
     int currentOrd() {
@@ -221,6 +226,11 @@ class DisjunctionIntervalsSource extends IntervalsSource {
 
     @Override
     public int nextInterval() throws IOException {
+      if (positionsPending) {
+        // only read positions once the current doc needs to be verified
+        positionsPending = false;
+        loadPositions();
+      }
       if (current == EMPTY || current == EXHAUSTED) {
         if (intervalQueue.size() > 0) {
           current = intervalQueue.top();
@@ -229,9 +239,11 @@ class DisjunctionIntervalsSource extends IntervalsSource {
       }
       int start = current.start(), end = current.end();
       while (intervalQueue.size() > 0 && contains(intervalQueue.top(), start, end)) {
-        IntervalIterator it = intervalQueue.pop();
-        if (it != null && it.nextInterval() != NO_MORE_INTERVALS) {
-          intervalQueue.add(it);
+        IntervalIterator it = intervalQueue.top();
+        if (it.nextInterval() == NO_MORE_INTERVALS) {
+          intervalQueue.pop();
+        } else {
+          intervalQueue.updateTop();
         }
       }
       if (intervalQueue.size() == 0) {
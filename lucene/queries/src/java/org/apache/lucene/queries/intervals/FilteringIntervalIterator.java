@@ -55,7 +55,12 @@ abstract class FilteringIntervalIterator extends ConjunctionIntervalIterator {
   }
 
   @Override
-  protected void reset() throws IOException {
+  protected void reset() {
+    bpos = true;
+  }
+
+  @Override
+  protected void loadPositions() throws IOException {
     bpos = b.nextInterval() != NO_MORE_INTERVALS;
   }
 }
@@ -112,11 +112,14 @@ class OrderedIntervalsSource extends ConjunctionIntervalsSource {
 
   private static class OrderedIntervalIterator extends ConjunctionIntervalIterator {
 
+    private final IntervalIterator[] subIterators;
+
     int start = -1, end = -1, i;
     int slop;
 
     private OrderedIntervalIterator(List<IntervalIterator> subIntervals) {
       super(subIntervals);
+      this.subIterators = subIntervals.toArray(new IntervalIterator[0]);
     }
 
     @Override
@@ -130,40 +133,48 @@ class OrderedIntervalsSource extends ConjunctionIntervalsSource {
     }
 
     @Override
-    public int nextInterval() throws IOException {
+    protected int nextIntervalInDoc() throws IOException {
       start = end = slop = IntervalIterator.NO_MORE_INTERVALS;
       int lastStart = Integer.MAX_VALUE;
       boolean minimizing = false;
+      final IntervalIterator[] subIterators = this.subIterators;
+      final IntervalIterator first = subIterators[0];
+      final IntervalIterator last = subIterators[subIterators.length - 1];
       i = 1;
       while (true) {
         while (true) {
-          if (subIterators.get(i - 1).end() >= lastStart) {
+          IntervalIterator prev = subIterators[i - 1];
+          if (prev.end() >= lastStart) {
             return start;
           }
-          if (i == subIterators.size()
-              || (minimizing && subIterators.get(i).start() > subIterators.get(i - 1).end())) {
+          if (i == subIterators.length) {
+            break;
+          }
+          IntervalIterator current = subIterators[i];
+          int prevEnd = prev.end();
+          if (minimizing && current.start() > prevEnd) {
             break;
           }
           do {
-            if (subIterators.get(i).end() >= lastStart
-                || subIterators.get(i).nextInterval() == IntervalIterator.NO_MORE_INTERVALS) {
+            if (current.end() >= lastStart
+                || current.nextInterval() == IntervalIterator.NO_MORE_INTERVALS) {
               return start;
             }
-          } while (subIterators.get(i).start() <= subIterators.get(i - 1).end());
+          } while (current.start() <= prevEnd);
           i++;
         }
-        start = subIterators.get(0).start();
+        start = first.start();
         if (start == NO_MORE_INTERVALS) {
           return end = NO_MORE_INTERVALS;
         }
-        end = subIterators.get(subIterators.size() - 1).end();
+        end = last.end();
         slop = end - start + 1;
         for (IntervalIterator subIterator : subIterators) {
           slop -= subIterator.width();
         }
-        lastStart = subIterators.get(subIterators.size() - 1).start();
+        lastStart = last.start();
         i = 1;
-        if (subIterators.get(0).nextInterval() == IntervalIterator.NO_MORE_INTERVALS) {
+        if (first.nextInterval() == IntervalIterator.NO_MORE_INTERVALS) {
           return start;
         }
         minimizing = true;
@@ -176,10 +187,14 @@ class OrderedIntervalsSource extends ConjunctionIntervalsSource {
     }
 
     @Override
-    protected void reset() throws IOException {
-      subIterators.get(0).nextInterval();
+    protected void reset() {
       i = 1;
       start = end = slop = -1;
     }
+
+    @Override
+    protected void loadPositions() throws IOException {
+      subIterators[0].nextInterval();
+    }
   }
 }
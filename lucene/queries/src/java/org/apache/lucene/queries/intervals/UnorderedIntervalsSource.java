@@ -149,15 +149,21 @@ class UnorderedIntervalsSource extends ConjunctionIntervalsSource {
       }
     }
 
+    private void advanceTop() throws IOException {
+      IntervalIterator it = queue.top();
+      if (it.nextInterval() == IntervalIterator.NO_MORE_INTERVALS) {
+        queue.pop();
+      } else {
+        updateRightExtreme(it);
+        queue.updateTop();
+      }
+    }
+
     @Override
-    public int nextInterval() throws IOException {
+    protected int nextIntervalInDoc() throws IOException {
       // first, find a matching interval
       while (this.queue.size() == subIterators.length && queue.top().start() == start) {
-        IntervalIterator it = queue.pop();
-        if (it != null && it.nextInterval() != IntervalIterator.NO_MORE_INTERVALS) {
-          queue.add(it);
-          updateRightExtreme(it);
-        }
+        advanceTop();
       }
       if (this.queue.size() < subIterators.length)
         return start = end = IntervalIterator.NO_MORE_INTERVALS;
@@ -172,11 +178,7 @@ class UnorderedIntervalsSource extends ConjunctionIntervalsSource {
         if (queue.top().end() == end) {
           return start;
         }
-        IntervalIterator it = queue.pop();
-        if (it != null && it.nextInterval() != IntervalIterator.NO_MORE_INTERVALS) {
-          queue.add(it);
-          updateRightExtreme(it);
-        }
+        advanceTop();
       } while (this.queue.size() == subIterators.length && end == queueEnd);
       return start;
     }
@@ -187,9 +189,13 @@ class UnorderedIntervalsSource extends ConjunctionIntervalsSource {
     }
 
     @Override
-    protected void reset() throws IOException {
+    protected void reset() {
       queueEnd = start = end = -1;
       this.queue.clear();
+    }
+
+    @Override
+    protected void loadPositions() throws IOException {
       for (IntervalIterator it : subIterators) {
         if (it.nextInterval() == NO_MORE_INTERVALS) {
           break;
@@ -481,6 +481,60 @@ public class TestIntervals extends LuceneTestCase {
     assertGaps(source, 1, "field1", new int[] {0, 0, 0, 0, 0, 0, 9});
   }
 
+  public void testSkipVerification() throws IOException {
+    // positions are only read for docs whose intervals are consumed, so iterating over
+    // documents without reading their intervals must not change the intervals of later docs
+    IntervalsSource[] sources =
+        new IntervalsSource[] {
+          Intervals.ordered(Intervals.term("pease"), Intervals.term("porridge")),
+          Intervals.unordered(
+              Intervals.term("pease"),
+              Intervals.term("porridge"),
+              Intervals.or(Intervals.term("hot"), Intervals.term("cold"))),
+          Intervals.or(Intervals.phrase("pease", "porridge"), Intervals.term("hot")),
+          Intervals.containedBy(
+              Intervals.term("porridge"),
+              Intervals.ordered(Intervals.term("pease"), Intervals.term("cold"))),
+          Intervals.containing(
+              Intervals.unordered(Intervals.term("pease"), Intervals.term("hot")),
+              Intervals.term("porridge")),
+          Intervals.overlapping(
+              Intervals.phrase("pease", "porridge"), Intervals.phrase("porridge", "hot"))
+        };
+    for (IntervalsSource source : sources) {
+      for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+        IntervalIterator expected = source.intervals("field1", ctx);
+        IntervalIterator actual = source.intervals("field1", ctx);
+        if (expected == null) {
+          assertNull(actual);
+          continue;
+        }
+        for (int doc = expected.nextDoc();
+            doc != IntervalIterator.NO_MORE_DOCS;
+            doc = expected.nextDoc()) {
+          String expectedIntervals = readIntervals(expected);
+          assertEquals(doc, actual.advance(doc));
+          if (random().nextBoolean()) {
+            // leave the intervals of this doc unread
+            continue;
+          }
+          assertEquals(-1, actual.start());
+          assertEquals(-1, actual.end());
+          assertEquals(
+              source + ": wrong intervals in doc " + doc, expectedIntervals, readIntervals(actual));
+        }
+      }
+    }
+  }
+
+  private static String readIntervals(IntervalIterator it) throws IOException {
+    StringBuilder intervals = new StringBuilder();
+    while (it.nextInterval() != IntervalIterator.NO_MORE_INTERVALS) {
+      intervals.append(it.start()).append('-').append(it.end()).append(' ');
+    }
+    return intervals.toString();
+  }
+
   public void testOffsetIntervals() throws IOException {
     IntervalsSource source =
         Intervals.unordered(
@@ -17,12 +17,16 @@
 package org.apache.lucene.sandbox.search;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.ConjunctionDISI;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -36,18 +40,28 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ArrayUtil;
 
 /**
  * A range query that can take advantage of the fact that the index is sorted to speed up execution.
  * If the index is sorted on the same field as the query, it performs binary search on the field's
  * numeric doc values to find the documents at the lower and upper ends of the range.
  *
+ * <p>The query may also require exact values for some leading fields of the index sort, in which
+ * case the range applies to the index sort field that follows them. For instance if the index is
+ * sorted by tenant and then by timestamp, a query for a range of timestamps of a single tenant
+ * also matches a contiguous range of doc IDs that can be found with a binary search.
+ *
  * <p>This optimized execution strategy is only used if the following conditions hold:
  *
  * <ul>
- *   <li>The index is sorted, and its primary sort is on the same field as the query.
- *   <li>The query field has either {@link SortedNumericDocValues} or {@link NumericDocValues}.
+ *   <li>The index is sorted, its sort starts with the leading fields of the query, if any, and
+ *       the next sort field is the same field as the query.
+ *   <li>These sort fields are sorted as longs.
+ *   <li>The query field and leading fields have either {@link SortedNumericDocValues} or {@link
+ *       NumericDocValues}.
  *   <li>The segments must have at most one field value per document (otherwise we cannot easily
  *       determine the matching document IDs through a binary search).
  * </ul>
@@ -66,10 +80,25 @@ import org.apache.lucene.search.Weight;
  *       field, lowerValue, upperValue, fallbackQuery);
  * </pre>
  *
+ * or with a leading field:
+ *
+ * <pre class="prettyprint">
+ *   long tenant = 42;
+ *   Query fallbackQuery = new BooleanQuery.Builder()
+ *       .add(LongPoint.newExactQuery("tenant", tenant), Occur.FILTER)
+ *       .add(LongPoint.newRangeQuery("timestamp", lowerValue, upperValue), Occur.FILTER)
+ *       .build();
+ *   Query rangeQuery = new IndexSortSortedNumericDocValuesRangeQuery(
+ *       new String[] {"tenant"}, new long[] {tenant}, "timestamp", lowerValue, upperValue,
+ *       fallbackQuery);
+ * </pre>
+ *
  * @lucene.experimental
  */
 public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
 
+  private final String[] leadingFields;
+  private final long[] leadingValues;
   private final String field;
   private final long lowerValue;
   private final long upperValue;
@@ -85,6 +114,39 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
    */
   public IndexSortSortedNumericDocValuesRangeQuery(
       String field, long lowerValue, long upperValue, Query fallbackQuery) {
+    this(new String[0], new long[0], field, lowerValue, upperValue, fallbackQuery);
+  }
+
+  /**
+   * Creates a new {@link IndexSortSortedNumericDocValuesRangeQuery} that only matches documents
+   * whose leading fields have the given values.
+   *
+   * @param leadingFields The names of the fields that the index is sorted on before the field.
+   * @param leadingValues The values of the leading fields.
+   * @param field The field name.
+   * @param lowerValue The lower end of the range (inclusive).
+   * @param upperValue The upper end of the range (exclusive).
+   * @param fallbackQuery A query to fall back to if the optimization cannot be applied.
+   */
+  public IndexSortSortedNumericDocValuesRangeQuery(
+      String[] leadingFields,
+      long[] leadingValues,
+      String field,
+      long lowerValue,
+      long upperValue,
+      Query fallbackQuery) {
+    if (leadingFields.length != leadingValues.length) {
+      throw new IllegalArgumentException(
+          "leadingFields and leadingValues must have the same length, got "
+              + leadingFields.length
+              + " and "
+              + leadingValues.length);
+    }
+    this.leadingFields = leadingFields.clone();
+    for (String leadingField : this.leadingFields) {
+      Objects.requireNonNull(leadingField);
+    }
+    this.leadingValues = leadingValues.clone();
     this.field = Objects.requireNonNull(field);
     this.lowerValue = lowerValue;
     this.upperValue = upperValue;
@@ -102,13 +164,21 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
     IndexSortSortedNumericDocValuesRangeQuery that = (IndexSortSortedNumericDocValuesRangeQuery) o;
     return lowerValue == that.lowerValue
         && upperValue == that.upperValue
+        && Arrays.equals(leadingFields, that.leadingFields)
+        && Arrays.equals(leadingValues, that.leadingValues)
         && Objects.equals(field, that.field)
         && Objects.equals(fallbackQuery, that.fallbackQuery);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(field, lowerValue, upperValue, fallbackQuery);
+    return Objects.hash(
+        Arrays.hashCode(leadingFields),
+        Arrays.hashCode(leadingValues),
+        field,
+        lowerValue,
+        upperValue,
+        fallbackQuery);
   }
 
   @Override
@@ -122,6 +192,12 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
   @Override
   public String toString(String field) {
     StringBuilder b = new StringBuilder();
+    for (int i = 0; i < leadingFields.length; ++i) {
+      if (leadingFields[i].equals(field) == false) {
+        b.append(leadingFields[i]).append(":");
+      }
+      b.append(leadingValues[i]).append(" ");
+    }
     if (this.field.equals(field) == false) {
       b.append(this.field).append(":");
     }
@@ -135,7 +211,9 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
 
   @Override
   public Query rewrite(IndexReader reader) throws IOException {
-    if (lowerValue == Long.MIN_VALUE && upperValue == Long.MAX_VALUE) {
+    if (leadingFields.length == 0
+        && lowerValue == Long.MIN_VALUE
+        && upperValue == Long.MAX_VALUE) {
       return new DocValuesFieldExistsQuery(field);
     }
 
@@ -144,7 +222,7 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
       return this;
     } else {
       return new IndexSortSortedNumericDocValuesRangeQuery(
-          field, lowerValue, upperValue, rewrittenFallback);
+          leadingFields, leadingValues, field, lowerValue, upperValue, rewrittenFallback);
     }
   }
 
@@ -156,20 +234,32 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
     return new ConstantScoreWeight(this, boost) {
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
-        SortedNumericDocValues sortedNumericValues =
-            DocValues.getSortedNumeric(context.reader(), field);
-        NumericDocValues numericValues = DocValues.unwrapSingleton(sortedNumericValues);
-
-        if (numericValues != null) {
-          Sort indexSort = context.reader().getMetaData().getSort();
-          if (indexSort != null
-              && indexSort.getSort().length > 0
-              && indexSort.getSort()[0].getField().equals(field)) {
-
-            SortField sortField = indexSort.getSort()[0];
-            DocIdSetIterator disi = getDocIdSetIterator(sortField, context, numericValues);
-            return new ConstantScoreScorer(this, score(), scoreMode, disi);
+        Sort indexSort = context.reader().getMetaData().getSort();
+        if (indexSort != null && indexSort.getSort().length > leadingFields.length) {
+          SortField[] sortFields =
+              ArrayUtil.copyOfSubArray(indexSort.getSort(), 0, leadingFields.length + 1);
+          List<DocIdSetIterator> values = new ArrayList<>(sortFields.length);
+          for (int i = 0; i < sortFields.length; ++i) {
+            String sortFieldName = i < leadingFields.length ? leadingFields[i] : field;
+            if (sortFields[i].getField().equals(sortFieldName) == false
+                || isLongSort(sortFields[i]) == false) {
+              return fallbackWeight.scorer(context);
+            }
+            SortedNumericDocValues sortedNumericValues =
+                DocValues.getSortedNumeric(context.reader(), sortFieldName);
+            NumericDocValues numericValues = DocValues.unwrapSingleton(sortedNumericValues);
+            if (numericValues == null) {
+              return fallbackWeight.scorer(context);
+            }
+            values.add(numericValues);
+          }
+          DocIdSetIterator delegate =
+              values.size() == 1 ? values.get(0) : ConjunctionDISI.intersectIterators(values);
+          DocIdSetIterator disi = getDocIdSetIterator(sortFields, context, delegate);
+          if (disi == null) {
+            return null;
           }
+          return new ConstantScoreScorer(this, score(), scoreMode, disi);
         }
         return fallbackWeight.scorer(context);
       }
@@ -194,16 +284,30 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
    * we load the {@link FieldComparator} instead of checking the docvalues directly. The returned
    * {@link DocIdSetIterator} makes sure to wrap the original docvalues to skip over documents with
    * no value.
+   *
+   * <p>Returns null if the first document of the segment sorts after the range or its last
+   * document sorts before it, which only reads the values of these two documents.
    */
   private DocIdSetIterator getDocIdSetIterator(
-      SortField sortField, LeafReaderContext context, DocIdSetIterator delegate)
+      SortField[] sortFields, LeafReaderContext context, DocIdSetIterator delegate)
       throws IOException {
+    SortField sortField = sortFields[leadingFields.length];
     long lower = sortField.getReverse() ? upperValue : lowerValue;
     long upper = sortField.getReverse() ? lowerValue : upperValue;
     int maxDoc = context.reader().maxDoc();
 
+    // Skip the whole segment if the values of its first and last documents are out of the range.
+    ValueComparator comparator = loadComparator(sortFields, upper, context);
+    if (maxDoc == 0 || comparator.compare(0) < 0) {
+      return null;
+    }
+    comparator = loadComparator(sortFields, lower, context);
+    if (comparator.compare(maxDoc - 1) > 0) {
+      return null;
+    }
+
     // Perform a binary search to find the first document with value >= lower.
-    ValueComparator comparator = loadComparator(sortField, lower, context);
+    comparator = loadComparator(sortFields, lower, context);
     int low = 0;
     int high = maxDoc - 1;
 
@@ -211,7 +315,7 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
       int mid = (low + high) >>> 1;
       if (comparator.compare(mid) <= 0) {
         high = mid - 1;
-        comparator = loadComparator(sortField, lower, context);
+        comparator = loadComparator(sortFields, lower, context);
       } else {
         low = mid + 1;
       }
@@ -221,7 +325,7 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
     // Perform a binary search to find the first document with value > upper.
     // Since we know that upper >= lower, we can initialize the lower bound
     // of the binary search to the result of the previous search.
-    comparator = loadComparator(sortField, upper, context);
+    comparator = loadComparator(sortFields, upper, context);
     low = firstDocIdInclusive;
     high = maxDoc - 1;
 
@@ -229,7 +333,7 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
       int mid = (low + high) >>> 1;
       if (comparator.compare(mid) < 0) {
         high = mid - 1;
-        comparator = loadComparator(sortField, upper, context);
+        comparator = loadComparator(sortFields, upper, context);
       } else {
         low = mid + 1;
       }
@@ -244,6 +348,31 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
     int compare(int docID) throws IOException;
   }
 
+  /**
+   * Loads a comparator of the values of the leading fields and the field with the values of the
+   * leading fields followed by the given value for the field, in the order of the index sort.
+   */
+  private ValueComparator loadComparator(
+      SortField[] sortFields, long topValue, LeafReaderContext context) throws IOException {
+    if (sortFields.length == 1) {
+      return loadComparator(sortFields[0], topValue, context);
+    }
+    ValueComparator[] comparators = new ValueComparator[sortFields.length];
+    for (int i = 0; i < sortFields.length; ++i) {
+      long value = i < leadingValues.length ? leadingValues[i] : topValue;
+      comparators[i] = loadComparator(sortFields[i], value, context);
+    }
+    return doc -> {
+      for (ValueComparator comparator : comparators) {
+        int value = comparator.compare(doc);
+        if (value != 0) {
+          return value;
+        }
+      }
+      return 0;
+    };
+  }
+
   private static ValueComparator loadComparator(
       SortField sortField, long topValue, LeafReaderContext context) throws IOException {
     @SuppressWarnings("unchecked")
@@ -259,6 +388,13 @@ public class IndexSortSortedNumericDocValuesRangeQuery extends Query {
     };
   }
 
+  private static boolean isLongSort(SortField sortField) {
+    if (sortField instanceof SortedNumericSortField) {
+      return ((SortedNumericSortField) sortField).getNumericType() == SortField.Type.LONG;
+    }
+    return sortField.getType() == SortField.Type.LONG;
+  }
+
   /**
    * A doc ID set iterator that wraps a delegate iterator and only returns doc IDs in the range
    * [firstDocInclusive, lastDoc).
@@ -26,9 +26,12 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
@@ -95,6 +98,73 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     }
   }
 
+  public void testSameHitsWithLeadingField() throws IOException {
+    final int iters = atLeast(10);
+    for (int iter = 0; iter < iters; ++iter) {
+      Directory dir = newDirectory();
+
+      IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+      SortField leadingSortField =
+          new SortedNumericSortField("leading", SortField.Type.LONG, random().nextBoolean());
+      leadingSortField.setMissingValue(TestUtil.nextLong(random(), 0, 5));
+      SortField sortField =
+          new SortedNumericSortField("dv", SortField.Type.LONG, random().nextBoolean());
+      sortField.setMissingValue(random().nextLong());
+      iwc.setIndexSort(new Sort(leadingSortField, sortField));
+
+      RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwc);
+
+      final int numDocs = atLeast(100);
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        if (random().nextInt(10) != 0) {
+          final long leadingValue = TestUtil.nextLong(random(), 0, 5);
+          doc.add(new SortedNumericDocValuesField("leading", leadingValue));
+          doc.add(new LongPoint("leading_idx", leadingValue));
+        }
+        if (random().nextInt(10) != 0) {
+          final long value = TestUtil.nextLong(random(), -100, 10000);
+          doc.add(new SortedNumericDocValuesField("dv", value));
+          doc.add(new LongPoint("idx", value));
+        }
+        iw.addDocument(doc);
+      }
+      if (random().nextBoolean()) {
+        iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
+      }
+      final IndexReader reader = iw.getReader();
+      final IndexSearcher searcher = newSearcher(reader);
+      iw.close();
+
+      for (int i = 0; i < 100; ++i) {
+        final long leadingValue = TestUtil.nextLong(random(), 0, 5);
+        final long min =
+            random().nextBoolean() ? Long.MIN_VALUE : TestUtil.nextLong(random(), -100, 10000);
+        final long max =
+            random().nextBoolean() ? Long.MAX_VALUE : TestUtil.nextLong(random(), -100, 10000);
+        final Query q1 =
+            new BooleanQuery.Builder()
+                .add(LongPoint.newExactQuery("leading_idx", leadingValue), Occur.FILTER)
+                .add(LongPoint.newRangeQuery("idx", min, max), Occur.FILTER)
+                .build();
+        final Query fallbackQuery =
+            new BooleanQuery.Builder()
+                .add(
+                    SortedNumericDocValuesField.newSlowExactQuery("leading", leadingValue),
+                    Occur.FILTER)
+                .add(SortedNumericDocValuesField.newSlowRangeQuery("dv", min, max), Occur.FILTER)
+                .build();
+        final Query q2 =
+            new IndexSortSortedNumericDocValuesRangeQuery(
+                new String[] {"leading"}, new long[] {leadingValue}, "dv", min, max, fallbackQuery);
+        assertSameHits(searcher, q1, q2, false);
+      }
+
+      reader.close();
+      dir.close();
+    }
+  }
+
   private void assertSameHits(IndexSearcher searcher, Query q1, Query q2, boolean scores)
       throws IOException {
     final int maxDoc = searcher.getIndexReader().maxDoc();
@@ -115,6 +185,25 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     QueryUtils.checkUnequal(q1, createQuery("foo", 3, 6));
     QueryUtils.checkUnequal(q1, createQuery("foo", 4, 5));
     QueryUtils.checkUnequal(q1, createQuery("bar", 3, 5));
+
+    Query fallbackQuery = new MatchNoDocsQuery();
+    Query q2 =
+        new IndexSortSortedNumericDocValuesRangeQuery(
+            new String[] {"bar"}, new long[] {1}, "foo", 3, 5, fallbackQuery);
+    QueryUtils.checkEqual(
+        q2,
+        new IndexSortSortedNumericDocValuesRangeQuery(
+            new String[] {"bar"}, new long[] {1}, "foo", 3, 5, fallbackQuery));
+    QueryUtils.checkUnequal(
+        q2,
+        new IndexSortSortedNumericDocValuesRangeQuery(
+            new String[] {"bar"}, new long[] {2}, "foo", 3, 5, fallbackQuery));
+    QueryUtils.checkUnequal(
+        q2,
+        new IndexSortSortedNumericDocValuesRangeQuery(
+            new String[] {"baz"}, new long[] {1}, "foo", 3, 5, fallbackQuery));
+    QueryUtils.checkUnequal(
+        q2, new IndexSortSortedNumericDocValuesRangeQuery("foo", 3, 5, fallbackQuery));
   }
 
   public void testToString() {
@@ -123,6 +212,12 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     assertEquals("[3 TO 5]", q1.toString("foo"));
     assertEquals("foo:[3 TO 5]", q1.toString("bar"));
 
+    Query q3 =
+        new IndexSortSortedNumericDocValuesRangeQuery(
+            new String[] {"bar"}, new long[] {1}, "foo", 3, 5, new MatchNoDocsQuery());
+    assertEquals("bar:1 foo:[3 TO 5]", q3.toString());
+    assertEquals("1 foo:[3 TO 5]", q3.toString("bar"));
+
     Query q2 =
         SortedSetDocValuesField.newSlowRangeQuery(
             "foo", new BytesRef("bar"), new BytesRef("baz"), true, true);
@@ -327,6 +422,42 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     dir.close();
   }
 
+  public void testSkipSegmentsOutOfRange() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    boolean reverse = random().nextBoolean();
+    iwc.setIndexSort(new Sort(new SortedNumericSortField("field", SortField.Type.LONG, reverse)));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter writer = new IndexWriter(dir, iwc);
+    for (int i = 0; i < 10; ++i) {
+      writer.addDocument(createDocument("field", i));
+    }
+    writer.commit();
+    for (int i = 100; i < 110; ++i) {
+      writer.addDocument(createDocument("field", i));
+    }
+    DirectoryReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = newSearcher(reader, false);
+    assertEquals(2, reader.leaves().size());
+
+    // neither segment overlaps the range
+    Weight weight = searcher.createWeight(createQuery("field", 50, 60), ScoreMode.COMPLETE, 1);
+    for (LeafReaderContext context : reader.leaves()) {
+      assertNull(weight.scorer(context));
+    }
+    // only the first segment does
+    weight = searcher.createWeight(createQuery("field", 5, 50), ScoreMode.COMPLETE, 1);
+    assertNotNull(weight.scorer(reader.leaves().get(0)));
+    assertNull(weight.scorer(reader.leaves().get(1)));
+    assertEquals(5, searcher.count(createQuery("field", 5, 50)));
+    // the bounds are the values of the first and last documents
+    assertEquals(2, searcher.count(createQuery("field", 9, 100)));
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
   public void testNoDocuments() throws IOException {
     Directory dir = newDirectory();
     RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
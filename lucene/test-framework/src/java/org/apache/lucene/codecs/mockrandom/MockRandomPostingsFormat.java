@@ -147,10 +147,13 @@ public final class MockRandomPostingsFormat extends PostingsFormat {
       // slow to write
       final int minTermsInBlock = TestUtil.nextInt(random, 2, 100);
       final int maxTermsInBlock = Math.max(2, (minTermsInBlock - 1) * 2 + random.nextInt(100));
+      final boolean indexReversedTerms = random.nextBoolean();
 
       boolean success = false;
       try {
-        fields = new BlockTreeTermsWriter(state, postingsWriter, minTermsInBlock, maxTermsInBlock);
+        fields =
+            new BlockTreeTermsWriter(
+                state, postingsWriter, minTermsInBlock, maxTermsInBlock, indexReversedTerms);
         success = true;
       } finally {
         if (!success) {
@@ -413,6 +413,13 @@ public abstract class BaseSimilarityTestCase extends LuceneTestCase {
         fail("score(" + prevFreq + ")=" + prevScore + " > score(" + freq + ")=" + score);
       }
 
+      // check that bulk scoring gives the same scores as scoring documents one by one
+      float[] bulkScores = new float[3];
+      scorer.score(new float[] {freq, prevFreq, -1f}, new long[] {norm, norm, -1L}, 2, bulkScores);
+      assertEquals(score, bulkScores[0], 0f);
+      assertEquals(prevScore, bulkScores[1], 0f);
+      assertEquals("bulk scoring went past size", 0f, bulkScores[2], 0f);
+
       // check score(norm-1), given the same freq it should be >= score(norm) [scores non-decreasing
       // as docs get shorter]
       if (norm > 1) {
@@ -1008,6 +1008,9 @@ public abstract class LuceneTestCase extends Assert {
       c.setCheckPendingFlushUpdate(false);
     }
     c.setMaxFullFlushMergeWaitMillis(rarely() ? atLeast(r, 1000) : atLeast(r, 200));
+    if (rarely(r)) {
+      c.setMaxRecycledIndexingBufferMB(r.nextBoolean() ? 0.1 : TestUtil.nextInt(r, 1, 64));
+    }
     return c;
   }
 
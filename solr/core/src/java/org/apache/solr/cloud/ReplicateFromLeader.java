@@ -39,6 +39,12 @@ import org.slf4j.LoggerFactory;
 public class ReplicateFromLeader {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * If true, replicas keep a request open on the leader that the leader answers as soon as it has a new commit, so
+   * that replicas fetch new commits right away instead of on the next poll.
+   */
+  public static final String WAIT_FOR_LEADER_COMMIT_PROP = "solr.cloud.replication.waitForLeaderCommit";
+
   private final CoreContainer cc;
   private final String coreName;
 
@@ -83,9 +89,18 @@ public class ReplicateFromLeader {
       } else if (uinfo.autoSoftCommmitMaxTime != -1) {
         pollIntervalStr = toPollIntervalStr(uinfo.autoSoftCommmitMaxTime/2);
       }
+      NamedList<Object> followerConfig = new NamedList<>();
+      if (Boolean.getBoolean(WAIT_FOR_LEADER_COMMIT_PROP)) {
+        // the leader holds each poll until it has a new commit, so polls can follow each other closely
+        long waitForCommitMs = Math.min(ReplicationHandler.readIntervalMs(pollIntervalStr), ReplicationHandler.MAX_WAIT_FOR_COMMIT_MS);
+        if (waitForCommitMs > 0) {
+          followerConfig.add(ReplicationHandler.WAIT_FOR_COMMIT_MS, waitForCommitMs);
+          pollIntervalStr = "00:00:01";
+          log.info("Will wait up to {}ms for new commits on the leader", waitForCommitMs);
+        }
+      }
       log.info("Will start replication from leader with poll interval: {}", pollIntervalStr );
 
-      NamedList<Object> followerConfig = new NamedList<>();
       followerConfig.add("fetchFromLeader", Boolean.TRUE);
       followerConfig.add(ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO, switchTransactionLog);
       followerConfig.add("pollInterval", pollIntervalStr);
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.lucene.misc.store.DirectIODirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockFactory;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Factory to instantiate {@link org.apache.lucene.misc.store.DirectIODirectory}, which reads and writes
+ * the files of large merges with direct I/O so that merging does not evict the search working set from
+ * the OS page cache. All other files are accessed through {@link FSDirectory#open}.
+ * <p>
+ * Can set the following parameters:
+ * <ul>
+ *  <li>minMergeSizeMB -- Merges whose estimated size is smaller than this use the regular, cached
+ *  directory. See {@link DirectIODirectory#DEFAULT_MIN_BYTES_DIRECT}</li>
+ *  <li>mergeBufferSize -- Size in bytes of the buffer used by each direct I/O input and output.
+ *  See {@link DirectIODirectory#DEFAULT_MERGE_BUFFER_SIZE}</li>
+ * </ul>
+ * <p>
+ * Direct I/O requires support from the JDK, the operating system and the file system; if it is not
+ * available, merges above the threshold will fail with an {@link UnsupportedOperationException}.
+ *
+ * @lucene.experimental
+ */
+public class DirectIODirectoryFactory extends StandardDirectoryFactory {
+  public static final double DEFAULT_MIN_MERGE_SIZE_MB = DirectIODirectory.DEFAULT_MIN_BYTES_DIRECT / 1024d / 1024d;
+  private double minMergeSizeMB = DEFAULT_MIN_MERGE_SIZE_MB;
+  private int mergeBufferSize = DirectIODirectory.DEFAULT_MERGE_BUFFER_SIZE;
+
+  @Override
+  @SuppressWarnings({"rawtypes"})
+  public void init(NamedList args) {
+    super.init(args);
+    SolrParams params = args.toSolrParams();
+    minMergeSizeMB = params.getDouble("minMergeSizeMB", DEFAULT_MIN_MERGE_SIZE_MB);
+    if (minMergeSizeMB < 0) {
+      throw new IllegalArgumentException("minMergeSizeMB must not be negative");
+    }
+    mergeBufferSize = params.getInt("mergeBufferSize", DirectIODirectory.DEFAULT_MERGE_BUFFER_SIZE);
+    if (mergeBufferSize <= 0) {
+      throw new IllegalArgumentException("mergeBufferSize must be greater than 0");
+    }
+  }
+
+  @Override
+  protected Directory create(String path, LockFactory lockFactory, DirContext dirContext) throws IOException {
+    Path dirPath = new File(path).toPath();
+    // DirectIODirectory looks up the block size of the file store of the directory, so it must exist already
+    Files.createDirectories(dirPath);
+    // we pass NoLockFactory, because the real lock factory is set later by injectLockFactory:
+    FSDirectory delegate = FSDirectory.open(dirPath, lockFactory);
+    long minBytesDirect = (long) (minMergeSizeMB * 1024 * 1024);
+    return new DirectIODirectory(delegate, mergeBufferSize, minBytesDirect);
+  }
+
+  @Override
+  public boolean isAbsolute(String path) {
+    return new File(path).isAbsolute();
+  }
+
+}
@@ -36,6 +36,8 @@ import org.slf4j.LoggerFactory;
  * <ul>
  *  <li>unmap -- See {@link MMapDirectory#setUseUnmap(boolean)}</li>
  *  <li>preload -- See {@link MMapDirectory#setPreload(boolean)}</li>
+ *  <li>preloadMerges -- If false and preload is enabled, files opened for merging or read only once are not preloaded.
+ *  See {@link MMapDirectory#ALL_FILES_EXCEPT_MERGE_AND_READONCE}</li>
  *  <li>maxChunkSize -- The Max chunk size.  See {@link MMapDirectory#MMapDirectory(Path, LockFactory, int)}</li>
  * </ul>
  *
@@ -44,6 +46,7 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   boolean unmapHack;
   boolean preload;
+  boolean preloadMerges;
   private int maxChunk;
 
   @Override
@@ -57,6 +60,7 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
     }
     unmapHack = params.getBool("unmap", true);
     preload = params.getBool("preload", false); //default turn-off
+    preloadMerges = params.getBool("preloadMerges", true);
   }
 
   @Override
@@ -68,7 +72,11 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
     } catch (IllegalArgumentException e) {
       log.warn("Unmap not supported on this JVM, continuing on without setting unmap", e);
     }
-    mapDirectory.setPreload(preload);
+    if (preload && preloadMerges == false) {
+      mapDirectory.setPreload(MMapDirectory.ALL_FILES_EXCEPT_MERGE_AND_READONCE);
+    } else {
+      mapDirectory.setPreload(preload);
+    }
     return mapDirectory;
   }
   
@@ -23,6 +23,7 @@ import java.util.Locale;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.bloom.BloomFilteringPostingsFormat;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec.Mode;
 import org.apache.solr.common.SolrException;
@@ -41,6 +42,11 @@ import org.slf4j.LoggerFactory;
  * Also, a string argument with name <code>compressionMode</code> can be
  * provided to chose between the different compression options for
  * stored fields
+ * <br>
+ * Field types with the postings format <code>BloomFilter</code> get a
+ * {@link BloomFilteringPostingsFormat} on top of the default postings format,
+ * which lets lookups of terms that are not in a segment, such as unique keys
+ * of new documents, skip the terms dictionary.
  * 
  * @lucene.experimental
  */
@@ -93,11 +99,18 @@ public class SchemaCodecFactory extends CodecFactory implements SolrCoreAware {
       log.debug("Using default compressionMode: {}", compressionMode);
     }
     codec = new Lucene90Codec(compressionMode) {
+      // the BloomFilter format that is loaded by name can only read segments
+      private final PostingsFormat bloomFilteringPostingsFormat =
+          new BloomFilteringPostingsFormat(super.getPostingsFormatForField(null));
+
       @Override
       public PostingsFormat getPostingsFormatForField(String field) {
         final SchemaField schemaField = core.getLatestSchema().getFieldOrNull(field);
         if (schemaField != null) {
           String postingsFormatName = schemaField.getType().getPostingsFormat();
+          if (BloomFilteringPostingsFormat.BLOOM_CODEC_NAME.equals(postingsFormatName)) {
+            return bloomFilteringPostingsFormat;
+          }
           if (postingsFormatName != null) {
             return PostingsFormat.forName(postingsFormatName);
           }
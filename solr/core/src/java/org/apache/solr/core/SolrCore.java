@@ -243,6 +243,9 @@ public final class SolrCore implements SolrInfoBean, Closeable {
   private Counter newSearcherCounter;
   private Counter newSearcherMaxReachedCounter;
   private Counter newSearcherOtherErrorsCounter;
+  // segments that were checked for an id by SolrIndexSearcher, and the ones that did not have the id
+  private Counter idLookupSegmentsCounter;
+  private Counter idLookupSegmentMissesCounter;
 
   private final String metricTag = SolrMetricProducer.getUniqueMetricTag(this, null);
   private final SolrMetricsContext solrMetricsContext;
@@ -1188,6 +1191,15 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     return circuitBreakerManager;
   }
 
+  /**
+   * Records a lookup of an id that checked <code>segments</code> segments, <code>misses</code> of which did not
+   * contain it. The counts outlive the searchers that did the lookups.
+   */
+  public void recordIdLookup(int segments, int misses) {
+    idLookupSegmentsCounter.inc(segments);
+    idLookupSegmentMissesCounter.inc(misses);
+  }
+
   @Override
   public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
     newSearcherCounter = parentContext.counter("new", Category.SEARCHER.toString());
@@ -1195,6 +1207,9 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     newSearcherWarmupTimer = parentContext.timer("warmup", Category.SEARCHER.toString(), "new");
     newSearcherMaxReachedCounter = parentContext.counter("maxReached", Category.SEARCHER.toString(), "new");
     newSearcherOtherErrorsCounter = parentContext.counter("errors", Category.SEARCHER.toString(), "new");
+    // id lookups, segments that miss are cheap if the id field uses the BloomFilter postings format
+    idLookupSegmentsCounter = parentContext.counter("idLookupSegments", Category.SEARCHER.toString());
+    idLookupSegmentMissesCounter = parentContext.counter("idLookupSegmentMisses", Category.SEARCHER.toString());
 
     parentContext.gauge(() -> name == null ? parentContext.nullString() : name, true, "coreName", Category.CORE.toString());
     parentContext.gauge(() -> startTime, true, "startTime", Category.CORE.toString());
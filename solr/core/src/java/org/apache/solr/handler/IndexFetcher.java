@@ -46,8 +46,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -61,7 +63,9 @@ import com.google.common.base.Strings;
 import org.apache.http.client.HttpClient;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -69,6 +73,7 @@ import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.StringHelper;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
@@ -140,6 +145,9 @@ public class IndexFetcher {
 
   private volatile Map<String, Object> currentFile;
 
+  // file name -> segment id for the per-segment files of the latest local commit
+  private Map<String, String> localSegmentIds = Collections.emptyMap();
+
   private volatile DirectoryFileFetcher dirFileFetcher;
 
   private volatile LocalFsFileFetcher localFileFetcher;
@@ -166,6 +174,13 @@ public class IndexFetcher {
 
   private boolean clearLocalIndexFirst = false;
 
+  private int parallelDownloads = 1;
+
+  private long waitForCommitMs = 0;
+
+  // generation of the leader's commit that this follower has in its index, -1 if unknown
+  private volatile long leaderGenerationInSync = -1;
+
   private static final String INTERRUPT_RESPONSE_MESSAGE = "Interrupted while waiting for modify lock";
 
   public static class IndexFetchResult {
@@ -256,6 +271,27 @@ public class IndexFetcher {
       soTimeout = getParameter(initArgs, HttpClientUtil.PROP_SO_TIMEOUT, 120000, null);
     }
 
+    Object parallelDownloads = initArgs.get(PARALLEL_DOWNLOADS);
+    if (parallelDownloads == null) {
+      // SolrCloud recovery does not go through the follower section of solrconfig
+      this.parallelDownloads = Integer.getInteger("solr.indexfetcher.parallelDownloads", 1);
+    } else {
+      this.parallelDownloads = Integer.parseInt(parallelDownloads.toString());
+    }
+    if (this.parallelDownloads < 1) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "'" + PARALLEL_DOWNLOADS + "' must be at least 1 but got: " + this.parallelDownloads);
+    }
+
+    Object waitForCommitMs = initArgs.get(WAIT_FOR_COMMIT_MS);
+    if (waitForCommitMs != null) {
+      this.waitForCommitMs = Long.parseLong(waitForCommitMs.toString());
+      if (this.waitForCommitMs < 0 || this.waitForCommitMs >= soTimeout) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "'" + WAIT_FOR_COMMIT_MS + "' must be between 0 and the read timeout " + soTimeout + " but got: " + this.waitForCommitMs);
+      }
+    }
+
     String httpBasicAuthUser = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_PASS);
     myHttpClient = createHttpClient(solrCore, httpBasicAuthUser, httpBasicAuthPassword, useExternalCompression);
@@ -273,12 +309,19 @@ public class IndexFetcher {
   }
 
   /**
-   * Gets the latest commit version and generation from the leader
+   * Gets the latest commit version and generation from the leader. If this follower is in sync with the leader and
+   * {@link ReplicationHandler#WAIT_FOR_COMMIT_MS} is configured, the leader only responds once it has a newer commit
+   * or once that time has elapsed.
    */
   @SuppressWarnings({"unchecked", "rawtypes"})
   NamedList getLatestVersion() throws IOException {
     ModifiableSolrParams params = new ModifiableSolrParams();
     params.set(COMMAND, CMD_INDEX_VERSION);
+    long generationInSync = leaderGenerationInSync;
+    if (waitForCommitMs > 0 && generationInSync >= 0) {
+      params.set(GENERATION, generationInSync);
+      params.set(WAIT_FOR_COMMIT_MS, waitForCommitMs);
+    }
     params.set(CommonParams.WT, JAVABIN);
     params.set(CommonParams.QT, ReplicationHandler.PATH);
     QueryRequest req = new QueryRequest(params);
@@ -389,6 +432,7 @@ public class IndexFetcher {
         }
         if (!replica.getCoreUrl().equals(leaderUrl)) {
           leaderUrl = replica.getCoreUrl();
+          leaderGenerationInSync = -1;
           log.info("Updated leaderUrl to {}", leaderUrl);
           // TODO: Do we need to set forceReplication = true?
         } else {
@@ -413,6 +457,7 @@ public class IndexFetcher {
 
       long latestVersion = (Long) response.get(CMD_INDEX_VERSION);
       long latestGeneration = (Long) response.get(GENERATION);
+      leaderGenerationInSync = -1;
 
       log.info("Leader's generation: {}", latestGeneration);
       log.info("Leader's version: {}", latestVersion);
@@ -471,6 +516,7 @@ public class IndexFetcher {
         //leader and follower are already in sync just return
         log.info("Follower in sync with leader.");
         successfulInstall = true;
+        leaderGenerationInSync = latestGeneration;
         return IndexFetchResult.ALREADY_IN_SYNC;
       }
       log.info("Starting replication process");
@@ -505,6 +551,7 @@ public class IndexFetcher {
       indexDir = solrCore.getDirectoryFactory().get(indexDirPath, DirContext.DEFAULT, solrCore.getSolrConfig().indexConfig.lockType);
 
       try {
+        localSegmentIds = getSegmentIds(indexDir);
 
         // We will compare all the index files from the leader vs the index files on disk to see if there is a mismatch
         // in the metadata. If there is a mismatch for the same index file then we download the entire index
@@ -651,6 +698,9 @@ public class IndexFetcher {
         }
 
         markReplicationStop();
+        if (successfulInstall) {
+          leaderGenerationInSync = latestGeneration;
+        }
         return successfulInstall ? IndexFetchResult.INDEX_FETCH_SUCCESS : IndexFetchResult.INDEX_FETCH_FAILURE;
       } catch (ReplicationHandlerException e) {
         log.error("User aborted Replication");
@@ -695,6 +745,7 @@ public class IndexFetcher {
       }
 
       filesToDownload = filesDownloaded = confFilesDownloaded = confFilesToDownload = null;
+      localSegmentIds = Collections.emptyMap();
       markReplicationStop();
       dirFileFetcher = null;
       localFileFetcher = null;
@@ -967,7 +1018,6 @@ public class IndexFetcher {
     if (log.isDebugEnabled()) {
       log.debug("Download files to dir: {}", Arrays.asList(indexDir.listAll()));
     }
-    long bytesDownloaded = 0;
     long bytesSkippedCopying = 0;
     boolean doDifferentialCopy = (indexDir instanceof FSDirectory ||
         (indexDir instanceof FilterDirectory && FilterDirectory.unwrap(indexDir) instanceof FSDirectory))
@@ -989,10 +1039,11 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
+    List<Map<String, Object>> filesToFetch = new ArrayList<>();
     for (Map<String,Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
-      CompareResult compareResult = compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
+      CompareResult compareResult = compareFile(indexDir, file);
       boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
       if (log.isDebugEnabled()) {
         log.debug("Downloading file={} size={} checksum={} alwaysDownload={}", filename, size, file.get(CHECKSUM), alwaysDownload);
@@ -1009,24 +1060,88 @@ public class IndexFetcher {
           // compared to a file copy. TODO: Maybe we could do a move safely here?
           Files.createLink(new File(tmpIndexDirPath, filename).toPath(), localFile.toPath());
           bytesSkippedCopying += localFile.length();
+          filesDownloaded.add(new HashMap<>(file));
+        } else if (downloadCompleteIndex && !doDifferentialCopy && compareResult.equal && compareResult.checkSummed) {
+          // no hard links outside of the file system, but copying the local file still saves a download
+          log.info("Don't need to download this file. Copying it from the local index: {}", filename);
+          tmpIndexDir.copyFrom(indexDir, filename, filename, DirectoryFactory.IOCONTEXT_NO_CACHE);
+          tmpIndexDir.sync(Collections.singleton(filename));
+          bytesSkippedCopying += size;
+          filesDownloaded.add(new HashMap<>(file));
         } else {
-          dirFileFetcher = new DirectoryFileFetcher(tmpIndexDir, file,
-              (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
+          filesToFetch.add(file);
         }
-        filesDownloaded.add(new HashMap<>(file));
       } else {
         if (log.isDebugEnabled()) {
           log.debug("Skipping download for {} because it already exists", file.get(NAME));
         }
       }
     }
+    long bytesDownloaded = fetchIndexFiles(filesToFetch, tmpIndexDir, latestGeneration);
     log.info("Bytes downloaded: {}, Bytes skipped downloading: {}", bytesDownloaded, bytesSkippedCopying);
     return bytesDownloaded;
   }
 
+  /**
+   * Fetch the given index files from the leader, using up to {@link #parallelDownloads} concurrent requests.
+   *
+   * @return number of bytes downloaded
+   */
+  private long fetchIndexFiles(List<Map<String, Object>> files, Directory tmpIndexDir, long latestGeneration)
+      throws Exception {
+    long bytesDownloaded = 0;
+    if (parallelDownloads == 1 || files.size() <= 1) {
+      for (Map<String, Object> file : files) {
+        bytesDownloaded += fetchIndexFile(file, tmpIndexDir, latestGeneration);
+      }
+      return bytesDownloaded;
+    }
+
+    // start with the largest files so that the download does not end with a single big file
+    List<Map<String, Object>> sortedFiles = new ArrayList<>(files);
+    sortedFiles.sort((f1, f2) -> Long.compare((Long) f2.get(SIZE), (Long) f1.get(SIZE)));
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(Math.min(parallelDownloads, files.size()),
+        new SolrNamedThreadFactory("indexFetcherDownload"));
+    boolean success = false;
+    try {
+      CompletionService<Long> completionService = new ExecutorCompletionService<>(executor);
+      for (Map<String, Object> file : sortedFiles) {
+        completionService.submit(() -> fetchIndexFile(file, tmpIndexDir, latestGeneration));
+      }
+      for (int i = 0; i < sortedFiles.size(); i++) {
+        try {
+          bytesDownloaded += completionService.take().get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception) cause;
+          }
+          throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+        }
+      }
+      success = true;
+    } finally {
+      if (!success) {
+        // abort the downloads that are still running, the flag is reset once the fetch is cleaned up
+        stop = true;
+      }
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+    return bytesDownloaded;
+  }
+
+  private long fetchIndexFile(Map<String, Object> file, Directory tmpIndexDir, long latestGeneration)
+      throws Exception {
+    DirectoryFileFetcher fileFetcher = new DirectoryFileFetcher(tmpIndexDir, file,
+        (String) file.get(NAME), FILE, latestGeneration);
+    // with parallel downloads, this reports the progress of the file that started last
+    dirFileFetcher = fileFetcher;
+    currentFile = file;
+    fileFetcher.fetchFile();
+    filesDownloaded.add(new HashMap<>(file));
+    return fileFetcher.getBytesDownloaded();
+  }
+
   //only for testing purposes. do not use this anywhere else
   //-----------START----------------------
   static BooleanSupplier testWait = () -> true;
@@ -1068,7 +1183,7 @@ public class IndexFetcher {
         if (f.equals(fileInfo.get(NAME))) {
           String filename = (String) fileInfo.get(NAME);
           long size = (Long) fileInfo.get(SIZE);
-          CompareResult compareResult = compareFile(indexDir, filename, size, (Long) fileInfo.get(CHECKSUM));
+          CompareResult compareResult = compareFile(indexDir, fileInfo);
           if (!compareResult.equal || filesToAlwaysDownloadIfNoChecksums(f, size, compareResult)) {
             filesTobeDeleted.add(f);
             clearedSpace += size;
@@ -1116,6 +1231,59 @@ public class IndexFetcher {
     boolean checkSummed = false;
   }
 
+  /**
+   * Compares a file of the leader's file list with the local file of the same name. Files of the same segment, as
+   * identified by {@link ReplicationHandler#SEGMENT_ID}, are known to be identical without reading their checksums,
+   * which also holds for indexes whose files have no checksums.
+   */
+  private CompareResult compareFile(Directory indexDir, Map<String, Object> file) {
+    String filename = (String) file.get(NAME);
+    Long size = (Long) file.get(SIZE);
+    String segmentId = (String) file.get(SEGMENT_ID);
+    String localSegmentId = localSegmentIds.get(filename);
+    if (segmentId == null || localSegmentId == null) {
+      return compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
+    }
+    CompareResult compareResult = new CompareResult();
+    try {
+      compareResult.equal = segmentId.equals(localSegmentId) && indexDir.fileLength(filename) == size;
+      // as good as a checksum
+      compareResult.checkSummed = true;
+    } catch (NoSuchFileException | FileNotFoundException e) {
+      compareResult.equal = false;
+    } catch (IOException e) {
+      log.error("Could not read file {}. Downloading it again", filename, e);
+      compareResult.equal = false;
+    }
+    if (!compareResult.equal) {
+      log.info("File {} did not match. expected segment id is {} and actual segment id is {}",
+          filename, segmentId, localSegmentId);
+    }
+    return compareResult;
+  }
+
+  /**
+   * Returns the ids of the segments of the latest commit of the given directory, keyed by the names of the files that
+   * only depend on the segment.
+   */
+  private static Map<String, String> getSegmentIds(Directory dir) {
+    Map<String, String> segmentIds = new HashMap<>();
+    try {
+      for (SegmentCommitInfo commitInfo : SegmentInfos.readLatestCommit(dir)) {
+        String segmentId = StringHelper.idToString(commitInfo.info.getId());
+        for (String file : commitInfo.info.files()) {
+          segmentIds.put(file, segmentId);
+        }
+      }
+    } catch (IndexNotFoundException e) {
+      // empty index
+    } catch (IOException e) {
+      log.warn("Could not read the segments of the local index, comparing files by checksum", e);
+      segmentIds.clear();
+    }
+    return segmentIds;
+  }
+
   protected static CompareResult compareFile(Directory indexDir, String filename, Long backupIndexFileLen, Long backupIndexFileChecksum) {
     CompareResult compareResult = new CompareResult();
     try {
@@ -1196,8 +1364,8 @@ public class IndexFetcher {
       Long length = (Long) file.get(SIZE);
       Long checksum = (Long) file.get(CHECKSUM);
       if (slowFileExists(dir, filename)) {
-        if (checksum != null) {
-          if (!(compareFile(dir, filename, length, checksum).equal)) {
+        if (checksum != null || file.get(SEGMENT_ID) != null) {
+          if (!(compareFile(dir, file).equal)) {
             // file exists and size or checksum is different, therefore we must download it again
             return true;
           }
@@ -1608,7 +1776,6 @@ public class IndexFetcher {
       try {
         while (true) {
           if (stop) {
-            stop = false;
             aborted = true;
             throw new ReplicationHandlerException("User aborted replication");
           }
@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -69,6 +70,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.StringHelper;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.CommonParams;
@@ -198,6 +200,10 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   private volatile long executorStartTime;
 
+  // shared by the file streams so that concurrent requests, like the parallel downloads of a follower,
+  // are throttled together and cannot multiply maxWriteMBPerSec
+  private volatile RateLimiter fileStreamRateLimiter;
+
   private int numberBackupsToKeep = 0; //zero: do not delete old backups
 
   private int numTimesReplicated = 0;
@@ -208,6 +214,9 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   volatile IndexCommit indexCommitPoint;
 
+  // notified when indexCommitPoint changes, see waitForNewerCommit
+  private final Object indexCommitPointMonitor = new Object();
+
   volatile NamedList<?> snapShootDetails;
 
   private AtomicBoolean replicationEnabled = new AtomicBoolean(true);
@@ -242,6 +251,11 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     // This command does not give the current index version of the leader
     // It gives the current 'replicateable' index version
     if (command.equals(CMD_INDEX_VERSION)) {
+      // capped so that a follower can't tie up a request thread of the leader for longer
+      long waitForCommitMs = Math.min(solrParams.getLong(WAIT_FOR_COMMIT_MS, 0L), MAX_WAIT_FOR_COMMIT_MS);
+      if (waitForCommitMs > 0) {
+        waitForNewerCommit(solrParams.required().getLong(GENERATION), waitForCommitMs);
+      }
       IndexCommit commitPoint = indexCommitPoint;  // make a copy so it won't change
 
       if (commitPoint == null) {
@@ -648,6 +662,28 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     rsp.add(STATUS, OK_STATUS);
   }
 
+  /**
+   * Waits until the replicateable commit is newer than the given generation, for at most the given time. This lets a
+   * follower that is in sync learn about the next commit as soon as it happens instead of on its next poll.
+   */
+  private void waitForNewerCommit(long generation, long maxWaitMs) throws InterruptedException {
+    long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    synchronized (indexCommitPointMonitor) {
+      while (true) {
+        IndexCommit commitPoint = indexCommitPoint;
+        // without a tracked commit point, there is nothing to be notified of
+        if (commitPoint == null || commitPoint.getGeneration() > generation || core.isClosed()) {
+          return;
+        }
+        long remainingNs = deadlineNs - System.nanoTime();
+        if (remainingNs <= 0) {
+          return;
+        }
+        TimeUnit.NANOSECONDS.timedWait(indexCommitPointMonitor, remainingNs);
+      }
+    }
+  }
+
   private void getFileList(SolrParams solrParams, SolrQueryResponse rsp) {
     final IndexDeletionPolicyWrapper delPol = core.getDeletionPolicy();
     final long gen = Long.parseLong(solrParams.required().get(GENERATION));
@@ -680,10 +716,16 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         dir = core.getDirectoryFactory().get(core.getNewIndexDir(), DirContext.DEFAULT, core.getSolrConfig().indexConfig.lockType);
         SegmentInfos infos = SegmentInfos.readCommit(dir, commit.getSegmentsFileName());
         for (SegmentCommitInfo commitInfo : infos) {
+          // files that are not updated by deletes or doc-values updates only depend on the segment
+          Set<String> segmentFiles = commitInfo.info.files();
+          String segmentId = StringHelper.idToString(commitInfo.info.getId());
           for (String file : commitInfo.files()) {
             Map<String, Object> fileMeta = new HashMap<>();
             fileMeta.put(NAME, file);
             fileMeta.put(SIZE, dir.fileLength(file));
+            if (segmentFiles.contains(file)) {
+              fileMeta.put(SEGMENT_ID, segmentId);
+            }
             
             try (final IndexInput in = dir.openInput(file, IOContext.READONCE)) {
               try {
@@ -1377,6 +1419,10 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     public void preClose(SolrCore core) {
       if (executorService != null)
         executorService.shutdown(); // we don't wait for shutdown - this can deadlock core reload
+      // release the followers that are waiting for a commit
+      synchronized (indexCommitPointMonitor) {
+        indexCommitPointMonitor.notifyAll();
+      }
     }
 
     @Override
@@ -1446,6 +1492,9 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         if (getCommit) {
           // IndexCommit oldCommitPoint = indexCommitPoint;
           indexCommitPoint = currentCommitPoint;
+          synchronized (indexCommitPointMonitor) {
+            indexCommitPointMonitor.notifyAll();
+          }
 
           // We don't need to save commit points for replication, the SolrDeletionPolicy
           // always saves the last commit point (and the last optimized commit point, if needed)
@@ -1528,8 +1577,12 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         checksum = new Adler32();
       }
       //No throttle if MAX_WRITE_PER_SECOND is not specified
-      double maxWriteMBPerSec = params.getDouble(MAX_WRITE_PER_SECOND, Double.MAX_VALUE);
-      rateLimiter = new RateLimiter.SimpleRateLimiter(maxWriteMBPerSec);
+      Double maxWriteMBPerSec = params.getDouble(MAX_WRITE_PER_SECOND);
+      if (maxWriteMBPerSec == null) {
+        rateLimiter = new RateLimiter.SimpleRateLimiter(Double.MAX_VALUE);
+      } else {
+        rateLimiter = getFileStreamRateLimiter(maxWriteMBPerSec);
+      }
     }
 
     // Throw exception on directory traversal attempts 
@@ -1648,6 +1701,21 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     }
   }
 
+  private RateLimiter getFileStreamRateLimiter(double maxWriteMBPerSec) {
+    RateLimiter limiter = fileStreamRateLimiter;
+    if (limiter == null || limiter.getMBPerSec() != maxWriteMBPerSec) {
+      synchronized (this) {
+        limiter = fileStreamRateLimiter;
+        if (limiter == null) {
+          limiter = fileStreamRateLimiter = new RateLimiter.SimpleRateLimiter(maxWriteMBPerSec);
+        } else if (limiter.getMBPerSec() != maxWriteMBPerSec) {
+          limiter.setMBPerSec(maxWriteMBPerSec);
+        }
+      }
+    }
+    return limiter;
+  }
+
   /**This is used to write files in the conf directory.
    */
   private abstract class LocalFsFileStream extends DirectoryFileStream {
@@ -1731,7 +1799,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   }
 
-  private static Long readIntervalMs(String interval) {
+  public static Long readIntervalMs(String interval) {
     return TimeUnit.MILLISECONDS.convert(readIntervalNs(interval), TimeUnit.NANOSECONDS);
   }
 
@@ -1774,6 +1842,8 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String FETCH_FROM_LEADER = "fetchFromLeader";
 
+  public static final String PARALLEL_DOWNLOADS = "parallelDownloads";
+
   // in case of TLOG replica, if leaderVersion = zero, don't do commit
   // otherwise updates from current tlog won't copied over properly to the new tlog, leading to data loss
   public static final String SKIP_COMMIT_ON_LEADER_VERSION_ZERO = "skipCommitOnLeaderVersionZero";
@@ -1835,6 +1905,12 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String CHECKSUM = "checksum";
 
+  /**
+   * The id of the segment that a file of the file list belongs to. Files of segments that have the same id are
+   * identical, regardless of the replica that wrote them.
+   */
+  public static final String SEGMENT_ID = "segmentId";
+
   public static final String ALIAS = "alias";
 
   public static final String CONF_CHECKSUM = "confchecksum";
@@ -1847,6 +1923,15 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String POLL_INTERVAL = "pollInterval";
 
+  /**
+   * How long the leader may hold an {@link #CMD_INDEX_VERSION} request of a follower that is in sync, waiting for a
+   * new commit to replicate.
+   */
+  public static final String WAIT_FOR_COMMIT_MS = "waitForCommitMs";
+
+  /** The longest a leader holds a {@link #CMD_INDEX_VERSION} request, whatever {@link #WAIT_FOR_COMMIT_MS} asks for. */
+  public static final long MAX_WAIT_FOR_COMMIT_MS = 60000;
+
   public static final String INTERVAL_ERR_MSG = "The " + POLL_INTERVAL + " must be in this format 'HH:mm:ss'";
 
   private static final Pattern INTERVAL_PATTERN = Pattern.compile("(\\d*?):(\\d*?):(\\d*)");
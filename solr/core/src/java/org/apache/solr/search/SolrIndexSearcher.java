@@ -717,26 +717,34 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   }
 
   private long lookupId(String field, BytesRef idBytes) throws IOException {
-    for (int i = 0, c = leafContexts.size(); i < c; i++) {
-      final LeafReaderContext leaf = leafContexts.get(i);
-      final LeafReader reader = leaf.reader();
-
-      final Terms terms = reader.terms(field);
-      if (terms == null) continue;
-
-      TermsEnum te = terms.iterator();
-      if (te.seekExact(idBytes)) {
-        PostingsEnum docs = te.postings(null, PostingsEnum.NONE);
-        docs = BitsFilteredPostingsEnum.wrap(docs, reader.getLiveDocs());
-        int id = docs.nextDoc();
-        if (id == DocIdSetIterator.NO_MORE_DOCS) continue;
-        assert docs.nextDoc() == DocIdSetIterator.NO_MORE_DOCS;
-
-        return (((long) i) << 32) | id;
+    int segments = 0;
+    int misses = 0;
+    try {
+      for (int i = 0, c = leafContexts.size(); i < c; i++) {
+        final LeafReaderContext leaf = leafContexts.get(i);
+        final LeafReader reader = leaf.reader();
+
+        final Terms terms = reader.terms(field);
+        if (terms == null) continue;
+
+        segments++;
+        TermsEnum te = terms.iterator();
+        if (te.seekExact(idBytes)) {
+          PostingsEnum docs = te.postings(null, PostingsEnum.NONE);
+          docs = BitsFilteredPostingsEnum.wrap(docs, reader.getLiveDocs());
+          int id = docs.nextDoc();
+          if (id == DocIdSetIterator.NO_MORE_DOCS) continue;
+          assert docs.nextDoc() == DocIdSetIterator.NO_MORE_DOCS;
+
+          return (((long) i) << 32) | id;
+        }
+        misses++;
       }
-    }
 
-    return -1;
+      return -1;
+    } finally {
+      core.recordIdLookup(segments, misses);
+    }
   }
 
   /**
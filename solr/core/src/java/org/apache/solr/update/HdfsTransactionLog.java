@@ -34,7 +34,6 @@ import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.FastOutputStream;
-import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.util.FSHDFSUtils;
 import org.apache.solr.util.FSHDFSUtils.CallerInfo;
@@ -114,6 +113,7 @@ public class HdfsTransactionLog extends TransactionLog {
 
         //  assert channel.position() == start;
           fos.setWritten(start);    // reflect that we aren't starting at the beginning
+          appendSize.set(start);
           //assert fos.size() == channel.size();
         } else {
           addGlobalStrings(globalStrings);
@@ -200,21 +200,8 @@ public class HdfsTransactionLog extends TransactionLog {
     LogCodec codec = new LogCodec(resolver);
     synchronized (this) {
       try {
-        long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
+        long pos = appendCommit(codec, cmd);
 
-        if (pos == 0) {
-          writeLogHeader(codec);
-          pos = fos.size();
-        }
-        
-        codec.init(fos);
-        codec.writeTag(JavaBinCodec.ARR, 3);
-        codec.writeInt(UpdateLog.COMMIT);  // should just take one byte
-        codec.writeLong(cmd.getVersion());
-        codec.writeStr(END_MESSAGE);  // ensure these bytes are (almost) last in the file
-
-        endRecord(pos);
-        
         ensureFlushed();  // flush since this will be the last record in a log fill
 
         // now the commit command is written we will never write to this log again
@@ -272,6 +259,7 @@ public class HdfsTransactionLog extends TransactionLog {
       if (debug) {
         log.debug("Closing output for {}", tlogFile);
       }
+      writePendingRecords();
       fos.flushBuffer();
       finalLogSize = fos.size();
       fos = null;
@@ -285,6 +273,7 @@ public class HdfsTransactionLog extends TransactionLog {
   private void ensureFlushed() throws IOException {
     synchronized (this) {
       if (fos != null) {
+        writePendingRecords();
         fos.flush();
         tlogOutStream.hflush();
       }
@@ -307,6 +296,7 @@ public class HdfsTransactionLog extends TransactionLog {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
       synchronized (this) {
+        writePendingRecords();
         fos.flushBuffer();
       }
 
@@ -404,6 +394,10 @@ public class HdfsTransactionLog extends TransactionLog {
       long pos = fis.position();
 
       synchronized (HdfsTransactionLog.this) {
+        if (fos != null) {
+          writePendingRecords();
+        }
+
         if (trace) {
           log.trace("Reading log record.  pos={} currentSize={}", pos, getLogSize());
         }
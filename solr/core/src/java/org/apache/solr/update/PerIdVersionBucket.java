@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrException;
+
+/** @lucene.internal */
+/**
+ * This implementation only serializes updates to the same id: each id that is being updated gets its own lock
+ * from a map of in-flight ids that is shared by all buckets, and the lock is dropped from the map once the last
+ * update to that id is done. Callers that don't pass an id share a lock for the whole bucket. Updates to other ids of the same bucket only share the bucket's highest version,
+ * which is maintained atomically. If <code>lockTimeoutMs</code> is greater than 0 it will throw exception if it
+ * can't obtain the lock for an id within that time.
+ */
+public class PerIdVersionBucket extends VersionBucket {
+
+  private final ConcurrentMap<BytesRef, IdLock> inFlightIds;
+  private final ReentrantLock bucketLock = new ReentrantLock();
+  private final Condition bucketCondition = bucketLock.newCondition();
+
+  public PerIdVersionBucket(ConcurrentMap<BytesRef, IdLock> inFlightIds) {
+    this.inFlightIds = inFlightIds;
+  }
+
+  @Override
+  public synchronized void updateHighest(long val) {
+    // other ids of this bucket may update the highest version concurrently
+    super.updateHighest(val);
+  }
+
+  @Override
+  public <T, R> R runWithLock(BytesRef id, int lockTimeoutMs, CheckedFunction<T, R> function) throws IOException {
+    IdLock idLock = acquire(id);
+    try {
+      if (!tryLock(idLock.lock, lockTimeoutMs)) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Unable to get version lock for id in " + lockTimeoutMs + " ms");
+      }
+      try {
+        return function.apply();
+      } finally {
+        idLock.lock.unlock();
+      }
+    } finally {
+      release(id);
+    }
+  }
+
+  /**
+   * Callers that don't know the id fall back to a lock for the whole bucket. It serializes them with each other,
+   * but not with updates that are locked by id, so updates should use
+   * {@link #runWithLock(BytesRef, int, CheckedFunction)}. The lock is released once the function returns.
+   */
+  @Override
+  public <T, R> R runWithLock(int lockTimeoutMs, CheckedFunction<T, R> function) throws IOException {
+    if (!tryLock(bucketLock, lockTimeoutMs)) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "Unable to get version bucket lock in " + lockTimeoutMs + " ms");
+    }
+    try {
+      return function.apply();
+    } finally {
+      bucketLock.unlock();
+    }
+  }
+
+  /**
+   * Nothing to do, locks are released by the <code>runWithLock</code> methods.
+   */
+  @Override
+  public void unlock() {
+  }
+
+  /**
+   * Wakes up the threads waiting on the bucket lock, must be called with it held.
+   */
+  @Override
+  public void signalAll() {
+    bucketCondition.signalAll();
+  }
+
+  /**
+   * Waits on the bucket lock, must be called with it held.
+   */
+  @Override
+  public void awaitNanos(long nanosTimeout) {
+    try {
+      if (nanosTimeout > 0) {
+        bucketCondition.awaitNanos(nanosTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void signalAll(BytesRef id) {
+    IdLock idLock = inFlightIds.get(id);
+    if (idLock != null) {
+      idLock.condition.signalAll();
+    }
+  }
+
+  @Override
+  public void awaitNanos(BytesRef id, long nanosTimeout) {
+    IdLock idLock = inFlightIds.get(id);
+    try {
+      if (idLock != null && nanosTimeout > 0) {
+        idLock.condition.awaitNanos(nanosTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private IdLock acquire(BytesRef id) {
+    // copy the id since the map may keep it after the update that added it is done
+    return inFlightIds.compute(BytesRef.deepCopyOf(id), (key, idLock) -> {
+      if (idLock == null) {
+        idLock = new IdLock();
+      }
+      idLock.users++;
+      return idLock;
+    });
+  }
+
+  private void release(BytesRef id) {
+    inFlightIds.computeIfPresent(id, (key, idLock) -> --idLock.users == 0 ? null : idLock);
+  }
+
+  /**
+   * The lock for an id, together with the number of updates that use it. The number of users is only changed
+   * while computing the entry of the id in the map of in-flight ids.
+   */
+  public static class IdLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private int users;
+  }
+
+  private static boolean tryLock(ReentrantLock lock, int lockTimeoutMs) {
+    if (lockTimeoutMs <= 0) {
+      lock.lock();
+      return true;
+    }
+    try {
+      return lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+}
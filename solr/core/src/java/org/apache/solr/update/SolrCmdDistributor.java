@@ -33,6 +33,7 @@ import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 
+import com.codahale.metrics.Timer;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
 import io.opentracing.propagation.Format;
@@ -51,8 +52,10 @@ import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.Diagnostics;
 import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.update.processor.DistributedUpdateProcessor;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.LeaderRequestReplicationTracker;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.RollupRequestReplicationTracker;
+import org.apache.solr.update.processor.DistributingUpdateProcessorFactory;
 import org.apache.solr.util.tracing.GlobalTracer;
 import org.apache.solr.util.tracing.SolrRequestCarrier;
 import org.slf4j.Logger;
@@ -340,6 +343,14 @@ public class SolrCmdDistributor implements Closeable {
   }
   
   private void doRequest(final Req req) {
+    if (clients.isBackedUp(req.node.getUrl()) && isFromLeader(req)) {
+      // the replica already failed to keep up with this request and will be asked to recover,
+      // so don't hold the leader back by queueing more updates for it
+      log.debug("Not sending update to backed up replica {}", req.node.getUrl());
+      clients.markSkipped();
+      return;
+    }
+    Timer.Context timer = clients.timeQueueing();
     try {
       SolrClient solrClient = clients.getSolrClient(req);
       solrClient.request(req.uReq);
@@ -352,7 +363,24 @@ public class SolrCmdDistributor implements Closeable {
         error.statusCode = ((SolrException) e).code();
       }
       errors.add(error);
+      if (e instanceof IOException && isFromLeader(req) && !req.shouldRetry(error)) {
+        // the replica did not drain its queue in time, see solr.cloud.replication.maxQueueWaitTime
+        clients.markBackedUp(req.node.getUrl());
+      }
+    } finally {
+      if (timer != null) {
+        timer.stop();
+      }
+    }
+  }
+
+  private boolean isFromLeader(Req req) {
+    if (req.node instanceof ForwardNode || req.cmd instanceof CommitUpdateCommand) {
+      return false;
     }
+    String phase = req.uReq.getParams() == null ? null
+        : req.uReq.getParams().get(DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM);
+    return DistribPhase.parseParam(phase) == DistribPhase.FROMLEADER;
   }
   
   public static class Req {
@@ -22,10 +22,14 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.ConcurrentUpdateHttp2SolrClient;
 import org.apache.solr.client.solrj.impl.Http2SolrClient;
@@ -41,15 +45,21 @@ public class StreamingSolrClients {
   private final int runnerCount = Integer.getInteger("solr.cloud.replication.runners", 1);
   // should be less than solr.jetty.http.idleTimeout
   private final int pollQueueTime = Integer.getInteger("solr.cloud.client.pollQueueTime", 10000);
+  private final int queueSize = Integer.getInteger("solr.cloud.replication.queueSize", 100);
+  // how long to wait for room in the queue of a replica that is still making progress, -1 waits as long as it does
+  private final int maxQueueWaitTime = Integer.getInteger("solr.cloud.replication.maxQueueWaitTime", -1);
 
   private Http2SolrClient httpClient;
 
   private Map<String, ConcurrentUpdateHttp2SolrClient> solrClients = new HashMap<>();
   private List<Error> errors = Collections.synchronizedList(new ArrayList<Error>());
+  private Set<String> backedUpUrls = Collections.synchronizedSet(new HashSet<>());
 
   private ExecutorService updateExecutor;
+  private UpdateShardHandler updateShardHandler;
 
   public StreamingSolrClients(UpdateShardHandler updateShardHandler) {
+    this.updateShardHandler = updateShardHandler;
     this.updateExecutor = updateShardHandler.getUpdateExecutor();
     this.httpClient = updateShardHandler.getUpdateOnlyHttpClient();
   }
@@ -70,18 +80,51 @@ public class StreamingSolrClients {
       // on a greater scale since the current behavior is to only increase the number of connections/Runners when
       // the queue is more than half full.
       client = new ErrorReportingConcurrentUpdateSolrClient.Builder(url, httpClient, req, errors)
-          .withQueueSize(100)
+          .withQueueSize(queueSize)
           .withThreadCount(runnerCount)
           .withExecutorService(updateExecutor)
           .alwaysStreamDeletes()
           .build();
       client.setPollQueueTime(pollQueueTime); // minimize connections created
+      client.setMaxQueueWaitTime(maxQueueWaitTime);
       solrClients.put(url, client);
     }
 
     return client;
   }
 
+  /**
+   * Stops queueing updates for the given url because the node there could not keep up with them.
+   */
+  public void markBackedUp(String url) {
+    if (backedUpUrls.add(getFullUrl(url))) {
+      updateShardHandler.addBackedUpReplicas(1);
+    }
+  }
+
+  public boolean isBackedUp(String url) {
+    return !backedUpUrls.isEmpty() && backedUpUrls.contains(getFullUrl(url));
+  }
+
+  /**
+   * Counts an update that was not queued because the node it was meant for is backed up.
+   */
+  public void markSkipped() {
+    Meter meter = updateShardHandler.getReplicaBackPressureMeter();
+    if (meter != null) {
+      meter.mark();
+    }
+  }
+
+  /**
+   * @return a context timing how long it takes to queue an update,
+   *         or null if metrics are not available
+   */
+  public Timer.Context timeQueueing() {
+    Timer timer = updateShardHandler.getReplicaQueueTimer();
+    return timer == null ? null : timer.time();
+  }
+
   public synchronized void blockUntilFinished() throws IOException {
     for (ConcurrentUpdateHttp2SolrClient client : solrClients.values()) {
       client.blockUntilFinished();
@@ -92,6 +135,10 @@ public class StreamingSolrClients {
     for (ConcurrentUpdateHttp2SolrClient client : solrClients.values()) {
       client.close();
     }
+    synchronized (backedUpUrls) {
+      updateShardHandler.addBackedUpReplicas(-backedUpUrls.size());
+      backedUpUrls.clear();
+    }
   }
 
   private String getFullUrl(String url) {
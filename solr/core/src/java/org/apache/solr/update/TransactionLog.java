@@ -34,8 +34,15 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -77,11 +84,37 @@ public class TransactionLog implements Closeable {
   FileChannel channel;
   OutputStream os;
   FastOutputStream fos;    // all accesses to this stream should be synchronized on "this" (The TransactionLog)
-  int numRecords;
+  final AtomicInteger numRecords = new AtomicInteger();
   boolean isBuffer;
 
+  // Records are appended without synchronizing on "this": writers serialize their record into their
+  // own buffer, reserve its position in the log by incrementing appendSize and hand it over to
+  // pendingRecords. Pending records are copied to fos, in position order, by whichever thread holds
+  // the monitor, see writePendingRecords().
+  final AtomicLong appendSize = new AtomicLong();
+  private final Map<Long, MemOutputStream> pendingRecords = new ConcurrentHashMap<>();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final AtomicBoolean writingPendingRecords = new AtomicBoolean();
+  private volatile long flushedSize;  // everything before this position has been flushed to the channel
+
+  // above this number of pending bytes, writers copy pending records to fos
+  static final int MAX_PENDING_BYTES = 65536;
+
   protected volatile boolean deleteOnClose = true;  // we can delete old tlogs since they are currently only used for real-time-get (and in the future, recovery)
 
+  // Group commit of fsyncs: concurrent callers of finish(FSYNC) share a single fsync that covers all
+  // of their updates. All accesses to these fields should be synchronized on syncLock.
+  private final Object syncLock = new Object();
+  private long syncedSize;      // everything that was written before this position is durable
+  private boolean syncing;      // whether a caller is currently running an fsync for the others
+  private int syncRequests;     // number of callers waiting for the next fsync
+  private long syncGeneration;  // incremented every time an fsync picks up the waiting callers
+
+  // configured by the UpdateLog
+  long groupCommitMaxWaitNanos;
+  Timer fsyncTimer;
+  Histogram fsyncBatchSizes;
+
   AtomicInteger refcount = new AtomicInteger(1);
   Map<String, Integer> globalStringMap = new HashMap<>();
   List<String> globalStringList = new ArrayList<>();
@@ -188,6 +221,8 @@ public class TransactionLog implements Closeable {
           raf.seek(start);
           assert channel.position() == start;
           fos.setWritten(start);    // reflect that we aren't starting at the beginning
+          appendSize.set(start);
+          flushedSize = start;
           assert fos.size() == channel.size();
         } else {
           addGlobalStrings(globalStrings);
@@ -229,14 +264,13 @@ public class TransactionLog implements Closeable {
    * Note: currently returns 0 for reopened existing log files.
    */
   public int numRecords() {
-    synchronized (this) {
-      return this.numRecords;
-    }
+    return numRecords.get();
   }
 
   public boolean endsWithCommit() throws IOException {
     long size;
     synchronized (this) {
+      writePendingRecords();
       fos.flush();
       size = fos.size();
     }
@@ -253,18 +287,56 @@ public class TransactionLog implements Closeable {
     return true;
   }
 
-  public long writeData(Object o) {
-    @SuppressWarnings("resource") final LogCodec codec = new LogCodec(resolver);
-    try {
-      long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
-      codec.init(fos);
-      codec.writeVal(o);
-      return pos;
-    } catch (IOException e) {
-      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+  /**
+   * Appends a serialized record to the log and returns its position. The size of the record is
+   * added at its end. This does not synchronize on the log, so records of concurrent writers only
+   * get serialized by the position they reserve.
+   */
+  protected long append(MemOutputStream record) throws IOException {
+    record.writeInt((int) record.size());
+    final long size = record.size();
+    final long pos = appendSize.getAndAdd(size);
+    pendingRecords.put(pos, record);
+    numRecords.incrementAndGet();
+    if (pendingBytes.addAndGet(size) >= MAX_PENDING_BYTES
+        && writingPendingRecords.compareAndSet(false, true)) {
+      // a single writer copies pending records on behalf of the others
+      try {
+        synchronized (this) {
+          writePendingRecords();
+        }
+      } finally {
+        writingPendingRecords.set(false);
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Copies all records whose position has been reserved so far to the output stream, in position
+   * order. Must be called while synchronized on the log.
+   */
+  protected void writePendingRecords() throws IOException {
+    final long upTo = appendSize.get();
+    long pos;
+    while ((pos = fos.size()) < upTo) {
+      MemOutputStream record = pendingRecords.remove(pos);
+      if (record == null) {
+        // the position of this record has been reserved, but its writer didn't hand it over yet
+        Thread.yield();
+        continue;
+      }
+      record.writeAll(fos);
+      pendingBytes.addAndGet(-record.size());
     }
   }
 
+  /** Copies pending records and flushes the output stream to the file. Must be called while synchronized on the log. */
+  private void flushPendingRecords() throws IOException {
+    writePendingRecords();
+    fos.flushBuffer();
+    flushedSize = fos.size();
+  }
 
   @SuppressWarnings({"unchecked"})
   private void readHeader(FastInputStream fis) throws IOException {
@@ -310,32 +382,27 @@ public class TransactionLog implements Closeable {
 
   @SuppressWarnings({"unchecked"})
   protected void writeLogHeader(LogCodec codec) throws IOException {
-    long pos = fos.size();
-    assert pos == 0;
+    assert appendSize.get() == 0;
 
     @SuppressWarnings({"rawtypes"})
     Map header = new LinkedHashMap<String, Object>();
     header.put("SOLR_TLOG", 1); // a magic string + version number
     header.put("strings", globalStringList);
-    codec.marshal(header, fos);
-
-    endRecord(pos);
-  }
+    MemOutputStream out = new MemOutputStream(new byte[1024]);
+    codec.marshal(header, out);
 
-  protected void endRecord(long startRecordPosition) throws IOException {
-    fos.writeInt((int) (fos.size() - startRecordPosition));
-    numRecords++;
+    long pos = append(out);
+    assert pos == 0;
   }
 
   protected void checkWriteHeader(LogCodec codec, SolrInputDocument optional) throws IOException {
 
-    // Unsynchronized access. We can get away with an unsynchronized access here
-    // since we will never get a false non-zero when the position is in fact 0.
+    // No need to synchronize here since we will never get a false non-zero when the position is in fact 0.
     // rollback() is the only function that can reset to zero, and it blocks updates.
-    if (fos.size() != 0) return;
+    if (appendSize.get() != 0) return;
 
     synchronized (this) {
-      if (fos.size() != 0) return;  // check again while synchronized
+      if (appendSize.get() != 0) return;  // check again while synchronized
       if (optional != null) {
         addGlobalStrings(optional.getFieldNames());
       }
@@ -398,22 +465,9 @@ public class TransactionLog implements Closeable {
       }
       lastAddSize = (int) out.size();
 
-      synchronized (this) {
-        long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
-        assert pos != 0;
-
-        /***
-         System.out.println("###writing at " + pos + " fos.size()=" + fos.size() + " raf.length()=" + raf.length());
-         if (pos != fos.size()) {
-         throw new RuntimeException("ERROR" + "###writing at " + pos + " fos.size()=" + fos.size() + " raf.length()=" + raf.length());
-         }
-         ***/
-
-        out.writeAll(fos);
-        endRecord(pos);
-        // fos.flushBuffer();  // flush later
-        return pos;
-      }
+      long pos = append(out);
+      assert pos != 0;
+      return pos;
 
     } catch (IOException e) {
       // TODO: reset our file pointer back to "pos", the start of this record.
@@ -436,14 +490,9 @@ public class TransactionLog implements Closeable {
       codec.writeLong(cmd.getVersion());
       codec.writeByteArray(br.bytes, br.offset, br.length);
 
-      synchronized (this) {
-        long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
-        assert pos != 0;
-        out.writeAll(fos);
-        endRecord(pos);
-        // fos.flushBuffer();  // flush later
-        return pos;
-      }
+      long pos = append(out);
+      assert pos != 0;
+      return pos;
 
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
@@ -463,13 +512,7 @@ public class TransactionLog implements Closeable {
       codec.writeLong(cmd.getVersion());
       codec.writeStr(cmd.query);
 
-      synchronized (this) {
-        long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
-        out.writeAll(fos);
-        endRecord(pos);
-        // fos.flushBuffer();  // flush later
-        return pos;
-      }
+      return append(out);
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
     }
@@ -481,21 +524,11 @@ public class TransactionLog implements Closeable {
     LogCodec codec = new LogCodec(resolver);
     synchronized (this) {
       try {
-        long pos = fos.size();   // if we had flushed, this should be equal to channel.position()
-
-        if (pos == 0) {
-          writeLogHeader(codec);
-          pos = fos.size();
-        }
-        codec.init(fos);
-        codec.writeTag(JavaBinCodec.ARR, 3);
-        codec.writeInt(UpdateLog.COMMIT);  // should just take one byte
-        codec.writeLong(cmd.getVersion());
-        codec.writeStr(END_MESSAGE);  // ensure these bytes are (almost) last in the file
-
-        endRecord(pos);
+        long pos = appendCommit(codec, cmd);
 
+        writePendingRecords();
         fos.flush();  // flush since this will be the last record in a log fill
+        flushedSize = fos.size();
         assert fos.size() == channel.size();
 
         return pos;
@@ -505,6 +538,20 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /** Appends a commit record, and the log header if the log is empty. */
+  protected long appendCommit(LogCodec codec, CommitUpdateCommand cmd) throws IOException {
+    if (appendSize.get() == 0) {
+      writeLogHeader(codec);
+    }
+    MemOutputStream out = new MemOutputStream(new byte[32 + END_MESSAGE.length()]);
+    codec.init(out);
+    codec.writeTag(JavaBinCodec.ARR, 3);
+    codec.writeInt(UpdateLog.COMMIT);  // should just take one byte
+    codec.writeLong(cmd.getVersion());
+    codec.writeStr(END_MESSAGE);  // ensure these bytes are (almost) last in the file
+    return append(out);
+  }
+
 
   /* This method is thread safe */
 
@@ -514,16 +561,11 @@ public class TransactionLog implements Closeable {
     if (pos < 0) return null;
 
     try {
-      // make sure any unflushed buffer has been flushed
-      synchronized (this) {
-        // TODO: optimize this by keeping track of what we have flushed up to
-        fos.flushBuffer();
-        /***
-         System.out.println("###flushBuffer to " + fos.size() + " raf.length()=" + raf.length() + " pos="+pos);
-         if (fos.size() != raf.length() || pos >= fos.size() ) {
-         throw new RuntimeException("ERROR" + "###flushBuffer to " + fos.size() + " raf.length()=" + raf.length() + " pos="+pos);
-         }
-         ***/
+      // make sure the record has been flushed, records are always flushed entirely
+      if (pos >= flushedSize) {
+        synchronized (this) {
+          flushPendingRecords();
+        }
       }
 
       ChannelFastInputStream fis = new ChannelFastInputStream(channel, pos);
@@ -554,9 +596,7 @@ public class TransactionLog implements Closeable {
 
   /** returns the current position in the log file */
   public long position() {
-    synchronized (this) {
-      return fos.size();
-    }
+    return appendSize.get();
   }
 
   /** Move to a read-only state, closing and releasing resources while keeping the log available for reads */
@@ -567,15 +607,17 @@ public class TransactionLog implements Closeable {
   public void finish(UpdateLog.SyncLevel syncLevel) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
+      long size;
       synchronized (this) {
-        fos.flushBuffer();
+        flushPendingRecords();
+        size = fos.size();
       }
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
         // Since fsync is outside of synchronized block, we can end up with a partial
         // last record on power failure (which is OK, and does not represent an error...
         // we just need to be aware of it when reading).
-        raf.getFD().sync();
+        syncUpTo(size);
       }
 
     } catch (IOException e) {
@@ -583,6 +625,76 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * Makes sure that everything that was written before <code>size</code> is durable. If another
+   * caller is already running an fsync, we wait for it and only run a new fsync if it didn't cover
+   * our updates, so that concurrent callers are batched behind a single fsync.
+   */
+  private void syncUpTo(long size) throws IOException {
+    synchronized (syncLock) {
+      if (syncedSize >= size) {
+        return;
+      }
+      syncRequests++;
+      final long generation = syncGeneration;
+      while (syncing) {
+        try {
+          syncLock.wait();
+        } catch (InterruptedException e) {
+          if (syncGeneration == generation) {
+            syncRequests--;
+          }
+          Thread.currentThread().interrupt();
+          throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted while waiting for fsync of " + this, e);
+        }
+        if (syncedSize >= size) {
+          if (syncGeneration == generation) {
+            // the fsync that covered our updates had already picked up the waiting callers
+            syncRequests--;
+          }
+          return;
+        }
+      }
+      syncing = true;
+    }
+
+    long syncSize = 0;
+    boolean success = false;
+    try {
+      if (groupCommitMaxWaitNanos > 0) {
+        // give concurrent updates a chance to join this fsync
+        LockSupport.parkNanos(groupCommitMaxWaitNanos);
+      }
+      final int batchSize;
+      synchronized (syncLock) {
+        synchronized (this) {
+          flushPendingRecords();
+          syncSize = fos.size();
+        }
+        batchSize = syncRequests;
+        syncRequests = 0;
+        syncGeneration++;
+      }
+      final long start = System.nanoTime();
+      raf.getFD().sync();
+      if (fsyncTimer != null) {
+        fsyncTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      if (fsyncBatchSizes != null) {
+        fsyncBatchSizes.update(batchSize);
+      }
+      success = true;
+    } finally {
+      synchronized (syncLock) {
+        syncing = false;
+        if (success) {
+          syncedSize = Math.max(syncedSize, syncSize);
+        }
+        syncLock.notifyAll();
+      }
+    }
+  }
+
   public void close() {
     try {
       if (debug) {
@@ -590,6 +702,7 @@ public class TransactionLog implements Closeable {
       }
 
       synchronized (this) {
+        writePendingRecords();
         fos.flush();
         fos.close();
       }
@@ -632,8 +745,8 @@ public class TransactionLog implements Closeable {
   /**
    * @return the FastOutputStream size
    */
-  public synchronized long getLogSizeFromStream() {
-    return fos.size();
+  public long getLogSizeFromStream() {
+    return appendSize.get();
   }
 
   /** Returns a reader that can be used while a log is still in use.
@@ -674,6 +787,8 @@ public class TransactionLog implements Closeable {
       long pos = fis.position();
 
       synchronized (TransactionLog.this) {
+        writePendingRecords();
+
         if (trace) {
           log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
         }
@@ -682,7 +797,7 @@ public class TransactionLog implements Closeable {
           return null;
         }
 
-        fos.flushBuffer();
+        flushPendingRecords();
       }
 
       if (pos == 0) {
@@ -814,7 +929,7 @@ public class TransactionLog implements Closeable {
 
       long sz;
       synchronized (TransactionLog.this) {
-        fos.flushBuffer();
+        flushPendingRecords();
         sz = fos.size();
         assert sz == channel.size();
       }
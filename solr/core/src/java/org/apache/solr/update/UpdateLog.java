@@ -38,17 +38,22 @@ import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocumentBase;
@@ -59,7 +64,6 @@ import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
-import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrInfoBean;
@@ -79,7 +83,6 @@ import org.apache.solr.util.OrderedExecutor;
 import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.TestInjection;
-import org.apache.solr.util.TimeOut;
 import org.apache.solr.util.plugin.PluginInfoInitialized;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -96,6 +99,8 @@ import static org.apache.solr.update.processor.DistributingUpdateProcessorFactor
  */
 public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   private static final long STATUS_TIME = TimeUnit.NANOSECONDS.convert(60, TimeUnit.SECONDS);
+  // number of decoded log entries a replay may read ahead of the ones handed to the replay executor
+  private static final int REPLAY_READ_AHEAD = 100;
   public static String LOG_FILENAME_PATTERN = "%s.%019d";
   public static String TLOG_NAME="tlog";
   public static String BUFFER_TLOG_NAME="buffer.tlog";
@@ -242,6 +247,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected VersionInfo versionInfo;
 
   protected SyncLevel defaultSyncLevel = SyncLevel.FLUSH;
+  protected long groupCommitMaxWaitMicros; // how long an fsync may wait for concurrent updates to join it
 
   volatile UpdateHandler uhandler;    // a core reload can change this reference!
   protected volatile boolean cancelApplyBufferUpdate;
@@ -251,7 +257,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected Gauge<Integer> bufferedOpsGauge;
   protected Meter applyingBufferedOpsMeter;
   protected Meter replayOpsMeter;
+  protected Meter replayBytesMeter;
+  protected Timer replayBarrierTimer;
   protected Meter copyOverOldUpdatesMeter;
+  protected Timer fsyncTimer;
+  protected Histogram fsyncBatchSizeHistogram;
   protected SolrMetricsContext solrMetricsContext;
 
   public static class LogPtr {
@@ -327,6 +337,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return numVersionBuckets;
   }
 
+  public long getGroupCommitMaxWaitMicros() {
+    return groupCommitMaxWaitMicros;
+  }
+
   protected static int objToInt(Object obj, int def) {
     if (obj != null) {
       return Integer.parseInt(obj.toString());
@@ -345,9 +359,13 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (numVersionBuckets <= 0)
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
+    groupCommitMaxWaitMicros = objToInt(info.initArgs.get("groupCommitMaxWaitMicros"), 0);
+    if (groupCommitMaxWaitMicros < 0)
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "groupCommitMaxWaitMicros must not be negative!");
 
-    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
-        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
+    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} groupCommitMaxWaitMicros={}",
+        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets, groupCommitMaxWaitMicros);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -459,8 +477,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     solrMetricsContext.gauge(() -> getTotalLogsSize(), true, "bytes", scope, "replay", "remaining");
     applyingBufferedOpsMeter = solrMetricsContext.meter("ops", scope, "applyingBuffered");
     replayOpsMeter = solrMetricsContext.meter("ops", scope, "replay");
+    replayBytesMeter = solrMetricsContext.meter("bytes", scope, "replay");
+    replayBarrierTimer = solrMetricsContext.timer("time", scope, "replay", "barrier");
     copyOverOldUpdatesMeter = solrMetricsContext.meter("ops", scope, "copyOverOldUpdates");
+    fsyncTimer = solrMetricsContext.timer("time", scope, "fsync");
+    fsyncBatchSizeHistogram = solrMetricsContext.histogram("batchSize", scope, "fsync");
     solrMetricsContext.gauge(() -> state.getValue(), true, "state", scope);
+    synchronized (this) {
+      if (tlog != null) {
+        initSync(tlog);
+      }
+    }
   }
 
   @Override
@@ -1348,9 +1375,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (tlog == null) {
       String newLogName = String.format(Locale.ROOT, LOG_FILENAME_PATTERN, TLOG_NAME, id);
       tlog = newTransactionLog(new File(tlogDir, newLogName), globalStrings, false);
+      initSync(tlog);
     }
   }
 
+  /** Configures how fsyncs of the given log are grouped and reported to metrics */
+  protected void initSync(TransactionLog log) {
+    log.groupCommitMaxWaitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMaxWaitMicros);
+    log.fsyncTimer = fsyncTimer;
+    log.fsyncBatchSizes = fsyncBatchSizeHistogram;
+  }
+
 
   private void doClose(TransactionLog theLog, boolean writeCommit) {
     if (theLog != null) {
@@ -1810,6 +1845,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
 
     public void doReplay(TransactionLog translog) {
+      LogReadAhead readAhead = null;
       try {
         loglog.warn("Starting log replay {}  active={} starting pos={} inSortedOrder={}", translog, activeLog, recoveryInfo.positionOfStart, inSortedOrder);
         long lastStatusTime = System.nanoTime();
@@ -1827,6 +1863,16 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         OrderedExecutor executor = inSortedOrder ? null : req.getCore().getCoreContainer().getReplayUpdatesExecutor();
         AtomicInteger pendingTasks = new AtomicInteger(0);
         AtomicReference<SolrException> exceptionOnExecuteUpdate = new AtomicReference<>();
+        long replayedPos = tlogReader.currentPos();
+
+        // an old log won't change anymore, so decode it on another thread while the updates are applied
+        if (executor != null && !activeLog) {
+          try {
+            readAhead = new LogReadAhead(tlogReader);
+          } catch (RejectedExecutionException e) {
+            // we are closing, read the log on this thread
+          }
+        }
 
         long commitVersion = 0;
         int operationAndFlags = 0;
@@ -1841,7 +1887,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
               long now = System.nanoTime();
               if (now - lastStatusTime > STATUS_TIME) {
                 lastStatusTime = now;
-                long cpos = tlogReader.currentPos();
+                // the read-ahead thread moves the reader, it publishes the position of each entry it hands over
+                long cpos = readAhead != null ? readAhead.currentPos() : tlogReader.currentPos();
                 long csize = tlogReader.currentSize();
                 if (log.isInfoEnabled()) {
                   loglog.info(
@@ -1854,7 +1901,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
             }
 
             o = null;
-            o = tlogReader.next();
+            o = readAhead != null ? readAhead.next() : tlogReader.next();
             if (o == null && activeLog) {
               if (!finishing) {
                 // about to block all the updates including the tasks in the executor
@@ -1881,11 +1928,22 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
                 // versionInfo.unblockUpdates();
               }
             }
+          } catch (InterruptedException e) {
+            // stop replaying, run() releases the logs that were not replayed
+            Thread.currentThread().interrupt();
+            throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while replaying log " + translog, e);
           } catch (Exception e) {
-            SolrException.log(log, e);
+            recoveryInfo.errors++;
+            loglog.warn("REPLAY_ERR: Exception reading log", e);
           }
 
           if (o == null) break;
+          if (!inSortedOrder) {
+            // count the bytes of each entry once it is handed over, so the meter keeps up with the replay
+            long cpos = readAhead != null ? readAhead.currentPos() : tlogReader.currentPos();
+            replayBytesMeter.mark(Math.max(0, cpos - replayedPos));
+            replayedPos = cpos;
+          }
           // fail fast
           if (exceptionOnExecuteUpdate.get() != null) throw exceptionOnExecuteUpdate.get();
 
@@ -1997,25 +2055,31 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         }
 
       } finally {
+        // the reader must not be in use anymore when it gets closed
+        if (readAhead != null) readAhead.close();
         if (tlogReader != null) tlogReader.close();
         translog.decref();
       }
     }
 
     private void waitForAllUpdatesGetExecuted(AtomicInteger pendingTasks) {
-      TimeOut timeOut = new TimeOut(Integer.MAX_VALUE, TimeUnit.MILLISECONDS, TimeSource.CURRENT_TIME);
+      if (pendingTasks.get() == 0) return;
+      // woken up by the task that brings the count back to 0, rather than polling for it, since every
+      // delete-by-query in the log has to wait here
+      Timer.Context timerContext = replayBarrierTimer.time();
       try {
-        timeOut.waitFor("Timeout waiting for replay updates finish", () -> {
+        synchronized (pendingTasks) {
           //TODO handle the case when there are no progress after a long time
-          return pendingTasks.get() == 0;
-        });
-      } catch (TimeoutException e) {
-        throw new SolrException(ErrorCode.SERVER_ERROR, e);
+          while (pendingTasks.get() != 0) {
+            pendingTasks.wait();
+          }
+        }
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         throw new SolrException(ErrorCode.SERVER_ERROR, e);
+      } finally {
+        timerContext.stop();
       }
-
     }
 
     private Integer getBucketHash(UpdateCommand cmd) {
@@ -2034,6 +2098,107 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       return null;
     }
 
+    /**
+     * Decodes the entries of a log that is not written to anymore on another thread, so that reading and decoding
+     * the next entries overlaps with applying the previous ones. Entries are handed over in log order, together
+     * with the position of the reader after each of them.
+     */
+    private class LogReadAhead implements Closeable {
+      private final TransactionLog.LogReader reader;
+      private final BlockingQueue<ReadEntry> entries = new ArrayBlockingQueue<>(REPLAY_READ_AHEAD);
+      private final Future<?> future;
+      private volatile boolean closed;
+      // set by the read-ahead thread before it stops because reading the log failed
+      private volatile Exception failure;
+      // position of the reader after the last entry returned by next(), only used by the replay thread
+      private long pos;
+
+      LogReadAhead(TransactionLog.LogReader reader) {
+        this.reader = reader;
+        this.pos = reader.currentPos();
+        this.future = recoveryExecutor.submit(this::readEntries);
+      }
+
+      private void readEntries() {
+        try {
+          for (; ; ) {
+            Object o = reader.next();
+            if (o == null || !put(new ReadEntry(o, reader.currentPos()))) break;
+          }
+        } catch (Exception e) {
+          // handed to the replay thread, which reports it like any other error reading the log
+          failure = e;
+        }
+      }
+
+      private boolean put(ReadEntry entry) throws InterruptedException {
+        while (!closed) {
+          if (entries.offer(entry, 100, TimeUnit.MILLISECONDS)) return true;
+        }
+        return false;
+      }
+
+      /**
+       * Returns the next entry of the log, or null at the end of the log. Throws the exception the read-ahead thread
+       * got, once the entries it read before are consumed.
+       */
+      Object next() throws IOException, InterruptedException {
+        for (; ; ) {
+          ReadEntry entry = entries.poll(100, TimeUnit.MILLISECONDS);
+          if (entry == null && future.isDone()) {
+            // the read-ahead thread is done, so whatever it queued is visible now
+            entry = entries.poll();
+            if (entry == null) {
+              Exception e = failure;
+              failure = null;
+              if (e instanceof IOException) throw (IOException) e;
+              if (e instanceof RuntimeException) throw (RuntimeException) e;
+              if (e != null) throw new SolrException(ErrorCode.SERVER_ERROR, "Reading the log was interrupted", e);
+              return null;
+            }
+          }
+          if (entry != null) {
+            pos = entry.pos;
+            return entry.o;
+          }
+        }
+      }
+
+      /** Returns the position of the reader after the last entry that was returned by {@link #next()}. */
+      long currentPos() {
+        return pos;
+      }
+
+      @Override
+      public void close() {
+        closed = true;
+        // the reader gets closed next, so wait for the read-ahead thread even if interrupted, it stops within 100ms
+        boolean interrupted = false;
+        for (; ; ) {
+          try {
+            future.get();
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          } catch (ExecutionException e) {
+            SolrException.log(log, e);
+            break;
+          }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+      }
+    }
+
+    private class ReadEntry {
+      final Object o;
+      final long pos;
+
+      ReadEntry(Object o, long pos) {
+        this.o = o;
+        this.pos = pos;
+      }
+    }
+
     private void execute(UpdateCommand cmd, OrderedExecutor executor,
                          AtomicInteger pendingTasks, UpdateRequestProcessor proc,
                          AtomicReference<SolrException> exceptionHolder) {
@@ -2062,7 +2227,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
             recoveryInfo.errors++;
             loglog.warn("REPLAY_ERR: IOException reading log", e);
           } finally {
-            pendingTasks.decrementAndGet();
+            if (pendingTasks.decrementAndGet() == 0) {
+              synchronized (pendingTasks) {
+                pendingTasks.notifyAll();
+              }
+            }
           }
         });
         pendingTasks.incrementAndGet();
@@ -24,7 +24,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -90,6 +93,9 @@ public class UpdateShardHandler implements SolrInfoBean {
 
   private final Set<String> metricNames = ConcurrentHashMap.newKeySet();
   private SolrMetricsContext solrMetricsContext;
+  private Timer replicaQueueTimer;
+  private Meter replicaBackPressureMeter;
+  private final AtomicInteger backedUpReplicas = new AtomicInteger();
 
   private int socketTimeout = HttpClientUtil.DEFAULT_SO_TIMEOUT;
   private int connectionTimeout = HttpClientUtil.DEFAULT_CONNECT_TIMEOUT;
@@ -189,6 +195,9 @@ public class UpdateShardHandler implements SolrInfoBean {
         SolrMetricManager.mkName("updateOnlyExecutor", expandedScope, "threadPool"));
     recoveryExecutor = MetricUtils.instrumentedExecutorService(recoveryExecutor, this, solrMetricsContext.getMetricRegistry(),
         SolrMetricManager.mkName("recoveryExecutor", expandedScope, "threadPool"));
+    replicaQueueTimer = solrMetricsContext.timer("queueTime", expandedScope, "replicas");
+    replicaBackPressureMeter = solrMetricsContext.meter("backPressure", expandedScope, "replicas");
+    solrMetricsContext.gauge(() -> backedUpReplicas.get(), true, "backedUp", expandedScope, "replicas");
   }
 
   @Override
@@ -206,6 +215,30 @@ public class UpdateShardHandler implements SolrInfoBean {
     return solrMetricsContext;
   }
 
+  /**
+   * @return timer of the time spent queueing updates for replicas,
+   *         or null if metrics have not been initialized
+   */
+  public Timer getReplicaQueueTimer() {
+    return replicaQueueTimer;
+  }
+
+  /**
+   * @return meter of the updates that were not sent to replicas because they
+   *         did not keep up, or null if metrics have not been initialized
+   */
+  public Meter getReplicaBackPressureMeter() {
+    return replicaBackPressureMeter;
+  }
+
+  /**
+   * Adds the given number, which may be negative, to the count of replicas that requests
+   * currently stop sending updates to because they did not keep up.
+   */
+  void addBackedUpReplicas(int delta) {
+    backedUpReplicas.addAndGet(delta);
+  }
+
   // if you are looking for a client to use, it's probably this one.
   public HttpClient getDefaultHttpClient() {
     return defaultClient;
@@ -19,6 +19,8 @@ package org.apache.solr.update;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.lucene.util.BytesRef;
+
 // TODO: make inner?
 // TODO: store the highest possible in the index on a commit (but how to not block adds?)
 // TODO: could also store highest possible in the transaction log after a commit.
@@ -29,7 +31,7 @@ import java.util.concurrent.TimeUnit;
  * It uses less memory but ignores the <code>lockTimeoutMs</code>.
  */
 public class VersionBucket {
-  public long highest;
+  public volatile long highest;
 
   public void updateHighest(long val) {
     if (highest != 0) {
@@ -51,6 +53,14 @@ public class VersionBucket {
     }
   }
 
+  /**
+   * This will run the function while holding the lock for updates to the given id. By default all ids that
+   * hash to this bucket share the same lock.
+   */
+  public <T, R> R runWithLock(BytesRef id, int lockTimeoutMs, CheckedFunction<T, R> function) throws IOException {
+    return runWithLock(lockTimeoutMs, function);
+  }
+
   /**
    * Nothing to do for the intrinsic object monitor.
    */
@@ -61,6 +71,20 @@ public class VersionBucket {
     notifyAll();
   }
 
+  /**
+   * Wakes up the threads waiting for an update to the given id, must be called with the lock for that id held.
+   */
+  public void signalAll(BytesRef id) {
+    signalAll();
+  }
+
+  /**
+   * Waits for an update to the given id, must be called with the lock for that id held.
+   */
+  public void awaitNanos(BytesRef id, long nanosTimeout) {
+    awaitNanos(nanosTimeout);
+  }
+
   public void awaitNanos(long nanosTimeout) {
     try {
       long millis = TimeUnit.NANOSECONDS.toMillis(nanosTimeout);
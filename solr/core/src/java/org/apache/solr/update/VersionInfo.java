@@ -19,6 +19,7 @@ package org.apache.solr.update;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -47,6 +48,7 @@ import static org.apache.solr.common.params.CommonParams.VERSION_FIELD;
 public class VersionInfo {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS = "bucketVersionLockTimeoutMs";
+  private static final String SYS_PROP_BUCKET_VERSION_LOCK_PER_ID = "bucketVersionLockPerId";
 
   private final UpdateLog ulog;
   private final VersionBucket[] buckets;
@@ -96,9 +98,14 @@ public class VersionInfo {
     versionField = getAndCheckVersionField(schema);
     versionBucketLockTimeoutMs = ulog.uhandler.core.getSolrConfig().getInt("updateHandler/versionBucketLockTimeoutMs",
         Integer.parseInt(System.getProperty(SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS, "0")));
+    boolean versionBucketLockPerId = ulog.uhandler.core.getSolrConfig().getBool("updateHandler/versionBucketLockPerId",
+        Boolean.parseBoolean(System.getProperty(SYS_PROP_BUCKET_VERSION_LOCK_PER_ID, "false")));
+    ConcurrentHashMap<BytesRef, PerIdVersionBucket.IdLock> inFlightIds = versionBucketLockPerId ? new ConcurrentHashMap<>() : null;
     buckets = new VersionBucket[ BitUtil.nextHighestPowerOfTwo(nBuckets) ];
     for (int i=0; i<buckets.length; i++) {
-      if (versionBucketLockTimeoutMs > 0) {
+      if (versionBucketLockPerId) {
+        buckets[i] = new PerIdVersionBucket(inFlightIds);
+      } else if (versionBucketLockTimeoutMs > 0) {
         buckets[i] = new TimedVersionBucket();
       } else {
         buckets[i] = new VersionBucket();
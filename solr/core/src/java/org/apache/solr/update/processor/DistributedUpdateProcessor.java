@@ -333,7 +333,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     vinfo.lockForUpdate();
     try {
       long finalVersionOnUpdate = versionOnUpdate;
-      return bucket.runWithLock(vinfo.getVersionBucketLockTimeoutMs(), () -> doVersionAdd(cmd, finalVersionOnUpdate, isReplayOrPeersync, leaderLogic, forwardedFromCollection, bucket));
+      return bucket.runWithLock(idBytes, vinfo.getVersionBucketLockTimeoutMs(), () -> doVersionAdd(cmd, finalVersionOnUpdate, isReplayOrPeersync, leaderLogic, forwardedFromCollection, bucket));
     } finally {
       vinfo.unlockForUpdate();
     }
@@ -343,7 +343,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
       boolean leaderLogic, boolean forwardedFromCollection, VersionBucket bucket) throws IOException {
     try {
       BytesRef idBytes = cmd.getIndexedId();
-      bucket.signalAll();
+      bucket.signalAll(idBytes);
       // just in case anyone is waiting let them know that we have a new update
       // we obtain the version when synchronized and then do the add so we can ensure that
       // if version1 < version2 then version1 is actually added before version2.
@@ -538,7 +538,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     vinfo.lockForUpdate();
     try {
-      lastFoundVersion = bucket.runWithLock(vinfo.getVersionBucketLockTimeoutMs(), () -> doWaitForDependentUpdates(cmd, versionOnUpdate, isReplayOrPeersync, bucket, waitTimeout));
+      lastFoundVersion = bucket.runWithLock(cmd.getIndexedId(), vinfo.getVersionBucketLockTimeoutMs(), () -> doWaitForDependentUpdates(cmd, versionOnUpdate, isReplayOrPeersync, bucket, waitTimeout));
     } finally {
       vinfo.unlockForUpdate();
     }
@@ -606,7 +606,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
       while (Math.abs(lastFoundVersion) < cmd.prevVersion && !waitTimeout.hasTimedOut()) {
         long timeLeftInNanos = waitTimeout.timeLeft(TimeUnit.NANOSECONDS);
         if(timeLeftInNanos > 0) { // 0 means: wait forever until notified, but we don't want that.
-          bucket.awaitNanos(timeLeftInNanos);
+          bucket.awaitNanos(cmd.getIndexedId(), timeLeftInNanos);
         }
         lookedUpVersion = vinfo.lookupVersion(cmd.getIndexedId());
         lastFoundVersion = lookedUpVersion == null ? 0L : lookedUpVersion;
@@ -962,7 +962,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     vinfo.lockForUpdate();
     try {
       long finalVersionOnUpdate = versionOnUpdate;
-      return bucket.runWithLock(vinfo.getVersionBucketLockTimeoutMs(), () -> doVersionDelete(cmd, finalVersionOnUpdate, signedVersionOnUpdate, isReplayOrPeersync, leaderLogic,
+      return bucket.runWithLock(idBytes, vinfo.getVersionBucketLockTimeoutMs(), () -> doVersionDelete(cmd, finalVersionOnUpdate, signedVersionOnUpdate, isReplayOrPeersync, leaderLogic,
           forwardedFromCollection, bucket));
     } finally {
       vinfo.unlockForUpdate();
@@ -39,7 +39,8 @@ public class DirectoryFactoriesTest extends SolrTestCaseJ4 {
 
   // TODO: what do we need to setup to be able to test HdfsDirectoryFactory?
   public static final List<Class<? extends DirectoryFactory>> ALL_CLASSES
-    = Arrays.asList(MMapDirectoryFactory.class,
+    = Arrays.asList(DirectIODirectoryFactory.class,
+                    MMapDirectoryFactory.class,
                     MockDirectoryFactory.class,
                     MockFSDirectoryFactory.class,
                     NRTCachingDirectoryFactory.class,
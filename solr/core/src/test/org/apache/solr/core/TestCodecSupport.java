@@ -26,6 +26,7 @@ import org.apache.lucene.codecs.perfield.PerFieldDocValuesFormat;
 import org.apache.lucene.codecs.perfield.PerFieldPostingsFormat;
 import org.apache.lucene.index.SegmentInfo;
 import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.util.TestUtil;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
@@ -80,6 +81,24 @@ public class TestCodecSupport extends SolrTestCaseJ4 {
     assertEquals(TestUtil.getDefaultPostingsFormat().getName(), format.getPostingsFormatForField("bar_standard").getName());
   }
 
+  public void testBloomFilterPostingsFormat() throws Exception {
+    Codec codec = h.getCore().getCodec();
+    PerFieldPostingsFormat format = (PerFieldPostingsFormat) codec.postingsFormat();
+    assertEquals("BloomFilter", format.getPostingsFormatForField("foo_bloom").getName());
+
+    // write two segments and read them back through the bloom filters
+    assertU(add(doc("string_f", "bloom1", "key_bloom", "a")));
+    assertU(commit());
+    assertU(add(doc("string_f", "bloom2", "key_bloom", "b")));
+    assertU(commit());
+    h.getCore().withSearcher(searcher -> {
+      assertTrue(searcher.getFirstMatch(new Term("key_bloom", "a")) >= 0);
+      assertTrue(searcher.getFirstMatch(new Term("key_bloom", "b")) >= 0);
+      assertEquals(-1, searcher.getFirstMatch(new Term("key_bloom", "c")));
+      return null;
+    });
+  }
+
   public void testDynamicFieldsDocValuesFormats() {
     // NOTE: Direct (and Disk) DocValues formats were removed, so we use "Asserting" 
     // as a way to vet that the configuration actually matters.
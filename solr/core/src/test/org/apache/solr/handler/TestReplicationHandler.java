@@ -35,12 +35,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -934,6 +938,49 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
   }
   
   
+  @Test
+  public void doTestParallelIndexFetch() throws Exception {
+    follower.setTestPort(leaderJetty.getLocalPort());
+    follower.copyConfigFile(CONF_DIR + "solrconfig-follower1.xml", "solrconfig.xml");
+    followerJetty.stop();
+    followerJetty = createAndStartJetty(follower);
+    followerClient.close();
+    followerClient = createNewSolrClient(followerJetty.getLocalPort());
+
+    leaderClient.deleteByQuery("*:*");
+    followerClient.deleteByQuery("*:*");
+    followerClient.commit();
+    // several commits so that there are several segments, hence several files to download in parallel
+    int numDocs = 0;
+    for (int commit = 0; commit < 5; commit++) {
+      for (int i = 0; i < 10; i++, numDocs++)
+        index(leaderClient, "id", numDocs, "name", "name = " + numDocs);
+      leaderClient.commit();
+    }
+
+    @SuppressWarnings({"rawtypes"})
+    NamedList leaderQueryRsp = rQuery(numDocs, "*:*", leaderClient);
+    SolrDocumentList leaderQueryResult = (SolrDocumentList) leaderQueryRsp.get("response");
+    assertEquals(numDocs, leaderQueryResult.getNumFound());
+
+    String leaderUrl = buildUrl(followerJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME + ReplicationHandler.PATH
+        + "?wait=true&command=fetchindex&" + ReplicationHandler.PARALLEL_DOWNLOADS + "=" + TestUtil.nextInt(random(), 2, 8)
+        + "&leaderUrl=" + buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME + ReplicationHandler.PATH;
+    URL url = new URL(leaderUrl);
+    InputStream stream = url.openStream();
+    stream.close();
+
+    @SuppressWarnings({"rawtypes"})
+    NamedList followerQueryRsp = rQuery(numDocs, "*:*", followerClient);
+    SolrDocumentList followerQueryResult = (SolrDocumentList) followerQueryRsp.get("response");
+    assertEquals(numDocs, followerQueryResult.getNumFound());
+    String cmp = BaseDistributedSearchTestCase.compare(leaderQueryResult, followerQueryResult, 0, null);
+    assertEquals(null, cmp);
+
+    assertVersions(leaderClient, followerClient);
+    checkForSingleIndex(followerJetty);
+  }
+
   @Test
   //commented 20-Sep-2018  @BadApple(bugUrl="https://issues.apache.org/jira/browse/SOLR-12028") // added 17-Aug-2018
   public void doTestStressReplication() throws Exception {
@@ -1604,6 +1651,77 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testFileListReportsSegmentIds() throws Exception {
+    leaderClient.deleteByQuery("*:*");
+    for (int commit = 0; commit < 3; commit++) {
+      for (int i = 0; i < 5; i++)
+        index(leaderClient, "id", commit * 5 + i, "name", "name = " + i);
+      leaderClient.commit();
+    }
+    SolrQuery q = new SolrQuery();
+    q.add("qt", "/replication")
+        .add("command", "filelist")
+        .add("generation", "-1");
+    QueryResponse response = leaderClient.query(q);
+    List<Map<String, Object>> files = (List<Map<String, Object>>) response.getResponse().get(ReplicationHandler.CMD_GET_FILE_LIST);
+    assertNotNull(files);
+    Map<String, String> segmentIds = new HashMap<>();
+    for (Map<String, Object> file : files) {
+      String name = (String) file.get(CommonParams.NAME);
+      String segmentId = (String) file.get(ReplicationHandler.SEGMENT_ID);
+      if (name.startsWith(IndexFileNames.SEGMENTS) || IndexFileNames.parseGeneration(name) > 0) {
+        // commit files and files written by deletes or doc-values updates
+        assertNull(segmentId);
+        continue;
+      }
+      assertNotNull("no segment id for " + name, segmentId);
+      // all files of a segment have the segment's id, and ids are unique per segment
+      String previous = segmentIds.put(IndexFileNames.parseSegmentName(name), segmentId);
+      assertTrue(previous == null || previous.equals(segmentId));
+    }
+    assertEquals(segmentIds.size(), new HashSet<>(segmentIds.values()).size());
+  }
+
+  @Test
+  public void testIndexVersionWaitsForNewerCommit() throws Exception {
+    index(leaderClient, "id", 1, "name", "name = 1");
+    leaderClient.commit();
+    long generation = getIndexGeneration(leaderClient, null);
+
+    // an older generation does not wait
+    assertEquals(generation, getIndexGeneration(leaderClient, generation - 1));
+
+    Thread committer = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+        index(leaderClient, "id", 2, "name", "name = 2");
+        leaderClient.commit();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    committer.start();
+    try {
+      assertTrue(getIndexGeneration(leaderClient, generation) > generation);
+    } finally {
+      committer.join();
+    }
+  }
+
+  private long getIndexGeneration(SolrClient client, Long waitForNewerThan) throws Exception {
+    SolrQuery q = new SolrQuery();
+    q.add("qt", "/replication")
+        .add("command", ReplicationHandler.CMD_INDEX_VERSION);
+    if (waitForNewerThan != null) {
+      q.add(ReplicationHandler.GENERATION, waitForNewerThan.toString())
+          .add(ReplicationHandler.WAIT_FOR_COMMIT_MS, "60000");
+    }
+    QueryResponse response = client.query(q);
+    return (Long) response.getResponse().get(ReplicationHandler.GENERATION);
+  }
+
   @Test
   public void testFileListShouldReportErrorsWhenTheyOccur() throws Exception {
     SolrQuery q = new SolrQuery();
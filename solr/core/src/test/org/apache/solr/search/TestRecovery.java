@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
@@ -244,6 +245,8 @@ public class TestRecovery extends SolrTestCaseJ4 {
       assertTrue(replayingDocs.getValue().longValue() > 0);
       Meter replayDocs = (Meter)metrics.get("TLOG.replay.ops");
       long initialOps = replayDocs.getCount();
+      Meter replayBytes = (Meter)metrics.get("TLOG.replay.bytes");
+      long initialBytes = replayBytes.getCount();
 
       // unblock recovery
       logReplay.release(1000);
@@ -258,6 +261,7 @@ public class TestRecovery extends SolrTestCaseJ4 {
       assertJQ(req("q","*:*") ,"/response/numFound==3");
 
       assertEquals(7L, replayDocs.getCount() - initialOps);
+      assertTrue(replayBytes.getCount() > initialBytes);
       assertEquals(UpdateLog.State.ACTIVE.ordinal(), state.getValue().intValue());
 
       // make sure we can still access versions after recovery
@@ -1368,6 +1372,89 @@ public class TestRecovery extends SolrTestCaseJ4 {
   }
 
 
+  //
+  // test replaying an old tlog that is read ahead of the replay: an interrupted replay stops cleanly,
+  // the delete by query waits for the adds before it, and a bad record at the end of the log
+  // is reported by the read-ahead thread without losing the entries before it.
+  //
+  @Test
+  public void testLogReplayWithReadAhead() throws Exception {
+    final int NUM_DOCS = 250; // more entries than are read ahead of the replay
+    try {
+      TestInjection.skipIndexWriterCommitOnClose = true;
+      final Semaphore logReplay = new Semaphore(0);
+      final Semaphore logReplayFinish = new Semaphore(0);
+      final AtomicInteger interruptAt = new AtomicInteger(-1);
+
+      UpdateLog.testing_logReplayHook = () -> {
+        try {
+          assertTrue(logReplay.tryAcquire(timeout, TimeUnit.SECONDS));
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+        if (interruptAt.decrementAndGet() == 0) {
+          Thread.currentThread().interrupt();
+        }
+      };
+
+      UpdateLog.testing_logReplayFinishHook = () -> logReplayFinish.release();
+
+      UpdateLog ulog = h.getCore().getUpdateHandler().getUpdateLog();
+      File logDir = new File(ulog.getLogDir());
+
+      clearIndex();
+      assertU(commit());
+
+      for (int i = 0; i < NUM_DOCS; i++) {
+        addAndGetVersion(sdoc("id", "R" + i, "val_i_dvo", i % 2), null);
+      }
+      deleteByQueryAndGetVersion("val_i_dvo:1", null);
+      for (int i = 0; i < NUM_DOCS; i++) {
+        addAndGetVersion(sdoc("id", "S" + i, "val_i_dvo", 1), null);
+      }
+
+      h.close();
+      // interrupt the replay while the read-ahead thread is still reading the log
+      interruptAt.set(NUM_DOCS / 2);
+      createCore();
+
+      Map<String, Metric> metrics = getMetrics(); // live map view
+      Meter replayBytes = (Meter)metrics.get("TLOG.replay.bytes");
+      long initialBytes = replayBytes.getCount();
+
+      logReplay.release(Integer.MAX_VALUE);
+      assertTrue(logReplayFinish.tryAcquire(timeout, TimeUnit.SECONDS));
+      // the entries that were handed to the replay are counted even though it did not finish
+      assertTrue(replayBytes.getCount() > initialBytes);
+      assertEquals(UpdateLog.State.ACTIVE, h.getCore().getUpdateHandler().getUpdateLog().getState());
+
+      // the interrupted replay did not cap the log, so it is replayed again after a restart
+      h.close();
+      String[] files = ulog.getLogList(logDir);
+      Arrays.sort(files);
+      try (RandomAccessFile raf = new RandomAccessFile(new File(logDir, files[files.length - 1]), "rw")) {
+        raf.seek(raf.length());  // seek to end
+        raf.writeLong(0xffffffffffffffffL);
+        raf.writeChars("This should be appended to a good log file, representing a bad partially written record.");
+      }
+
+      logReplayFinish.drainPermits();
+      ignoreException("OutOfBoundsException");  // this is what the corrupted log currently produces... subject to change.
+      createCore();
+      assertTrue(logReplayFinish.tryAcquire(timeout, TimeUnit.SECONDS));
+      resetExceptionIgnores();
+
+      // the delete by query only removed the documents that were added before it
+      assertJQ(req("q","*:*") ,"/response/numFound==" + (NUM_DOCS / 2 + NUM_DOCS));
+      assertJQ(req("q","id:R*") ,"/response/numFound==" + (NUM_DOCS / 2));
+      assertJQ(req("q","id:S*") ,"/response/numFound==" + NUM_DOCS);
+
+    } finally {
+      UpdateLog.testing_logReplayHook = null;
+      UpdateLog.testing_logReplayFinishHook = null;
+    }
+  }
+
   //
   // test that a corrupt tlog doesn't stop us from coming up
   //
@@ -28,7 +28,7 @@ import org.apache.solr.common.util.NamedList;
 
 public class MockStreamingSolrClients extends StreamingSolrClients {
   
-  public enum Exp {CONNECT_EXCEPTION, SOCKET_EXCEPTION, BAD_REQUEST};
+  public enum Exp {CONNECT_EXCEPTION, SOCKET_EXCEPTION, BAD_REQUEST, QUEUE_TIMEOUT};
   
   private volatile Exp exp = null;
   
@@ -54,6 +54,8 @@ public class MockStreamingSolrClients extends StreamingSolrClients {
         return new SocketException();
       case BAD_REQUEST:
         return new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Bad Request");
+      case QUEUE_TIMEOUT:
+        return new IOException("Timed out waiting for room in the queue");
       default:
         break;
     }
@@ -73,7 +75,9 @@ public class MockStreamingSolrClients extends StreamingSolrClients {
         throws SolrServerException, IOException {
       if (exp != null) {
         Exception e = exception();
-        if (e instanceof IOException) {
+        if (exp == Exp.QUEUE_TIMEOUT) {
+          throw (IOException)e;
+        } else if (e instanceof IOException) {
           if (LuceneTestCase.random().nextBoolean()) {
             throw (IOException)e;
           } else {
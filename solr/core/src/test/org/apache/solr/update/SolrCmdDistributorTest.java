@@ -55,8 +55,10 @@ import org.apache.solr.update.SolrCmdDistributor.ForwardNode;
 import org.apache.solr.update.SolrCmdDistributor.Node;
 import org.apache.solr.update.SolrCmdDistributor.StdNode;
 import org.apache.solr.update.processor.DistributedUpdateProcessor;
+import org.apache.solr.update.processor.DistributedUpdateProcessor.DistribPhase;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.LeaderRequestReplicationTracker;
 import org.apache.solr.update.processor.DistributedUpdateProcessor.RollupRequestReplicationTracker;
+import org.apache.solr.update.processor.DistributingUpdateProcessorFactory;
 import org.apache.solr.util.TestInjection;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -347,6 +349,7 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testForwardNodeWontRetrySocketError();
     testNodeWontRetryBadRequest(NodeType.FORWARD);
     testNodeWontRetryBadRequest(NodeType.STANDARD);
+    testBackedUpReplicaIsSkipped();
     testMinRfOnRetries(NodeType.FORWARD);
     testMinRfOnRetries(NodeType.STANDARD);
     testDistribOpenSearcher();
@@ -693,6 +696,36 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     }
   }
   
+  private void testBackedUpReplicaIsSkipped() throws Exception {
+    ignoreException("Timed out waiting for room in the queue");
+    final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
+    final MockStreamingSolrClients streamingClients = new MockStreamingSolrClients(updateShardHandler);
+    try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(streamingClients, 0)) {
+      streamingClients.setExp(Exp.QUEUE_TIMEOUT);
+      ArrayList<Node> nodes = new ArrayList<>();
+      ZkNodeProps nodeProps = new ZkNodeProps(ZkStateReader.BASE_URL_PROP, solrclient.getBaseURL(),
+          ZkStateReader.CORE_NAME_PROP, "");
+      nodes.add(new StdNode(new ZkCoreNodeProps(nodeProps), "collection1", "shard1", 5));
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set(DistributingUpdateProcessorFactory.DISTRIB_UPDATE_PARAM, DistribPhase.FROMLEADER.toString());
+
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = sdoc("id", id.incrementAndGet());
+      cmdDistrib.distribAdd(cmd, nodes, params);
+
+      // the replica will be asked to recover, so no more updates are sent to it
+      streamingClients.setExp(Exp.BAD_REQUEST);
+      cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = sdoc("id", id.incrementAndGet());
+      cmdDistrib.distribAdd(cmd, nodes, params);
+      cmdDistrib.finish();
+
+      assertEquals(1, cmdDistrib.getErrors().size());
+      assertTrue(cmdDistrib.getErrors().get(0).e.getMessage().contains("Timed out waiting for room in the queue"));
+    }
+    unIgnoreException("Timed out waiting for room in the queue");
+  }
+
   private void testForwardNodeWontRetrySocketError() throws Exception {
     final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
     long numFoundBefore = solrclient.query(new SolrQuery("*:*")).getResults()
@@ -21,11 +21,23 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
 import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.update.TransactionLog.LogReader;
 import org.junit.Test;
@@ -72,4 +84,117 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testConcurrentFsync() throws Exception {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    int numThreads = atLeast(4);
+    int numUpdatesPerThread = atLeast(20);
+    Timer fsyncTimer = new Timer();
+    Histogram fsyncBatchSizes = new Histogram(new UniformReservoir());
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      tlog.deleteOnClose = false;
+      tlog.groupCommitMaxWaitNanos = random().nextBoolean() ? 0 : TimeUnit.MICROSECONDS.toNanos(random().nextInt(500));
+      tlog.fsyncTimer = fsyncTimer;
+      tlog.fsyncBatchSizes = fsyncBatchSizes;
+      ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads, new SolrNamedThreadFactory("testConcurrentFsync"));
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+          futures.add(executor.submit(() -> {
+            for (int i = 0; i < numUpdatesPerThread; i++) {
+              AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+              updateCommand.solrDoc = new SolrInputDocument();
+              tlog.write(updateCommand);
+              tlog.finish(UpdateLog.SyncLevel.FSYNC);
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+    }
+
+    // every finish() call needs to be covered by an fsync, but concurrent calls may share one
+    long numFsyncs = fsyncTimer.getCount();
+    assertTrue(numFsyncs >= 1);
+    assertTrue(numFsyncs <= numThreads * numUpdatesPerThread);
+    assertEquals(numFsyncs, fsyncBatchSizes.getCount());
+    assertTrue(fsyncBatchSizes.getSnapshot().getMax() <= numThreads);
+
+    int numRecords = 0;
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>(), true)) {
+      LogReader reader = tlog.getReader(0);
+      while (reader.next() != null) {
+        numRecords++;
+      }
+      reader.close();
+    }
+    assertEquals(numThreads * numUpdatesPerThread, numRecords);
+  }
+
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    int numThreads = atLeast(4);
+    int numUpdatesPerThread = atLeast(200);
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      tlog.deleteOnClose = false;
+      ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads, new SolrNamedThreadFactory("testConcurrentWrites"));
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+          final int thread = t;
+          futures.add(executor.submit(() -> {
+            for (int i = 0; i < numUpdatesPerThread; i++) {
+              long version = (long) thread * numUpdatesPerThread + i + 1;
+              long pos;
+              if (random().nextInt(10) == 0) {
+                DeleteUpdateCommand deleteCommand = new DeleteUpdateCommand(null);
+                deleteCommand.setIndexedId(new BytesRef(Long.toString(version)));
+                deleteCommand.setVersion(version);
+                pos = tlog.writeDelete(deleteCommand);
+              } else {
+                AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+                updateCommand.solrDoc = new SolrInputDocument();
+                updateCommand.solrDoc.addField("id", Long.toString(version));
+                updateCommand.solrDoc.addField("body", TestUtil.randomSimpleString(random(), 2000));
+                updateCommand.setVersion(version);
+                pos = tlog.write(updateCommand);
+              }
+              // records must be readable at their position right after they were written
+              List<?> entry = (List<?>) tlog.lookup(pos);
+              assertEquals(version, entry.get(UpdateLog.VERSION_IDX));
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+      assertEquals(numThreads * numUpdatesPerThread + 1, tlog.numRecords()); // the header is a record too
+    }
+
+    Set<Long> versions = new HashSet<>();
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>(), true)) {
+      LogReader reader = tlog.getReader(0);
+      Object entry;
+      while ((entry = reader.next()) != null) {
+        assertTrue(versions.add((Long) ((List<?>) entry).get(UpdateLog.VERSION_IDX)));
+      }
+      reader.close();
+    }
+    assertEquals(numThreads * numUpdatesPerThread, versions.size());
+  }
 }
@@ -20,13 +20,17 @@ package org.apache.solr.update.processor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import org.apache.lucene.util.BytesRef;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
@@ -34,6 +38,7 @@ import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.PerIdVersionBucket;
 import org.apache.solr.update.TimedVersionBucket;
 import org.apache.solr.update.UpdateLog;
 import org.apache.solr.update.VersionInfo;
@@ -135,6 +140,55 @@ public class DistributedUpdateProcessorTest extends SolrTestCaseJ4 {
     assertThat(succeeded, is(threads));
   }
   
+  @Test
+  public void testPerIdVersionBucketOnlyBlocksSameId() throws Exception {
+    PerIdVersionBucket bucket = new PerIdVersionBucket(new ConcurrentHashMap<>());
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Boolean> holder = executor.submit(() -> bucket.runWithLock(new BytesRef("1"), 0, () -> {
+      locked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return true;
+    }));
+    locked.await();
+
+    // an update to another id of the same bucket does not wait
+    assertTrue(bucket.runWithLock(new BytesRef("2"), 1000, () -> true));
+    // but an update to the same id does
+    expectThrows(SolrException.class, () -> bucket.runWithLock(new BytesRef("1"), 100, () -> true));
+
+    release.countDown();
+    assertTrue(holder.get());
+    assertTrue(bucket.runWithLock(new BytesRef("1"), 1000, () -> true));
+  }
+
+  @Test
+  public void testPerIdVersionBucketWithoutId() throws Exception {
+    PerIdVersionBucket bucket = new PerIdVersionBucket(new ConcurrentHashMap<>());
+    CountDownLatch locked = new CountDownLatch(1);
+    Future<Boolean> waiter = executor.submit(() -> bucket.runWithLock(0, () -> {
+      locked.countDown();
+      // waits on the bucket lock until it is signalled
+      bucket.awaitNanos(TimeUnit.SECONDS.toNanos(30));
+      return true;
+    }));
+    locked.await();
+
+    // the waiter released the bucket lock while waiting
+    assertTrue(bucket.runWithLock(1000, () -> {
+      bucket.signalAll();
+      return true;
+    }));
+    assertTrue(waiter.get(30, TimeUnit.SECONDS));
+    // unlock() is a no-op since runWithLock already released the lock
+    bucket.unlock();
+    assertTrue(bucket.runWithLock(1000, () -> true));
+  }
+
   /**
    * @return how many requests succeeded
    */
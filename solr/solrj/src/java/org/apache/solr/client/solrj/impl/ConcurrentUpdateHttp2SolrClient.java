@@ -67,6 +67,7 @@ public class ConcurrentUpdateHttp2SolrClient extends SolrClient {
   private boolean shutdownExecutor;
   private int pollQueueTime = 250;
   private int stallTime;
+  private int maxQueueWaitTime = -1;
   private final boolean streamDeletes;
   private volatile boolean closed;
   private volatile CountDownLatch lock = null; // used to block everything
@@ -393,6 +394,7 @@ public class ConcurrentUpdateHttp2SolrClient extends SolrClient {
 
       long lastStallTime = -1;
       int lastQueueSize = -1;
+      long queueWaitStart = System.nanoTime();
       for (;;) {
         synchronized (runners) {
           // see if queue is half full and we can add more runners
@@ -426,6 +428,12 @@ public class ConcurrentUpdateHttp2SolrClient extends SolrClient {
         if (!success) {
           success = queue.offer(update, 100, TimeUnit.MILLISECONDS);
         }
+        if (!success && maxQueueWaitTime >= 0) {
+          long queueWaitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queueWaitStart);
+          if (queueWaitTime > maxQueueWaitTime) {
+            throw new IOException("Timed out after " + queueWaitTime + "ms waiting for room in the queue with " + queue.size() + " remaining elements in the queue.");
+          }
+        }
         if (!success) {
           // stall prevention
           int currentQueueSize = queue.size();
@@ -673,6 +681,15 @@ public class ConcurrentUpdateHttp2SolrClient extends SolrClient {
     }
   }
 
+  /**
+   * @param maxQueueWaitTime maximum time in ms that a request waits for room in a
+   * full queue before failing with an {@link IOException}, even if the queue is still
+   * being processed. A negative value, the default, waits as long as the queue makes progress.
+   */
+  public void setMaxQueueWaitTime(int maxQueueWaitTime) {
+    this.maxQueueWaitTime = maxQueueWaitTime;
+  }
+
   /**
    * Constructs {@link ConcurrentUpdateHttp2SolrClient} instances from provided configuration.
    */